@@ -0,0 +1,18 @@
+package com.example.account.config;
+
+import com.example.account.type.TransactionMode;
+import org.springframework.context.annotation.Conditional;
+
+import java.lang.annotation.*;
+
+/**
+ * account.transaction.mode 가 value 일 때만 등록 (OnTransactionModeCondition)
+ * @Value 로 읽는 모드와 같게 "ledger", "Ledger" 처럼 대소문자가 달라도 맞는 것으로 본다.
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Conditional(OnTransactionModeCondition.class)
+public @interface ConditionalOnTransactionMode {
+    TransactionMode value();
+}
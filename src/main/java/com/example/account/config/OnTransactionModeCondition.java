@@ -0,0 +1,35 @@
+package com.example.account.config;
+
+import com.example.account.type.TransactionMode;
+import org.springframework.boot.autoconfigure.condition.ConditionMessage;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Map;
+
+/**
+ * 설정 값을 TransactionMode 로 binding 해서 비교 (없으면 LOCK)
+ * havingValue 는 문자열을 대소문자까지 그대로 비교하므로 enum binding 과 결과가 달라질 수 있다.
+ */
+class OnTransactionModeCondition extends SpringBootCondition {
+    static final String PROPERTY = "account.transaction.mode";
+
+    @Override
+    public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        Map<String, Object> attributes =
+                metadata.getAnnotationAttributes(ConditionalOnTransactionMode.class.getName());
+        TransactionMode required = (TransactionMode) attributes.get("value");
+        TransactionMode mode = Binder.get(context.getEnvironment())
+                .bind(PROPERTY, TransactionMode.class)
+                .orElse(TransactionMode.LOCK);
+
+        ConditionMessage.Builder message =
+                ConditionMessage.forCondition(ConditionalOnTransactionMode.class, required);
+        return mode == required
+                ? ConditionOutcome.match(message.because(PROPERTY + " is " + mode))
+                : ConditionOutcome.noMatch(message.because(PROPERTY + " is " + mode));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.account.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * account.rate-limit 설정
+ * endpoints 에 없는 endpoint 와 항목은 defaults 값을 사용한다.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "account.rate-limit")
+public class RateLimitProperties {
+    // 기존 클라이언트가 갑자기 제한되지 않도록 기본은 꺼짐
+    private boolean enabled = false;
+    // true 이면 로컬 bucket 을 통과한 요청을 redis 에서 클러스터 전체 기준으로 한 번 더 확인
+    private boolean clusterEnabled = false;
+    private Endpoint defaults = new Endpoint();
+    private Map<String, Endpoint> endpoints = new HashMap<>();
+
+    public Limit getPerUser(String endpoint) {
+        Endpoint configured = endpoints.get(endpoint);
+        return configured != null && configured.getPerUser() != null ? configured.getPerUser() : defaults.getPerUser();
+    }
+
+    public Limit getPerAccount(String endpoint) {
+        Endpoint configured = endpoints.get(endpoint);
+        return configured != null && configured.getPerAccount() != null
+                ? configured.getPerAccount() : defaults.getPerAccount();
+    }
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+        private Limit perUser;
+        private Limit perAccount;
+    }
+
+    // 초당 permits-per-second 개씩 채워지고 최대 burst 개까지 쌓이는 bucket
+    @Getter
+    @Setter
+    public static class Limit {
+        private double permitsPerSecond;
+        private int burst;
+    }
+}
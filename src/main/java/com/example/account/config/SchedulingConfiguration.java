@@ -0,0 +1,9 @@
+package com.example.account.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling // LEDGER 모드 checkpoint 작성 등 주기 작업
+public class SchedulingConfiguration {
+}
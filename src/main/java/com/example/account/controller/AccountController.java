@@ -3,19 +3,26 @@ package com.example.account.controller;
 import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
+import com.example.account.dto.AccountDto;
+import com.example.account.service.AccountEngine;
 import com.example.account.service.AccountService;
+import com.example.account.service.InquiryService;
+import com.example.account.service.RedisBalanceService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class AccountController {
     private final AccountService accountService;
+    private final InquiryService inquiryService;
+    private final RedisBalanceService redisBalanceService;
+    private final ObjectProvider<AccountEngine> accountEngine;
 
     @PostMapping("/account")
     public CreateAccount.Response createAccount(@RequestBody @Valid CreateAccount.Request request) {
@@ -26,15 +33,16 @@ public class AccountController {
 
     @DeleteMapping("/account")
     public DeleteAccount.Response deleteAccount(@RequestBody @Valid DeleteAccount.Request request) {
-        return DeleteAccount.Response.from(accountService.deleteAccount(
-                request.getUserId(),
-                request.getAccountNumber()));
+        // ENGINE 모드는 트랜잭션을 열기 전에 engine 에 해지를 요청, redis 잔액 계좌는 AccountService 가 거절
+        AccountEngine engine = accountEngine.getIfAvailable();
+        AccountDto accountDto = engine != null && !redisBalanceService.handles(request.getAccountNumber())
+                ? engine.deleteAccount(request.getUserId(), request.getAccountNumber())
+                : accountService.deleteAccount(request.getUserId(), request.getAccountNumber());
+        return DeleteAccount.Response.from(accountDto);
     }
 
     @GetMapping("/account")
     public List<AccountInfo> inquireAccounts(@RequestParam("user_id") @NotNull Long userId) {
-        return accountService.inquireAccounts(userId).stream()
-                .map(AccountInfo::from)
-                .collect(Collectors.toList());
+        return inquiryService.inquireAccounts(userId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.example.account.controller;
+
+import com.example.account.dto.LockInspection;
+import com.example.account.metric.LockMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequiredArgsConstructor
+public class LockAdminController {
+    private final LockMetrics lockMetrics;
+
+    // 현재 노드가 보유 중인 lock, 오래된 순
+    @GetMapping("/admin/locks")
+    public List<LockInspection.HeldLock> inquireHeldLocks() {
+        long now = System.currentTimeMillis();
+        return lockMetrics.getHeldLocks().entrySet().stream()
+                .map(entry -> LockInspection.HeldLock.from(entry.getKey(), entry.getValue(), now))
+                .sorted(Comparator.comparing(LockInspection.HeldLock::getHeldMillis).reversed())
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/admin/locks/stats")
+    public LockInspection.Stats inquireLockStats(
+            @RequestParam(value = "top", defaultValue = "10") int top) {
+        return LockInspection.Stats.builder()
+                .endpoints(lockMetrics.getEndpoints().entrySet().stream()
+                        .map(entry -> LockInspection.EndpointStat.from(entry.getKey(), entry.getValue()))
+                        .collect(Collectors.toList()))
+                .contendedAccounts(lockMetrics.getTopContendedAccounts(top).stream()
+                        .map(LockInspection.ContendedAccount::from)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.account.controller;
+
+import com.example.account.dto.ReconciliationReport;
+import com.example.account.metric.ReconciliationProgress;
+import com.example.account.service.BalanceReconciler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class ReconciliationController {
+    private final BalanceReconciler balanceReconciler;
+
+    // 잔액 대사 시작, 이미 실행 중이면 진행 상황만 반환
+    @PostMapping("/admin/reconciliation")
+    public ReconciliationReport startReconciliation() {
+        return ReconciliationReport.from(balanceReconciler.start());
+    }
+
+    // 마지막 대사의 진행 상황과 처리량(rows/s)
+    @GetMapping("/admin/reconciliation")
+    public ResponseEntity<ReconciliationReport> inquireReconciliation() {
+        ReconciliationProgress progress = balanceReconciler.getProgress();
+        if (progress == null) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(ReconciliationReport.from(progress));
+    }
+}
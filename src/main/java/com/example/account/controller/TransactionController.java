@@ -1,16 +1,29 @@
 package com.example.account.controller;
 
 import com.example.account.service.AccountLock;
+import com.example.account.service.Idempotent;
+import com.example.account.service.RateLimited;
 import com.example.account.dto.TransactionCancel;
 import com.example.account.dto.TransactionInquiry;
 import com.example.account.dto.TransactionUse;
 import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.service.AccountEngine;
+import com.example.account.service.AsyncTransactionService;
+import com.example.account.service.BatchTransactionService;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.GroupCommitter;
+import com.example.account.service.InquiryService;
+import com.example.account.service.RedisBalanceService;
 import com.example.account.service.TransactionInfoService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static com.example.account.type.TransactionType.CANCEL;
 import static com.example.account.type.TransactionType.USE;
@@ -20,46 +33,120 @@ import static com.example.account.type.TransactionType.USE;
 @Slf4j
 public class TransactionController {
     private final TransactionInfoService transactionInfoService;
+    private final AsyncTransactionService asyncTransactionService;
+    private final BatchTransactionService batchTransactionService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final InquiryService inquiryService;
+    private final RedisBalanceService redisBalanceService;
+    private final GroupCommitter groupCommitter;
+    // ENGINE 모드에서만 있음, worker 가 DB connection 을 쓰므로 트랜잭션 밖에서 요청
+    private final ObjectProvider<AccountEngine> accountEngine;
 
+    @RateLimited
+    @Idempotent
     @AccountLock
     @PostMapping("/transaction/use")
     public TransactionUse.Response useAccountBalance(@RequestBody @Valid TransactionUse.Request request) {
         try {
-            return TransactionUse.Response.from(transactionInfoService.transactUse(
+            if (redisBalanceService.handles(request.getAccountNumber())) {
+                return TransactionUse.Response.from(redisBalanceService.use(
+                        request.getAccountNumber(),
+                        request.getUserId(),
+                        request.getAmount()));
+            }
+            AccountEngine engine = accountEngine.getIfAvailable();
+            if (engine != null) {
+                return TransactionUse.Response.from(engine.transactUse(
+                        request.getAccountNumber(),
+                        request.getUserId(),
+                        request.getAmount()));
+            }
+            return TransactionUse.Response.from(groupCommitter.transactUse(
                     request.getAccountNumber(),
                     request.getUserId(),
                     request.getAmount()));
+        } catch (TransactionTimeoutException e) {
+            // 결과를 모르므로 실패로 기록하지 않음, 결과는 Idempotency-Key 에 저장
+            log.error("Timed out to use Account Balance");
+            throw e.thenApply(TransactionUse.Response::from);
         } catch (AccountException e) {
             log.error("Failed to use Account Balance");
 
-            transactionInfoService.saveFailedTransaction(
-                    request.getAccountNumber(),request.getAmount(), USE);
+            failedTransactionRecorder.record(
+                    request.getAccountNumber(), request.getAmount(), USE, e.getErrorCode());
 
             throw e;
         }
     }
 
+    @RateLimited
+    @Idempotent
     @AccountLock
     @PostMapping("/transaction/cancel")
     public TransactionCancel.Response cancelUseAccount(@RequestBody @Valid TransactionCancel.Request request) {
         try {
+            if (redisBalanceService.handles(request.getAccountNumber())) {
+                return TransactionCancel.Response.from(redisBalanceService.cancel(
+                        request.getAccountNumber(),
+                        request.getTransactionId(),
+                        request.getAmount()));
+            }
+            AccountEngine engine = accountEngine.getIfAvailable();
+            if (engine != null) {
+                return TransactionCancel.Response.from(engine.transactCancel(
+                        request.getAccountNumber(),
+                        request.getTransactionId(),
+                        request.getAmount()));
+            }
             return TransactionCancel.Response.from(transactionInfoService.transactCancel(
                     request.getAccountNumber(),
                     request.getTransactionId(),
                     request.getAmount()));
+        } catch (TransactionTimeoutException e) {
+            log.error("Timed out to cancel use Account Balance");
+            throw e.thenApply(TransactionCancel.Response::from);
         } catch (AccountException e) {
             log.error("Failed to cancel use Account Balance");
 
-            transactionInfoService.saveFailedTransaction(
-                    request.getAccountNumber(), request.getAmount(), CANCEL);
+            failedTransactionRecorder.record(
+                    request.getAccountNumber(), request.getAmount(), CANCEL, e.getErrorCode());
 
             throw e;
         }
     }
 
+    // lock 대기 동안 요청 쓰레드를 반환하는 비동기 버전
+    @RateLimited
+    @PostMapping("/transaction/use/async")
+    public CompletableFuture<TransactionUse.Response> useAccountBalanceAsync(
+            @RequestBody @Valid TransactionUse.Request request) {
+        return asyncTransactionService.transactUse(
+                        request.getAccountNumber(),
+                        request.getUserId(),
+                        request.getAmount())
+                .thenApply(TransactionUse.Response::from);
+    }
+
+    @RateLimited
+    @PostMapping("/transaction/cancel/async")
+    public CompletableFuture<TransactionCancel.Response> cancelUseAccountAsync(
+            @RequestBody @Valid TransactionCancel.Request request) {
+        return asyncTransactionService.transactCancel(
+                        request.getAccountNumber(),
+                        request.getTransactionId(),
+                        request.getAmount())
+                .thenApply(TransactionCancel.Response::from);
+    }
+
+    // 계좌별로 묶어 lock 과 커밋을 나눠 쓰는 일괄 사용, 항목별 결과를 요청 순서대로 반환
+    @PostMapping("/transaction/use/batch")
+    public CompletableFuture<List<TransactionUse.BatchResponse>> useAccountBalanceBatch(
+            @RequestBody List<TransactionUse.Request> requests) {
+        return batchTransactionService.transactUse(requests);
+    }
+
     @GetMapping("/transaction/{transactionId}")
     public TransactionInquiry inquireTransaction(@PathVariable String transactionId) {
-        return TransactionInquiry.from(transactionInfoService.inquireTransaction(
-                transactionId));
+        return inquiryService.inquireTransaction(transactionId);
     }
 }
@@ -5,6 +5,8 @@ import com.example.account.type.AccountSetting;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -15,19 +17,35 @@ import java.time.LocalDateTime;
 @AllArgsConstructor //builder에 필요
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_account_account_number", columnList = "account_number", unique = true),
+        @Index(name = "ix_account_account_user_id", columnList = "account_user_id")
+})
 public class Account extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @GenericGenerator(name = "account_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "account_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_user_id")
     private AccountUser accountUser;
+    @Column(name = "account_number", nullable = false)
     private String accountNumber;
 
     @Enumerated(EnumType.STRING) //enum 값의 실제 문자열을 디비에 저장
     private AccountStatus accountStatus;
 
     private Long balance;
+    private Long openingBalance; // 개설 시 잔액, 거래로 남지 않으므로 대사의 시작점 (이전에 만든 계좌는 없음)
+
+    @Version // OPTIMISTIC 모드의 충돌 감지, 조건부 UPDATE 에서도 함께 증가시킴
+    private Long version;
 
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
@@ -36,13 +54,17 @@ public class Account extends BaseEntity {
         if (amount > balance) {
             throw new AccountException(ErrorCode.INSUFFICIENT_BALANCE);
         }
+        validateTransactionAmount(amount);
+
+        balance -= amount;
+    }
+
+    public static void validateTransactionAmount(Long amount) {
         if (amount < AccountSetting.MIN_TRANSACTION_AMOUNT.getNumber()) {
             throw new AccountException(ErrorCode.TOO_SMALL_AMOUNT);
         } else if (amount > AccountSetting.MAX_TRANSACTION_AMOUNT.getNumber()) {
             throw new AccountException(ErrorCode.TOO_BIG_AMOUNT);
         }
-
-        balance -= amount;
     }
 
     public void cancelUseBalance(Long amount) {
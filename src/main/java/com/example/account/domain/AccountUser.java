@@ -1,6 +1,8 @@
 package com.example.account.domain;
 
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -15,7 +17,14 @@ import java.time.LocalDateTime;
 @Entity
 public class AccountUser extends BaseEntity { // User로 하게되면 디비 시스템 기본 테이블(User) 충돌
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_user_seq") // data.sql 의 고정 id 와 겹치지 않도록 1001 부터
+    @GenericGenerator(name = "account_user_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "account_user_seq"),
+                    @Parameter(name = "initial_value", value = "1001"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
     private String name;
@@ -0,0 +1,41 @@
+package com.example.account.domain;
+
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * LEDGER 모드 잔액 checkpoint
+ * settledUntil 까지의 거래(TransactionInfo)를 모두 반영한 잔액, 현재 잔액은 이후 거래를 더해서 구한다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_balance_checkpoint_account_id_settled_until", columnList = "account_id, settled_until")
+})
+public class BalanceCheckpoint extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_checkpoint_seq")
+    @GenericGenerator(name = "balance_checkpoint_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "balance_checkpoint_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
+    private Account account;
+
+    private Long balance;
+
+    @Column(name = "settled_until")
+    private LocalDateTime settledUntil;
+}
@@ -0,0 +1,46 @@
+package com.example.account.domain;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * AGGREGATE 모드 실패 거래 집계
+ * 노드마다 분이 끝날 때 자기 집계를 추가하므로 같은 키가 여러 행일 수 있다. (조회할 때 합산)
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_failed_transaction_count_account_number_minute", columnList = "account_number, minute")
+})
+public class FailedTransactionCount extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "failed_transaction_count_seq")
+    @GenericGenerator(name = "failed_transaction_count_seq",
+            strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "failed_transaction_count_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
+    private Long id;
+
+    @Column(name = "account_number")
+    private String accountNumber;
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private ErrorCode errorCode;
+    private LocalDateTime minute;
+
+    private Long failureCount;
+    private Long totalAmount;
+}
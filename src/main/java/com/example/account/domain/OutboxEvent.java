@@ -0,0 +1,61 @@
+package com.example.account.domain;
+
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 거래 변경 outbox
+ * 거래(TransactionInfo)와 같은 트랜잭션에서 저장하고, OutboxRelay 가 sink 로 전달한 뒤 삭제한다.
+ * 계좌 변경 없이 읽을 수 있도록 전달에 필요한 값을 그대로 복사해 둔다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(indexes = {
+        @Index(name = "ix_outbox_event_transacted_at", columnList = "transacted_at, id")
+})
+public class OutboxEvent extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq")
+    @GenericGenerator(name = "outbox_event_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "outbox_event_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
+    private Long id;
+
+    @Column(name = "transaction_id")
+    private Long transactionId;
+    @Column(name = "account_number")
+    private String accountNumber;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResult transactionResult;
+
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+
+    public static OutboxEvent from(TransactionInfo transactionInfo) {
+        return OutboxEvent.builder()
+                .transactionId(transactionInfo.getTransactionId())
+                .accountNumber(transactionInfo.getAccount().getAccountNumber())
+                .transactionType(transactionInfo.getTransactionType())
+                .transactionResult(transactionInfo.getTransactionResult())
+                .amount(transactionInfo.getAmount())
+                .balanceSnapshot(transactionInfo.getBalanceSnapshot())
+                .transactedAt(transactionInfo.getTransactedAt())
+                .build();
+    }
+}
@@ -5,6 +5,8 @@ import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResult;
 import com.example.account.type.TransactionType;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -18,12 +20,23 @@ import static com.example.account.type.TransactionType.USE;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_transaction_info_transaction_id", columnList = "transaction_id", unique = true),
+        @Index(name = "ix_transaction_info_account_id_transacted_at", columnList = "account_id, transacted_at")
+})
 public class TransactionInfo extends BaseEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transaction_info_seq")
+    @GenericGenerator(name = "transaction_info_seq", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator",
+            parameters = {
+                    @Parameter(name = "sequence_name", value = "transaction_info_seq"),
+                    @Parameter(name = "increment_size", value = "50"),
+                    @Parameter(name = "optimizer", value = "pooled-lo")
+            })
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
     private Account account;
 
     @Enumerated(EnumType.STRING)
@@ -31,9 +44,11 @@ public class TransactionInfo extends BaseEntity {
     @Enumerated(EnumType.STRING)
     private TransactionResult transactionResult;
 
-    private String transactionId;
+    @Column(name = "transaction_id")
+    private Long transactionId; // API 에서는 TransactionIdCodec 문자열로 노출
     private Long amount;
     private Long balanceSnapshot;
+    @Column(name = "transacted_at")
     private LocalDateTime transactedAt;
 
     public void transactionResultToCancel() {
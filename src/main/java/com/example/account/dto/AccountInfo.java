@@ -10,10 +10,4 @@ import lombok.*;
 public class AccountInfo {
     private String accountNumber;
     private Long balance;
-
-    public static AccountInfo from(AccountDto accountDto) {
-        return AccountInfo.builder()
-                .accountNumber(accountDto.getAccountNumber())
-                .balance(accountDto.getBalance()).build();
-    }
 }
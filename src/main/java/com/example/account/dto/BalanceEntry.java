@@ -0,0 +1,35 @@
+package com.example.account.dto;
+
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * redis 잔액 계좌의 write-behind 항목
+ * lua script 가 잔액 변경과 함께 "거래아이디:종류:금액:거래후잔액:epochMillis[:취소한거래아이디]" 로 남긴다.
+ */
+@Getter
+@AllArgsConstructor
+public class BalanceEntry {
+    private final long transactionId;
+    private final TransactionType transactionType;
+    private final long amount;
+    private final long balanceSnapshot;
+    private final LocalDateTime transactedAt;
+    private final Long canceledTransactionId; // CANCEL 인 경우 취소한 사용 거래
+
+    public static BalanceEntry parse(String value) {
+        String[] fields = value.split(":");
+        return new BalanceEntry(
+                Long.parseLong(fields[0]),
+                TransactionType.valueOf(fields[1]),
+                Long.parseLong(fields[2]),
+                Long.parseLong(fields[3]),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[4])), ZoneId.systemDefault()),
+                fields.length > 5 ? Long.parseLong(fields[5]) : null);
+    }
+}
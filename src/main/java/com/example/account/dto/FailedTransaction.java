@@ -0,0 +1,23 @@
+package com.example.account.dto;
+
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 저장 대기 중인 실패 거래
+ * 거래 아이디와 시간은 실패한 시점에 정해서, 늦게 저장되어도 거래 순서와 조회 아이디가 바뀌지 않는다.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class FailedTransaction {
+    private final long transactionId;
+    private final String accountNumber;
+    private final Long amount;
+    private final TransactionType transactionType;
+    private final ErrorCode errorCode;
+    private final LocalDateTime transactedAt;
+}
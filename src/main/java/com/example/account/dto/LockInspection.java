@@ -0,0 +1,107 @@
+package com.example.account.dto;
+
+import com.example.account.metric.LockMetrics;
+import com.example.account.metric.RollingHistogram;
+import lombok.*;
+
+import java.util.List;
+import java.util.Map;
+
+public class LockInspection {
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class HeldLock {
+        private String accountNumber;
+        private String endpoint;
+        private String threadName;
+        private Long heldMillis;
+
+        public static HeldLock from(String accountNumber, LockMetrics.HeldLock heldLock, long now) {
+            return HeldLock.builder()
+                    .accountNumber(accountNumber)
+                    .endpoint(heldLock.getEndpoint())
+                    .threadName(heldLock.getThreadName())
+                    .heldMillis(now - heldLock.getAcquiredAtMillis())
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class EndpointStat {
+        private String endpoint;
+        private Long acquireCount;
+        private Long failureCount;
+        private Latency acquireTime;
+        private Latency holdTime;
+
+        public static EndpointStat from(String endpoint, LockMetrics.EndpointMetrics metrics) {
+            return EndpointStat.builder()
+                    .endpoint(endpoint)
+                    .acquireCount(metrics.getAcquireCount())
+                    .failureCount(metrics.getFailureCount())
+                    .acquireTime(Latency.from(metrics.getAcquireTime()))
+                    .holdTime(Latency.from(metrics.getHoldTime()))
+                    .build();
+        }
+    }
+
+    // 최근 1분 구간, 마이크로초 단위
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Latency {
+        private Long count;
+        private Long mean;
+        private Long p50;
+        private Long p99;
+        private Long p999;
+        private Long max;
+
+        public static Latency from(RollingHistogram.Snapshot snapshot) {
+            return Latency.builder()
+                    .count(snapshot.getCount())
+                    .mean(snapshot.getMeanMicros())
+                    .p50(snapshot.getPercentileMicros(50))
+                    .p99(snapshot.getPercentileMicros(99))
+                    .p999(snapshot.getPercentileMicros(99.9))
+                    .max(snapshot.getMaxMicros())
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ContendedAccount {
+        private String accountNumber;
+        private Long contentionCount;
+
+        public static ContendedAccount from(Map.Entry<String, Long> entry) {
+            return ContendedAccount.builder()
+                    .accountNumber(entry.getKey())
+                    .contentionCount(entry.getValue())
+                    .build();
+        }
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Stats {
+        private List<EndpointStat> endpoints;
+        private List<ContendedAccount> contendedAccounts;
+    }
+}
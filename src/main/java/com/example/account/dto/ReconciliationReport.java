@@ -0,0 +1,65 @@
+package com.example.account.dto;
+
+import com.example.account.metric.ReconciliationProgress;
+import com.example.account.type.DiscrepancyType;
+import com.example.account.type.TransactionIdCodec;
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationReport {
+    private ReconciliationProgress.Status status;
+    private Long elapsedMillis;
+    private Long totalChunks;
+    private Long chunks;
+    private Long accounts;
+    private Long rows;
+    private Long rowsPerSecond;
+    private Long discrepancyCount;
+    private List<Discrepancy> discrepancies; // account.reconciliation.max-reported 개까지
+
+    public static ReconciliationReport from(ReconciliationProgress progress) {
+        return ReconciliationReport.builder()
+                .status(progress.getStatus())
+                .elapsedMillis(progress.getElapsedMillis())
+                .totalChunks(progress.getTotalChunks())
+                .chunks(progress.getChunks())
+                .accounts(progress.getAccounts())
+                .rows(progress.getRows())
+                .rowsPerSecond(progress.getRowsPerSecond())
+                .discrepancyCount(progress.getDiscrepancyCount())
+                .discrepancies(progress.getDiscrepancies().stream()
+                        .map(Discrepancy::from)
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Discrepancy {
+        private DiscrepancyType type;
+        private String accountNumber;
+        private String transactionId;
+        private Long expected;
+        private Long actual;
+
+        public static Discrepancy from(ReconciliationProgress.Discrepancy discrepancy) {
+            return Discrepancy.builder()
+                    .type(discrepancy.getType())
+                    .accountNumber(discrepancy.getAccountNumber())
+                    .transactionId(TransactionIdCodec.format(discrepancy.getTransactionId()))
+                    .expected(discrepancy.getExpected())
+                    .actual(discrepancy.getActual())
+                    .build();
+        }
+    }
+}
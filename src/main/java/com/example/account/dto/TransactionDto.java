@@ -1,6 +1,7 @@
 package com.example.account.dto;
 
 import com.example.account.domain.TransactionInfo;
+import com.example.account.type.TransactionIdCodec;
 import com.example.account.type.TransactionResult;
 import com.example.account.type.TransactionType;
 import lombok.*;
@@ -25,7 +26,7 @@ public class TransactionDto {
 
     public static TransactionDto fromEntity(TransactionInfo transactionInfo) {
         return TransactionDto.builder()
-                .transactionId(transactionInfo.getTransactionId())
+                .transactionId(TransactionIdCodec.format(transactionInfo.getTransactionId()))
                 .accountNumber(transactionInfo.getAccount().getAccountNumber())
                 .amount(transactionInfo.getAmount())
                 .transactionType(transactionInfo.getTransactionType())
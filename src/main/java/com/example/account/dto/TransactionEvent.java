@@ -0,0 +1,42 @@
+package com.example.account.dto;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.type.TransactionIdCodec;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * outbox 를 통해 하위 시스템(사기탐지, 알림, 분석)에 전달하는 거래 이벤트
+ * 최소 한 번 전달이므로 같은 transactionId 가 다시 올 수 있다.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class TransactionEvent {
+    private String transactionId;
+    private String accountNumber;
+
+    private TransactionType transactionType;
+    private TransactionResult transactionResult;
+    private Long amount;
+    private Long balanceSnapshot;
+
+    private LocalDateTime transactedAt;
+
+    public static TransactionEvent fromEntity(OutboxEvent outboxEvent) {
+        return TransactionEvent.builder()
+                .transactionId(TransactionIdCodec.format(outboxEvent.getTransactionId()))
+                .accountNumber(outboxEvent.getAccountNumber())
+                .transactionType(outboxEvent.getTransactionType())
+                .transactionResult(outboxEvent.getTransactionResult())
+                .amount(outboxEvent.getAmount())
+                .balanceSnapshot(outboxEvent.getBalanceSnapshot())
+                .transactedAt(outboxEvent.getTransactedAt())
+                .build();
+    }
+}
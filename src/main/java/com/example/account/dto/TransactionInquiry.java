@@ -1,5 +1,6 @@
 package com.example.account.dto;
 
+import com.example.account.type.TransactionIdCodec;
 import com.example.account.type.TransactionResult;
 import com.example.account.type.TransactionType;
 import lombok.*;
@@ -21,14 +22,11 @@ public class TransactionInquiry {
 
     private LocalDateTime transactedAt;
 
-    public static TransactionInquiry from(TransactionDto transactionDto) {
-        return TransactionInquiry.builder()
-                .accountNumber(transactionDto.getAccountNumber())
-                .transactionType(transactionDto.getTransactionType())
-                .transactionResult(transactionDto.getTransactionResult())
-                .transactionId(transactionDto.getTransactionId())
-                .amount(transactionDto.getAmount())
-                .transactedAt(transactionDto.getTransactedAt())
-                .build();
+    // JPQL constructor projection 용, 거래 아이디는 API 문자열로 변환
+    public TransactionInquiry(String accountNumber, TransactionType transactionType,
+                              TransactionResult transactionResult, Long transactionId,
+                              Long amount, LocalDateTime transactedAt) {
+        this(accountNumber, transactionType, transactionResult,
+                TransactionIdCodec.format(transactionId), amount, transactedAt);
     }
 }
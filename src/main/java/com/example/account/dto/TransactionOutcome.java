@@ -0,0 +1,24 @@
+package com.example.account.dto;
+
+import com.example.account.exception.AccountException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 여러 요청을 한 트랜잭션에서 처리할 때 요청 하나의 결과 (성공한 거래 또는 검증 실패)
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class TransactionOutcome {
+    private final TransactionDto transaction;
+    private final AccountException error;
+
+    public static TransactionOutcome success(TransactionDto transaction) {
+        return new TransactionOutcome(transaction, null);
+    }
+
+    public static TransactionOutcome failure(AccountException error) {
+        return new TransactionOutcome(null, error);
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.account.dto;
 
 import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountUserIdInterface;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResult;
 import lombok.*;
 
@@ -15,7 +17,7 @@ public class TransactionUse {
     @Setter
     @AllArgsConstructor
     @NoArgsConstructor
-    public static class Request implements AccountLockIdInterface{
+    public static class Request implements AccountLockIdInterface, AccountUserIdInterface {
         @NotNull
         @Min(1)
         private Long userId;
@@ -49,4 +51,41 @@ public class TransactionUse {
                     .build();
         }
     }
+
+    // 일괄 사용 항목별 결과, 요청과 같은 순서
+    @Setter
+    @Getter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class BatchResponse {
+        private String accountNumber;
+        private TransactionResult transactionResult;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactedAt;
+        private ErrorCode errorCode; // 실패한 항목만
+        private String errorMessage;
+
+        public static BatchResponse from(TransactionDto transactionDto) {
+            return BatchResponse.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResult(transactionDto.getTransactionResult())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactedAt(transactionDto.getTransactedAt())
+                    .build();
+        }
+
+        // 일괄 요청의 null 항목은 계좌번호, 금액 없이 실패
+        public static BatchResponse failed(Request request, ErrorCode errorCode) {
+            return BatchResponse.builder()
+                    .accountNumber(request == null ? null : request.getAccountNumber())
+                    .transactionResult(TransactionResult.TRANSACTION_FAIL)
+                    .amount(request == null ? null : request.getAmount())
+                    .errorCode(errorCode)
+                    .errorMessage(errorCode.getDescription())
+                    .build();
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package com.example.account.exception;
+
+import com.example.account.type.ErrorCode;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 응답 시간 안에 결과가 나오지 않은 거래 (TRANSACTION_TIMEOUT)
+ * 실패가 아니라 결과를 아직 모르는 상태이다. 거래는 나중에 반영될 수 있으므로
+ * 실패로 기록하지 않고, outcome 이 끝나면 실제 결과를 Idempotency-Key 에 저장한다.
+ */
+@Getter
+public class TransactionTimeoutException extends AccountException {
+    private final CompletableFuture<?> outcome;
+
+    public TransactionTimeoutException(CompletableFuture<?> outcome) {
+        super(ErrorCode.TRANSACTION_TIMEOUT);
+        this.outcome = outcome;
+    }
+
+    /**
+     * outcome 을 응답 타입으로 바꾼 예외 (controller 가 응답 DTO 로 변환할 때 사용)
+     */
+    @SuppressWarnings("unchecked")
+    public <T, R> TransactionTimeoutException thenApply(Function<T, R> mapper) {
+        return new TransactionTimeoutException(((CompletableFuture<T>) outcome).thenApply(mapper));
+    }
+}
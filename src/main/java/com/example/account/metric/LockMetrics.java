@@ -0,0 +1,118 @@
+package com.example.account.metric;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 계좌 lock 계측
+ * - endpoint 별 lock 획득 대기시간, 보유시간 히스토그램과 획득/실패 횟수
+ * - 오래 기다렸거나 실패한 계좌번호별 경합 횟수 (상위 N 개 조회용)
+ * - 현재 노드가 보유 중인 lock 목록
+ */
+@Component
+public class LockMetrics {
+    // 이 시간 이상 기다렸으면 경합으로 본다
+    private static final long CONTENTION_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    // 경합 계좌 집계가 무한히 커지지 않도록 이 개수를 넘으면 초기화
+    private static final int MAX_TRACKED_ACCOUNTS = 10_000;
+
+    private final ConcurrentHashMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LongAdder> contendedAccounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, HeldLock> heldLocks = new ConcurrentHashMap<>();
+
+    public void recordAcquired(String endpoint, String accountNumber, long waitNanos) {
+        EndpointMetrics metrics = getEndpoint(endpoint);
+        metrics.acquireTime.record(waitNanos);
+        metrics.acquireCount.increment();
+        if (waitNanos >= CONTENTION_THRESHOLD_NANOS) {
+            recordContention(accountNumber);
+        }
+        heldLocks.put(accountNumber, new HeldLock(endpoint, Thread.currentThread().getName(),
+                System.currentTimeMillis()));
+    }
+
+    public void recordFailed(String endpoint, String accountNumber, long waitNanos) {
+        EndpointMetrics metrics = getEndpoint(endpoint);
+        metrics.acquireTime.record(waitNanos);
+        metrics.failureCount.increment();
+        recordContention(accountNumber);
+    }
+
+    public void recordReleased(String endpoint, String accountNumber, long holdNanos) {
+        getEndpoint(endpoint).holdTime.record(holdNanos);
+        heldLocks.remove(accountNumber);
+    }
+
+    public RollingHistogram.Snapshot getHoldTime(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        return metrics == null ? null : metrics.holdTime.snapshot();
+    }
+
+    public Map<String, EndpointMetrics> getEndpoints() {
+        return endpoints;
+    }
+
+    public Map<String, HeldLock> getHeldLocks() {
+        return heldLocks;
+    }
+
+    public List<Map.Entry<String, Long>> getTopContendedAccounts(int limit) {
+        return contendedAccounts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private EndpointMetrics getEndpoint(String endpoint) {
+        return endpoints.computeIfAbsent(endpoint, key -> new EndpointMetrics());
+    }
+
+    private void recordContention(String accountNumber) {
+        if (contendedAccounts.size() >= MAX_TRACKED_ACCOUNTS) {
+            contendedAccounts.clear();
+        }
+        contendedAccounts.computeIfAbsent(accountNumber, key -> new LongAdder()).increment();
+    }
+
+    public static class EndpointMetrics {
+        private final RollingHistogram acquireTime = new RollingHistogram(1, TimeUnit.MINUTES, 6);
+        private final RollingHistogram holdTime = new RollingHistogram(1, TimeUnit.MINUTES, 6);
+        private final LongAdder acquireCount = new LongAdder();
+        private final LongAdder failureCount = new LongAdder();
+
+        public RollingHistogram.Snapshot getAcquireTime() {
+            return acquireTime.snapshot();
+        }
+
+        public RollingHistogram.Snapshot getHoldTime() {
+            return holdTime.snapshot();
+        }
+
+        public long getAcquireCount() {
+            return acquireCount.sum();
+        }
+
+        public long getFailureCount() {
+            return failureCount.sum();
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class HeldLock {
+        private final String endpoint;
+        private final String threadName;
+        private final long acquiredAtMillis;
+    }
+}
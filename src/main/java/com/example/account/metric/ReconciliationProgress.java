@@ -0,0 +1,124 @@
+package com.example.account.metric;
+
+import com.example.account.type.DiscrepancyType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 잔액 대사 한 번의 진행 상황
+ * 여러 worker 가 동시에 기록하므로 카운터는 LongAdder, 불일치 목록은 개수 제한이 있는 큐에 보관한다.
+ */
+public class ReconciliationProgress {
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final long fromAccountId;
+    private final long toAccountId;
+    private final long totalChunks;
+    private final int maxReported;
+
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder discrepancyCount = new LongAdder();
+    private final AtomicInteger reported = new AtomicInteger();
+    private final Queue<Discrepancy> discrepancies = new ConcurrentLinkedQueue<>();
+
+    private volatile Status status = Status.RUNNING;
+    private volatile long finishedAtMillis;
+
+    public ReconciliationProgress(long fromAccountId, long toAccountId, long totalChunks, int maxReported) {
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.totalChunks = totalChunks;
+        this.maxReported = maxReported;
+    }
+
+    public void recordRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    public void recordChunk(long accountCount) {
+        chunks.increment();
+        accounts.add(accountCount);
+    }
+
+    public void recordDiscrepancy(Discrepancy discrepancy) {
+        discrepancyCount.increment();
+        if (reported.getAndIncrement() < maxReported) {
+            discrepancies.add(discrepancy);
+        }
+    }
+
+    public void finish(Status status) {
+        this.finishedAtMillis = System.currentTimeMillis();
+        this.status = status;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    public long getElapsedMillis() {
+        return (status == Status.RUNNING ? System.currentTimeMillis() : finishedAtMillis) - startedAtMillis;
+    }
+
+    public long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public long getToAccountId() {
+        return toAccountId;
+    }
+
+    public long getTotalChunks() {
+        return totalChunks;
+    }
+
+    public long getChunks() {
+        return chunks.sum();
+    }
+
+    public long getAccounts() {
+        return accounts.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    public long getRowsPerSecond() {
+        return getRows() * 1000 / Math.max(getElapsedMillis(), 1);
+    }
+
+    public long getDiscrepancyCount() {
+        return discrepancyCount.sum();
+    }
+
+    public List<Discrepancy> getDiscrepancies() {
+        return discrepancies.stream().collect(Collectors.toList());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Discrepancy {
+        private final DiscrepancyType type;
+        private final String accountNumber;
+        private final Long transactionId; // BALANCE_MISMATCH 이면 마지막 거래, 거래가 없으면 null
+        private final long expected;
+        private final long actual;
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.account.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 최근 구간만 집계하는 lock-free 지연시간 히스토그램
+ * - 값은 마이크로초 단위로 log-linear 버킷에 저장 (상대오차 약 12.5%)
+ * - 전체 구간을 slot 개수로 나눠 돌려쓰고, 오래된 slot 은 다음 기록 시점에 초기화
+ */
+public class RollingHistogram {
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40; // 2^40 us, 약 12일
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (MAX_EXPONENT - 3) * SUB_BUCKETS;
+
+    private final long slotNanos;
+    private final Slot[] slots;
+
+    public RollingHistogram(long window, TimeUnit unit, int slotCount) {
+        this.slotNanos = unit.toNanos(window) / slotCount;
+        this.slots = new Slot[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new Slot();
+        }
+    }
+
+    public void record(long nanos) {
+        long micros = Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 0);
+        currentSlot().record(bucketOf(micros), micros);
+    }
+
+    /**
+     * 최근 구간의 집계 결과
+     */
+    public Snapshot snapshot() {
+        long epoch = System.nanoTime() / slotNanos;
+        long[] counts = new long[BUCKET_COUNT];
+        long totalCount = 0;
+        long totalMicros = 0;
+        long maxMicros = 0;
+
+        for (Slot slot : slots) {
+            // 구간을 벗어난 slot 은 제외
+            long slotEpoch = slot.epoch.get();
+            if (slotEpoch == Long.MIN_VALUE || epoch - slotEpoch >= slots.length) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                long count = slot.counts.get(i);
+                counts[i] += count;
+                totalCount += count;
+            }
+            totalMicros += slot.sumMicros.get();
+            maxMicros = Math.max(maxMicros, slot.maxMicros.get());
+        }
+        return new Snapshot(counts, totalCount, totalMicros, maxMicros);
+    }
+
+    private Slot currentSlot() {
+        long epoch = System.nanoTime() / slotNanos;
+        Slot slot = slots[(int) Math.floorMod(epoch, (long) slots.length)];
+        long slotEpoch = slot.epoch.get();
+        if (slotEpoch != epoch && slot.epoch.compareAndSet(slotEpoch, epoch)) {
+            slot.reset(); // 경합 중 일부 기록이 유실될 수 있으나 통계 용도로는 무시
+        }
+        return slot;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), MAX_EXPONENT);
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+        return Math.min(LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+    }
+
+    // 버킷에 들어가는 값의 상한 (마이크로초)
+    private static long upperBoundOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket + 1;
+        }
+        int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    private static class Slot {
+        private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+        private final AtomicLong sumMicros = new AtomicLong();
+        private final AtomicLong maxMicros = new AtomicLong();
+
+        private void record(int bucket, long micros) {
+            counts.incrementAndGet(bucket);
+            sumMicros.addAndGet(micros);
+            maxMicros.accumulateAndGet(micros, Math::max);
+        }
+
+        private void reset() {
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts.set(i, 0);
+            }
+            sumMicros.set(0);
+            maxMicros.set(0);
+        }
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumMicros;
+        private final long maxMicros;
+
+        private Snapshot(long[] counts, long count, long sumMicros, long maxMicros) {
+            this.counts = counts;
+            this.count = count;
+            this.sumMicros = sumMicros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+
+        public long getMeanMicros() {
+            return count == 0 ? 0 : sumMicros / count;
+        }
+
+        /**
+         * @param percentile 0 ~ 100
+         * @return 해당 백분위 값의 상한 (마이크로초), 기록이 없으면 0
+         */
+        public long getPercentileMicros(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(rank, 1)) {
+                    return Math.min(upperBoundOf(i), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+    }
+}
@@ -2,9 +2,20 @@ package com.example.account.repository;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountInfo;
+import com.example.account.type.AccountSetting;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,4 +28,46 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     Integer countByAccountUser(AccountUser accountUser);
 
     Optional<Account> findByAccountNumber(String accountNumber);
-}
\ No newline at end of file
+
+    List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+
+    // 계좌 목록 조회용 projection, 엔티티를 만들지 않음
+    @Query("select new com.example.account.dto.AccountInfo(a.accountNumber, a.balance) "
+            + "from Account a where a.accountUser.id = :userId order by a.id")
+    List<AccountInfo> findAccountInfosByUserId(@Param("userId") Long userId);
+
+    // 잔액 조건부 차감, 0 건이면 사용자/계좌/상태/잔액/거래금액 중 하나가 맞지 않음
+    default int debitBalance(String accountNumber, Long userId, Long amount) {
+        return debitBalanceWithin(accountNumber, userId, amount,
+                AccountSetting.MIN_TRANSACTION_AMOUNT.getNumber(),
+                AccountSetting.MAX_TRANSACTION_AMOUNT.getNumber());
+    }
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 "
+            + "where a.accountNumber = :accountNumber and a.accountUser.id = :userId "
+            + "and a.balance >= :amount and a.accountStatus = com.example.account.type.AccountStatus.IN_USE "
+            + "and :amount between :minAmount and :maxAmount")
+    int debitBalanceWithin(@Param("accountNumber") String accountNumber, @Param("userId") Long userId,
+                           @Param("amount") Long amount, @Param("minAmount") long minAmount,
+                           @Param("maxAmount") long maxAmount);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 "
+            + "where a.accountNumber = :accountNumber")
+    int creditBalance(@Param("accountNumber") String accountNumber, @Param("amount") Long amount);
+
+    // 사용 중인 계좌만 해지, 잔액은 바꾸지 않으므로 ENGINE journal 의 반영과 겹쳐도 version 으로 감지됨
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.accountStatus = com.example.account.type.AccountStatus.UNREGISTERED, "
+            + "a.unRegisteredAt = :unRegisteredAt, a.version = a.version + 1 "
+            + "where a.accountNumber = :accountNumber "
+            + "and a.accountStatus = com.example.account.type.AccountStatus.IN_USE")
+    int unregister(@Param("accountNumber") String accountNumber,
+                   @Param("unRegisteredAt") LocalDateTime unRegisteredAt);
+
+    // SELECT ... FOR UPDATE, 1초 대기
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "1000"))
+    Optional<Account> findForUpdateByAccountNumber(String accountNumber);
+}
@@ -0,0 +1,21 @@
+package com.example.account.repository;
+
+import com.example.account.domain.BalanceCheckpoint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+    Optional<BalanceCheckpoint> findFirstByAccountAccountNumberOrderBySettledUntilDesc(String accountNumber);
+
+    // 계좌별 최신 checkpoint (compactor 용)
+    @Query("select c from BalanceCheckpoint c join fetch c.account "
+            + "where c.settledUntil = (select max(c2.settledUntil) from BalanceCheckpoint c2 "
+            + "where c2.account = c.account)")
+    Slice<BalanceCheckpoint> findLatestPerAccount(Pageable pageable);
+}
@@ -0,0 +1,14 @@
+package com.example.account.repository;
+
+import com.example.account.domain.FailedTransactionCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FailedTransactionCountRepository extends JpaRepository<FailedTransactionCount, Long> {
+    List<FailedTransactionCount> findByAccountNumberAndMinuteBetween(String accountNumber,
+                                                                     LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,16 @@
+package com.example.account.repository;
+
+import com.example.account.domain.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    // 거래 시각 순, 같은 시각이면 저장 순
+    List<OutboxEvent> findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(LocalDateTime settledBefore,
+                                                                       Pageable pageable);
+}
@@ -1,12 +1,58 @@
 package com.example.account.repository;
 
 import com.example.account.domain.TransactionInfo;
+import com.example.account.dto.TransactionInquiry;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TransactionInfoRepository extends JpaRepository<TransactionInfo, Long> {
-    Optional<TransactionInfo> findByTransactionId(String transactionId);
+    // 취소 검증에 계좌번호가 필요하므로 계좌까지 함께 조회
+    @EntityGraph(attributePaths = "account")
+    Optional<TransactionInfo> findByTransactionId(Long transactionId);
+
+    List<TransactionInfo> findByTransactionIdIn(Collection<Long> transactionIds);
+
+    // 사용 성공 거래만 취소 상태로 변경, 0 건이면 이미 취소되었거나 취소할 수 없는 거래
+    @Modifying(flushAutomatically = true)
+    @Query("update TransactionInfo t "
+            + "set t.transactionResult = com.example.account.type.TransactionResult.TRANSACTION_CANCEL "
+            + "where t.id = :id and t.transactionType = com.example.account.type.TransactionType.USE "
+            + "and t.transactionResult = com.example.account.type.TransactionResult.TRANSACTION_SUCCESS")
+    int markCanceled(@Param("id") Long id);
+
+    // LEDGER 모드 잔액 변화량: 사용(성공, 이후 취소된 건 포함)은 차감, 취소 성공은 가산, 실패는 제외
+    String LEDGER_DELTA = "select sum(case when t.transactionType = com.example.account.type.TransactionType.USE "
+            + "then 0 - t.amount else t.amount end) from TransactionInfo t "
+            + "where t.account.accountNumber = :accountNumber and t.transactedAt > :from "
+            + "and ((t.transactionType = com.example.account.type.TransactionType.USE "
+            + "and t.transactionResult <> com.example.account.type.TransactionResult.TRANSACTION_FAIL) "
+            + "or (t.transactionType = com.example.account.type.TransactionType.CANCEL "
+            + "and t.transactionResult = com.example.account.type.TransactionResult.TRANSACTION_SUCCESS))";
+
+    // 거래가 없으면 null
+    @Query(LEDGER_DELTA)
+    Long sumLedgerDeltaAfter(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from);
+
+    @Query(LEDGER_DELTA + " and t.transactedAt <= :to")
+    Long sumLedgerDeltaBetween(@Param("accountNumber") String accountNumber, @Param("from") LocalDateTime from,
+                               @Param("to") LocalDateTime to);
+
+    @Query("select max(t.transactedAt) from TransactionInfo t where t.account.accountNumber = :accountNumber")
+    Optional<LocalDateTime> findLastTransactedAt(@Param("accountNumber") String accountNumber);
+
+    // 거래 조회용 projection, 엔티티를 만들지 않음
+    @Query("select new com.example.account.dto.TransactionInquiry(a.accountNumber, t.transactionType, "
+            + "t.transactionResult, t.transactionId, t.amount, t.transactedAt) "
+            + "from TransactionInfo t join t.account a where t.transactionId = :transactionId")
+    Optional<TransactionInquiry> findInquiryByTransactionId(@Param("transactionId") Long transactionId);
 }
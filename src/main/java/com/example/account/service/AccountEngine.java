@@ -0,0 +1,556 @@
+package com.example.account.service;
+
+import com.example.account.config.ConditionalOnTransactionMode;
+import com.example.account.domain.Account;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.BalanceEntry;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionIdCodec;
+import com.example.account.type.TransactionMode;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.example.account.type.TransactionResult.TRANSACTION_SUCCESS;
+
+/**
+ * ENGINE 모드 실행기 (account.transaction.mode=ENGINE, 노드 하나에서만 사용)
+ * 계좌번호로 나눈 partition 마다 worker 쓰레드 하나가 ring buffer 의 명령을 순서대로 처리한다.
+ * - 계좌 상태는 그 계좌의 worker 만 읽고 쓰므로 lock 이 필요 없다.
+ * - 계좌는 처음 명령이 올 때 DB 에서 읽어 메모리에 올린다. (이후 메모리 잔액이 기준)
+ * - 처리 결과는 journal 쓰레드가 묶어서 DB 에 반영한다. (TransactionInfoService.saveBalanceEntries)
+ *   durable-ack 이 true 이면 DB 에 반영한 뒤, WriteAheadJournal 이 있으면 journal 파일이 fsync 된 뒤,
+ *   둘 다 아니면 메모리에 반영한 즉시 응답한다.
+ * - WriteAheadJournal 이 있으면 worker 를 시작하기 전에 DB 에 반영되지 않았을 수 있는 거래를 다시 반영한다.
+ * - 사용 거래는 취소 검증을 위해 DB 에 반영될 때까지 메모리에 두고, 이후 취소는 DB 의 거래로 검증한다.
+ * - 계좌 해지도 worker 가 메모리 잔액으로 확인하고 DB 에 반영한 뒤 메모리 상태를 바꾼다.
+ * ring buffer 가 가득 차면 CURRENT_UNDER_TRANSACTION 으로 거절한다.
+ * worker 가 DB connection 을 쓰므로 호출하는 쪽은 트랜잭션을 열기 전에 요청하고, response-timeout 까지만 기다린다.
+ */
+@Slf4j
+@Service
+@ConditionalOnTransactionMode(TransactionMode.ENGINE)
+public class AccountEngine {
+    private static final int POLL_LIMIT = 256;
+    private static final int SPINS_BEFORE_PARK = 1000;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long JOURNAL_RETRY_MILLIS = 1000;
+
+    private final TransactionInfoService transactionInfoService;
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final WriteAheadJournal writeAheadJournal;
+    private final boolean durableAck;
+    private final int journalBatchSize;
+    private final long responseTimeoutMillis;
+
+    private final Partition[] partitions;
+    private final BlockingQueue<JournalRecord> journal;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public AccountEngine(TransactionInfoService transactionInfoService,
+                         AccountService accountService,
+                         AccountRepository accountRepository,
+                         AccountUserRepository accountUserRepository,
+                         TransactionIdGenerator transactionIdGenerator,
+                         ObjectProvider<WriteAheadJournal> writeAheadJournal,
+                         @Value("${account.engine.partitions:4}") int partitions,
+                         @Value("${account.engine.ring-buffer-size:8192}") int ringBufferSize,
+                         @Value("${account.engine.journal-capacity:65536}") int journalCapacity,
+                         @Value("${account.engine.journal-batch-size:500}") int journalBatchSize,
+                         @Value("${account.engine.durable-ack:false}") boolean durableAck,
+                         @Value("${account.engine.response-timeout-millis:5000}") long responseTimeoutMillis) {
+        this(transactionInfoService, accountService, accountRepository, accountUserRepository, transactionIdGenerator,
+                writeAheadJournal.getIfAvailable(), partitions, ringBufferSize, journalCapacity, journalBatchSize,
+                durableAck, responseTimeoutMillis);
+    }
+
+    AccountEngine(TransactionInfoService transactionInfoService,
+                  AccountService accountService,
+                  AccountRepository accountRepository,
+                  AccountUserRepository accountUserRepository,
+                  TransactionIdGenerator transactionIdGenerator,
+                  WriteAheadJournal writeAheadJournal,
+                  int partitions, int ringBufferSize, int journalCapacity, int journalBatchSize,
+                  boolean durableAck, long responseTimeoutMillis) {
+        this.transactionInfoService = transactionInfoService;
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.writeAheadJournal = writeAheadJournal;
+        this.durableAck = durableAck;
+        this.journalBatchSize = journalBatchSize;
+        this.responseTimeoutMillis = responseTimeoutMillis;
+        this.journal = new ArrayBlockingQueue<>(journalCapacity);
+        this.partitions = new Partition[partitions];
+        for (int i = 0; i < partitions; i++) {
+            this.partitions[i] = new Partition(new CommandRingBuffer(ringBufferSize));
+        }
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (writeAheadJournal != null) {
+            writeAheadJournal.replay((accountNumber, entries) -> {
+                for (int from = 0; from < entries.size(); from += journalBatchSize) {
+                    transactionInfoService.saveBalanceEntries(accountNumber,
+                            entries.subList(from, Math.min(from + journalBatchSize, entries.size())));
+                }
+            });
+        }
+        running = true;
+        for (int i = 0; i < partitions.length; i++) {
+            threads.add(startThread("account-engine-" + i, partitions[i]));
+        }
+        threads.add(startThread("account-engine-journal", this::journalLoop));
+    }
+
+    // worker 가 ring buffer 를 비운 뒤 멈추고, journal 이 남은 기록을 반영한 뒤 멈춘다
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            LockSupport.unpark(thread);
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public CompletableFuture<TransactionDto> use(String accountNumber, Long userId, Long amount) {
+        return submit(accountNumber, command -> {
+            command.type = EngineCommand.Type.USE;
+            command.userId = userId;
+            command.amount = amount;
+        }).thenApply(TransactionDto.class::cast);
+    }
+
+    public CompletableFuture<TransactionDto> cancel(String accountNumber, String transactionId, Long cancelAmount) {
+        long canceledTransactionId = TransactionIdCodec.parse(transactionId);
+        return submit(accountNumber, command -> {
+            command.type = EngineCommand.Type.CANCEL;
+            command.amount = cancelAmount;
+            command.canceledTransactionId = canceledTransactionId;
+        }).thenApply(TransactionDto.class::cast);
+    }
+
+    public CompletableFuture<AccountDto> close(Long userId, String accountNumber) {
+        return submit(accountNumber, command -> {
+            command.type = EngineCommand.Type.CLOSE;
+            command.userId = userId;
+        }).thenApply(AccountDto.class::cast);
+    }
+
+    /**
+     * 메모리에 올라온 계좌의 잔액, 올라오지 않은 계좌는 DB 잔액이 최신이므로 비어 있음
+     */
+    public CompletableFuture<Optional<Long>> balanceOf(String accountNumber) {
+        return submit(accountNumber, command -> command.type = EngineCommand.Type.BALANCE)
+                .thenApply(balance -> Optional.ofNullable((Long) balance));
+    }
+
+    /**
+     * 결과를 response-timeout 까지 기다림 (트랜잭션 밖에서 호출)
+     * 시간이 지나면 TRANSACTION_TIMEOUT(결과 미확정), 명령은 나중에 처리될 수 있으므로 실패로 기록하지 않는다.
+     * Idempotency-Key 요청은 명령이 끝날 때 실제 결과를 키에 저장하므로 같은 키로 재시도한다.
+     */
+    public TransactionDto transactUse(String accountNumber, Long userId, Long amount) {
+        return await(use(accountNumber, userId, amount));
+    }
+
+    public TransactionDto transactCancel(String accountNumber, String transactionId, Long cancelAmount) {
+        return await(cancel(accountNumber, transactionId, cancelAmount));
+    }
+
+    public AccountDto deleteAccount(Long userId, String accountNumber) {
+        return await(close(userId, accountNumber));
+    }
+
+    public Optional<Long> currentBalance(String accountNumber) {
+        return await(balanceOf(accountNumber));
+    }
+
+    private <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof AccountException) {
+                throw (AccountException) e.getCause();
+            }
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        } catch (TimeoutException e) {
+            throw new TransactionTimeoutException(result);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private CompletableFuture<Object> submit(String accountNumber, Consumer<EngineCommand> writer) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        Partition partition = partitionOf(accountNumber);
+        boolean published = running && partition.ring.tryPublish(command -> {
+            writer.accept(command);
+            command.accountNumber = accountNumber;
+            command.result = result;
+        });
+        if (!published) {
+            result.completeExceptionally(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+        }
+        return result;
+    }
+
+    private Partition partitionOf(String accountNumber) {
+        return partitions[(accountNumber.hashCode() & Integer.MAX_VALUE) % partitions.length];
+    }
+
+    private static Thread startThread(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * partition 하나의 단일 writer
+     * 바쁠 때는 잠깐 spin 하며 바로 다음 명령을 처리하고, 한가하면 park 해서 CPU 를 돌려준다.
+     */
+    private class Partition implements Runnable {
+        private final CommandRingBuffer ring;
+        private final Map<String, EngineAccount> accounts = new HashMap<>();
+
+        private Partition(CommandRingBuffer ring) {
+            this.ring = ring;
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (running || !ring.isEmpty()) {
+                if (ring.poll(this::handle, POLL_LIMIT) > 0) {
+                    idle = 0;
+                } else if (++idle < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        private void handle(EngineCommand command) {
+            try {
+                switch (command.type) {
+                    case USE:
+                        use(command);
+                        break;
+                    case CANCEL:
+                        cancel(command);
+                        break;
+                    case BALANCE:
+                        EngineAccount loaded = accounts.get(command.accountNumber);
+                        command.result.complete(loaded == null ? null : loaded.account.getBalance());
+                        break;
+                    case CLOSE:
+                        close(command);
+                        break;
+                    case PRUNE:
+                        prune(command);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown command " + command.type);
+                }
+            } catch (AccountException e) {
+                command.result.completeExceptionally(e);
+            } catch (RuntimeException e) {
+                log.error("Account engine command failed. accountNumber :{}", command.accountNumber, e);
+                command.result.completeExceptionally(new AccountException(ErrorCode.INTERNAL_SERVER_ERROR));
+            }
+        }
+
+        /**
+         * 사용자가 없는 경우 (실패한 경우에만 확인)
+         * 소유주 아이디와 불일치
+         * 계좌가 해지상태인 경우
+         * 잔액이 부족할 경우
+         * 거래금액이 너무 크거나 작은 경우
+         */
+        private void use(EngineCommand command) {
+            stamp(command);
+            EngineAccount engineAccount = load(command.accountNumber);
+            if (!engineAccount.userId.equals(command.userId)) {
+                throw new AccountException(accountUserRepository.existsById(command.userId)
+                        ? ErrorCode.ACCOUNT_USER_UN_MATCH : ErrorCode.USER_NOT_FOUND);
+            }
+            if (engineAccount.account.getAccountStatus() == AccountStatus.UNREGISTERED) {
+                throw new AccountException(ErrorCode.UNREGISTERED_ACCOUNT);
+            }
+            engineAccount.account.useBalance(command.amount);
+
+            engineAccount.uses.put(command.transactionId,
+                    new UseRecord(command.amount, command.epochMillis));
+            journal(command, TransactionType.USE, engineAccount.account.getBalance(), null);
+        }
+
+        /**
+         * 해당 거래 아이디가 없는 경우
+         * 취소할 수 없는 거래건인 경우
+         * 거래 금액과 취소 금액이 다른 경우
+         * 해당 계좌의 거래가 아닌경우
+         * 1년이 넘은 거래 건인 경우
+         */
+        private void cancel(EngineCommand command) {
+            stamp(command);
+            EngineAccount engineAccount = load(command.accountNumber);
+            UseRecord used = engineAccount.uses.get(command.canceledTransactionId);
+            if (used == null) {
+                // DB 에 반영된 거래, 취소가 반영될 때까지 메모리에 취소 표시를 남겨 중복 취소를 막음
+                transactionInfoService.validateCancelable(command.accountNumber,
+                        command.canceledTransactionId, command.amount);
+                used = new UseRecord(command.amount, command.epochMillis);
+                engineAccount.uses.put(command.canceledTransactionId, used);
+            } else if (used.canceled) {
+                throw new AccountException(ErrorCode.UNABLE_CANCEL_TRANSACTION);
+            } else if (!used.amount.equals(command.amount)) {
+                throw new AccountException(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH);
+            } else if (toLocalDateTime(used.epochMillis).isBefore(LocalDateTime.now().minusYears(1))) {
+                throw new AccountException(ErrorCode.EXCEED_DATE_1YEAR);
+            }
+
+            used.canceled = true;
+            engineAccount.account.cancelUseBalance(command.amount);
+            journal(command, TransactionType.CANCEL, engineAccount.account.getBalance(),
+                    command.canceledTransactionId);
+        }
+
+        /**
+         * 사용자가 없는 경우
+         * 소유주가 다른 경우
+         * 계좌가 이미 해지된 경우
+         * 메모리 잔액이 남은 경우
+         * DB 에 해지를 반영한 뒤 메모리 상태를 바꾸므로 이후 사용 거래는 UNREGISTERED_ACCOUNT 로 거절된다.
+         */
+        private void close(EngineCommand command) {
+            if (!accountUserRepository.existsById(command.userId)) {
+                throw new AccountException(ErrorCode.USER_NOT_FOUND);
+            }
+            EngineAccount engineAccount = load(command.accountNumber);
+            if (!engineAccount.userId.equals(command.userId)) {
+                throw new AccountException(ErrorCode.ACCOUNT_USER_UN_MATCH);
+            }
+            if (engineAccount.account.getAccountStatus() == AccountStatus.UNREGISTERED) {
+                throw new AccountException(ErrorCode.UNREGISTERED_ACCOUNT);
+            }
+            if (engineAccount.account.getBalance() > 0) {
+                throw new AccountException(ErrorCode.REMAINED_BALANCE);
+            }
+
+            LocalDateTime unRegisteredAt = LocalDateTime.now();
+            accountService.unregisterAccount(command.accountNumber, unRegisteredAt);
+            engineAccount.account.setAccountStatus(AccountStatus.UNREGISTERED);
+            engineAccount.account.setUnRegisteredAt(unRegisteredAt);
+            command.result.complete(AccountDto.fromEntity(engineAccount.account));
+        }
+
+        // DB 에 반영된 사용 거래는 취소되지 않았으면, 취소 거래는 취소한 사용 거래 기록을 지움
+        private void prune(EngineCommand command) {
+            for (BalanceEntry entry : command.journaled) {
+                EngineAccount engineAccount = accounts.get(command.accountNumber);
+                if (engineAccount == null) {
+                    return;
+                }
+                if (entry.getTransactionType() == TransactionType.USE) {
+                    UseRecord used = engineAccount.uses.get(entry.getTransactionId());
+                    if (used != null && !used.canceled) {
+                        engineAccount.uses.remove(entry.getTransactionId());
+                    }
+                } else {
+                    engineAccount.uses.remove(entry.getCanceledTransactionId());
+                }
+            }
+            command.result.complete(null);
+        }
+
+        // 거래 아이디와 시각은 처리 순서대로 worker 에서 정함 (같은 계좌 안에서 거래 시각 순서 = 처리 순서)
+        private void stamp(EngineCommand command) {
+            command.transactionId = transactionIdGenerator.nextId();
+            command.epochMillis = System.currentTimeMillis();
+        }
+
+        private EngineAccount load(String accountNumber) {
+            EngineAccount engineAccount = accounts.get(accountNumber);
+            if (engineAccount == null) {
+                Account account = accountRepository.findByAccountNumber(accountNumber)
+                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                engineAccount = new EngineAccount(account, account.getAccountUser().getId());
+                accounts.put(accountNumber, engineAccount);
+            }
+            return engineAccount;
+        }
+
+        private void journal(EngineCommand command, TransactionType type, long balance, Long canceledTransactionId) {
+            LocalDateTime transactedAt = toLocalDateTime(command.epochMillis);
+            TransactionDto result = TransactionDto.builder()
+                    .transactionId(TransactionIdCodec.format(command.transactionId))
+                    .accountNumber(command.accountNumber)
+                    .amount(command.amount)
+                    .transactionType(type)
+                    .transactionResult(TRANSACTION_SUCCESS)
+                    .balanceSnapshot(balance)
+                    .transactedAt(transactedAt)
+                    .build();
+            BalanceEntry entry = new BalanceEntry(command.transactionId, type, command.amount, balance,
+                    transactedAt, canceledTransactionId);
+            CompletableFuture<Object> future = command.result; // slot 은 재사용되므로 꺼내 둠
+            long segmentId = -1;
+            if (writeAheadJournal != null) {
+                segmentId = writeAheadJournal.append(command.accountNumber, entry,
+                        durableAck ? null : () -> future.complete(result));
+            }
+            try {
+                // journal 이 밀리면 worker 가 기다려서 ring buffer 로 거절이 전달됨
+                journal.put(new JournalRecord(command.accountNumber, entry, segmentId,
+                        durableAck ? future : null, result));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            if (!durableAck && writeAheadJournal == null) {
+                future.complete(result);
+            }
+        }
+    }
+
+    /**
+     * worker 결과를 batch-size 건씩 꺼내 계좌별로 순서대로 반영한다.
+     * 메모리 상태가 DB 보다 앞서 있으므로 실패하면 같은 묶음을 다시 반영한다. (이미 저장된 거래는 건너뜀)
+     */
+    private void journalLoop() {
+        List<JournalRecord> batch = new ArrayList<>(journalBatchSize);
+        while (running || !journal.isEmpty() || !workersStopped()) {
+            try {
+                JournalRecord first = journal.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                journal.drainTo(batch, journalBatchSize - 1);
+                writeJournal(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean workersStopped() {
+        for (int i = 0; i < partitions.length; i++) {
+            if (threads.get(i).isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void writeJournal(List<JournalRecord> batch) throws InterruptedException {
+        Map<String, List<JournalRecord>> records = new LinkedHashMap<>();
+        for (JournalRecord record : batch) {
+            records.computeIfAbsent(record.accountNumber, key -> new ArrayList<>()).add(record);
+        }
+        for (Map.Entry<String, List<JournalRecord>> account : records.entrySet()) {
+            List<BalanceEntry> entries = new ArrayList<>(account.getValue().size());
+            account.getValue().forEach(record -> entries.add(record.entry));
+            while (true) {
+                try {
+                    transactionInfoService.saveBalanceEntries(account.getKey(), entries);
+                    break;
+                } catch (RuntimeException e) {
+                    log.error("Account engine journal failed, retrying. accountNumber :{}", account.getKey(), e);
+                    Thread.sleep(JOURNAL_RETRY_MILLIS);
+                }
+            }
+            if (writeAheadJournal != null) {
+                account.getValue().forEach(record -> writeAheadJournal.markPersisted(record.segmentId));
+            }
+            // 가득 차서 넣지 못하면 다음 반영 때 다시 정리
+            partitionOf(account.getKey()).ring.tryPublish(command -> {
+                command.type = EngineCommand.Type.PRUNE;
+                command.accountNumber = account.getKey();
+                command.journaled = entries;
+                command.result = new CompletableFuture<>();
+            });
+        }
+        for (JournalRecord record : batch) {
+            if (record.future != null) {
+                record.future.complete(record.result);
+            }
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    // worker 쓰레드만 접근
+    private static class EngineAccount {
+        private final Account account;
+        private final Long userId;
+        private final Map<Long, UseRecord> uses = new HashMap<>();
+
+        private EngineAccount(Account account, Long userId) {
+            this.account = account;
+            this.userId = userId;
+        }
+    }
+
+    private static class UseRecord {
+        private final Long amount;
+        private final long epochMillis;
+        private boolean canceled;
+
+        private UseRecord(Long amount, long epochMillis) {
+            this.amount = amount;
+            this.epochMillis = epochMillis;
+        }
+    }
+
+    private static class JournalRecord {
+        private final String accountNumber;
+        private final BalanceEntry entry;
+        private final long segmentId; // WriteAheadJournal 이 없으면 -1
+        private final CompletableFuture<Object> future; // durable-ack 인 경우에만
+        private final TransactionDto result;
+
+        private JournalRecord(String accountNumber, BalanceEntry entry, long segmentId,
+                              CompletableFuture<Object> future, TransactionDto result) {
+            this.accountNumber = accountNumber;
+            this.entry = entry;
+            this.segmentId = segmentId;
+            this.future = future;
+            this.result = result;
+        }
+    }
+}
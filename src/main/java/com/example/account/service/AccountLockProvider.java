@@ -0,0 +1,48 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * @AccountLock 뒤에서 계좌 단위 상호배제를 제공하는 lock 백엔드
+ * account.lock.provider 설정값으로 구현체를 선택한다.
+ * - redis : redisson 분산 lock (기본값)
+ * - local : 단일 노드용 JVM 내부 striped lock
+ * - database : Account row 에 대한 SELECT ... FOR UPDATE
+ *
+ * lock 과 unlock 은 같은 쓰레드에서 호출되어야 한다.
+ */
+public interface AccountLockProvider {
+    /**
+     * @param timeouts 대기시간과 lease, 백엔드가 지원하지 않는 값은 무시한다.
+     */
+    void lock(String accountNumber, LockTimeouts timeouts);
+
+    void unlock(String accountNumber);
+
+    /**
+     * lock 을 잡은 상태로 work 를 executor 에서 실행하고, 끝나면 lock 을 푼다.
+     * 호출한 쓰레드는 lock 을 기다리지 않는다.
+     * 기본 구현은 executor 쓰레드에서 blocking lock 을 잡으므로, 비동기 lock 을 지원하는 백엔드는 재정의한다.
+     */
+    default <T> CompletableFuture<T> executeAsync(String accountNumber, LockTimeouts timeouts,
+                                                  Supplier<T> work, Executor executor) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                lock(accountNumber, timeouts);
+                try {
+                    return work.get();
+                } finally {
+                    unlock(accountNumber);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+        }
+    }
+}
@@ -4,39 +4,269 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
+/**
+ * 2단계 계좌 lock
+ * 1. 같은 노드 안의 경쟁은 계좌번호별 로컬 lock 으로 먼저 줄을 세운다.
+ * 2. redis lock 은 로컬 lock 을 잡은 쓰레드가 노드를 대표해서 획득하고,
+ *    로컬 대기자가 있으면 풀지 않고 다음 쓰레드에게 넘겨준다. (최대 MAX_HANDOVER_COUNT 회)
+ * redis lock 을 보유하는 동안은 watchdog 이 lease 의 1/3 주기로 만료시간을 연장한다.
+ * (소유자 확인과 연장은 lua script 한 번으로 하고, 최대 보유 시간 account.lock.max-hold-millis 를 넘기지 않는다.)
+ * 노드가 죽으면 연장이 멈추므로 짧은 lease 안에 lock 이 풀린다.
+ * 비동기 실행(executeAsync)은 로컬 lock 없이 요청마다 redis lock 을 비동기로 잡는다.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class AccountLockService {
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "redis", matchIfMissing = true)
+public class AccountLockService implements AccountLockProvider {
+    private static final int MAX_HANDOVER_COUNT = 16;
+    // 소유자가 그대로일 때만 연장, 확인과 연장 사이에 풀리고 다른 노드가 잡은 lock 을 연장하지 않음
+    private static final String RENEW_SCRIPT =
+            "if redis.call('hexists', KEYS[1], ARGV[1]) == 1 then "
+            + "return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+            + "return 0";
+
     private final RedissonClient redissonClient;
 
-    public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+    // 연장을 계속해도 이 시간이 지나면 더 이상 연장하지 않음 (멈춘 쓰레드 대비), 기본은 고정 lease
+    @Value("${account.lock.max-hold-millis:5000}")
+    private long maxHoldMillis = LockTimeouts.FALLBACK.getLeaseMillis();
+
+    private final ConcurrentHashMap<String, LocalAccountLock> localLocks = new ConcurrentHashMap<>();
+    // redis lock 의 소유자 id, 실제 쓰레드 id 와 겹치지 않도록 음수를 사용
+    private final AtomicLong ownerSequence = new AtomicLong();
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "account-lock-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+    }
+
+    @Override
+    public void lock(String accountNumber, LockTimeouts timeouts) {
         log.debug("Trying lock for accountNumber :{}", accountNumber);
+        long startedAt = System.currentTimeMillis();
+
+        LocalAccountLock localLock = retain(accountNumber);
+        if (!tryLocalLock(localLock, timeouts.getWaitMillis())) {
+            release(accountNumber);
+            log.error("Local lock acquisition failed");
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+
         try {
-            //1초 대기, 5초 후 자동해제
-            boolean isLock = lock.tryLock(1, 5, TimeUnit.SECONDS);
-            if (!isLock) {
-                log.error("Lock acquisition failed");
-                throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+            if (!localLock.redisLocked) {
+                long remainWaitTime = timeouts.getWaitMillis() - (System.currentTimeMillis() - startedAt);
+                lockRedis(accountNumber, localLock, Math.max(remainWaitTime, 0), timeouts.getLeaseMillis());
             }
-        } catch (InterruptedException e) {
-            log.error(e.getMessage());
+            localLock.handoverCount++;
+        } catch (RuntimeException e) {
+            localLock.lock.unlock();
+            release(accountNumber);
+            throw e;
         }
     }
 
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber :{}", accountNumber);
+        LocalAccountLock localLock = localLocks.get(accountNumber);
+        if (localLock == null || !localLock.lock.isHeldByCurrentThread()) {
+            return;
+        }
+
+        try {
+            if (!canHandOver(localLock)) {
+                unlockRedis(accountNumber, localLock);
+            }
+        } finally {
+            localLock.lock.unlock();
+            release(accountNumber);
+        }
+    }
+
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String accountNumber, LockTimeouts timeouts,
+                                                 Supplier<T> work, Executor executor) {
+        long ownerId = ownerSequence.decrementAndGet();
+        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        // 콜백은 redisson 이벤트 루프에서 실행되므로 work 는 바로 executor 로 넘긴다
+        lock.tryLockAsync(timeouts.getWaitMillis(), timeouts.getLeaseMillis(), TimeUnit.MILLISECONDS, ownerId)
+                .whenComplete((locked, lockError) -> {
+                    if (lockError != null || !Boolean.TRUE.equals(locked)) {
+                        log.error("Async lock acquisition failed");
+                        result.completeExceptionally(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+                        return;
+                    }
+
+                    ScheduledFuture<?> renewal = scheduleRenewal(accountNumber, ownerId,
+                            System.currentTimeMillis(), timeouts.getLeaseMillis());
+                    Runnable release = () -> {
+                        renewal.cancel(false);
+                        lock.unlockAsync(ownerId);
+                    };
+                    try {
+                        executor.execute(() -> {
+                            try {
+                                result.complete(work.get());
+                            } catch (Throwable t) {
+                                result.completeExceptionally(t);
+                            } finally {
+                                release.run();
+                            }
+                        });
+                    } catch (RejectedExecutionException e) {
+                        release.run();
+                        result.completeExceptionally(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+                    }
+                });
+        return result;
+    }
+
     private String getLockKey(String accountNumber) {
         return "ACLK:" + accountNumber;
     }
 
-    public void unlock(String accountNumber) {
-        log.debug("Unlock for accountNumber :{}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    private boolean tryLocalLock(LocalAccountLock localLock, long waitTimeMillis) {
+        try {
+            return localLock.lock.tryLock(waitTimeMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void lockRedis(String accountNumber, LocalAccountLock localLock,
+                           long waitTimeMillis, long leaseTimeMillis) {
+        long ownerId = ownerSequence.decrementAndGet();
+        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+
+        //대기 시간은 로컬 대기 후 남은 시간, lease 후 자동해제
+        if (!Boolean.TRUE.equals(await(lock.tryLockAsync(
+                waitTimeMillis, leaseTimeMillis, TimeUnit.MILLISECONDS, ownerId)))) {
+            log.error("Lock acquisition failed");
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+
+        long lockedAt = System.currentTimeMillis();
+        localLock.redisLocked = true;
+        localLock.ownerId = ownerId;
+        localLock.redisLockedAt = lockedAt;
+        localLock.leaseMillis = leaseTimeMillis;
+        localLock.handoverCount = 0;
+        localLock.renewal = scheduleRenewal(accountNumber, ownerId, lockedAt, leaseTimeMillis);
+    }
+
+    private void unlockRedis(String accountNumber, LocalAccountLock localLock) {
+        if (!localLock.redisLocked) {
+            return;
+        }
+        localLock.redisLocked = false;
+        localLock.renewal.cancel(false);
+        await(redissonClient.getLock(getLockKey(accountNumber)).unlockAsync(localLock.ownerId));
+    }
+
+    // 더 연장할 수 없으면 (최대 보유 시간 도달, 소유자가 아님) 스스로 멈춤
+    private ScheduledFuture<?> scheduleRenewal(String accountNumber, long ownerId,
+                                               long lockedAt, long leaseTimeMillis) {
+        long period = Math.max(leaseTimeMillis / 3, 1);
+        AtomicReference<ScheduledFuture<?>> renewal = new AtomicReference<>();
+        renewal.set(watchdog.scheduleAtFixedRate(() -> {
+            try {
+                if (!renew(accountNumber, ownerId, lockedAt, leaseTimeMillis) && renewal.get() != null) {
+                    renewal.get().cancel(false);
+                }
+            } catch (RuntimeException e) {
+                log.error("Lock lease renewal failed", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS));
+        return renewal.get();
+    }
+
+    /**
+     * ownerId 가 보유 중이면 만료시간을 lease 만큼 연장, 단 lock 을 잡은 뒤 max-hold-millis 를 넘기지 않는다.
+     * redisson lock 은 hash 의 "{redisson id}:{쓰레드 id}" 필드로 소유자를 기록한다.
+     */
+    boolean renew(String accountNumber, long ownerId, long lockedAt, long leaseTimeMillis) {
+        long remainMillis = lockedAt + maxHoldMillis - System.currentTimeMillis();
+        if (remainMillis <= 0) {
+            return false;
+        }
+        String key = getLockKey(accountNumber);
+        Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(key, RScript.Mode.READ_WRITE,
+                RENEW_SCRIPT, RScript.ReturnType.INTEGER, Collections.singletonList(key),
+                redissonClient.getId() + ":" + ownerId, String.valueOf(Math.min(leaseTimeMillis, remainMillis)));
+        return renewed != null && renewed == 1;
+    }
+
+    /**
+     * 로컬 대기자가 있고, 넘겨준 횟수와 보유 시간이 lease 안쪽일 때만 redis lock 을 넘겨준다.
+     */
+    private boolean canHandOver(LocalAccountLock localLock) {
+        return localLock.redisLocked
+                && localLock.handoverCount < MAX_HANDOVER_COUNT
+                && System.currentTimeMillis() - localLock.redisLockedAt < localLock.leaseMillis / 2
+                && localLock.lock.hasQueuedThreads();
+    }
+
+    private <T> T await(RFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        } catch (ExecutionException e) {
+            log.error("Redis lock command failed", e.getCause());
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+    }
+
+    private LocalAccountLock retain(String accountNumber) {
+        return localLocks.compute(accountNumber, (key, localLock) -> {
+            LocalAccountLock retained = localLock == null ? new LocalAccountLock() : localLock;
+            retained.referenceCount++;
+            return retained;
+        });
+    }
+
+    private void release(String accountNumber) {
+        localLocks.computeIfPresent(accountNumber, (key, localLock) ->
+                --localLock.referenceCount == 0 ? null : localLock);
+    }
+
+    // referenceCount 는 map compute 안에서, 나머지 필드는 lock 을 잡은 쓰레드만 변경
+    private static class LocalAccountLock {
+        private final ReentrantLock lock = new ReentrantLock(true);
+        private int referenceCount;
+
+        private boolean redisLocked;
+        private long ownerId;
+        private long redisLockedAt;
+        private long leaseMillis;
+        private int handoverCount;
+        private ScheduledFuture<?> renewal;
     }
 }
@@ -0,0 +1,31 @@
+package com.example.account.service;
+
+/**
+ * 계좌번호 발급
+ * 공유 카운터(DB sequence 또는 redis)에서 blockSize 개씩 번호 구간을 예약해 두고 메모리에서 하나씩 나눠준다.
+ * 노드마다 서로 다른 구간을 받으므로 노드 간에도 번호가 겹치지 않으며, Account 테이블은 조회하지 않는다.
+ * (노드가 재시작되면 쓰지 않은 구간의 번호는 건너뛴다.)
+ */
+public abstract class AccountNumberAllocator {
+    private final int blockSize;
+
+    private long nextNumber;
+    private long blockEnd; // 미포함
+
+    protected AccountNumberAllocator(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public synchronized String next() {
+        if (nextNumber >= blockEnd) {
+            nextNumber = reserveBlock(blockSize);
+            blockEnd = nextNumber + blockSize;
+        }
+        return String.valueOf(nextNumber++);
+    }
+
+    /**
+     * @return blockSize 개의 연속된 번호 중 첫번째 번호
+     */
+    protected abstract long reserveBlock(int blockSize);
+}
@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import com.example.account.config.RateLimitProperties;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RRateLimiter;
+import org.redisson.api.RateIntervalUnit;
+import org.redisson.api.RateType;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * endpoint 별 사용자, 계좌 요청 수 제한
+ * 1. 노드 로컬 token bucket 으로 먼저 거른다. (redis, DB 를 거치지 않음)
+ * 2. cluster-enabled 이면 로컬을 통과한 요청만 redis rate limiter 로 클러스터 전체 한도를 확인한다.
+ *    redis 오류 시에는 로컬 제한만으로 통과시킨다.
+ * 한도를 넘으면 TOO_MANY_REQUESTS
+ */
+@Slf4j
+@Service
+public class AccountRateLimiter {
+    private static final int SWEEP_INTERVAL = 4096;
+    private static final long CLUSTER_KEY_TTL_MINUTES = 10;
+
+    private final RateLimitProperties properties;
+    private final RedissonClient redissonClient;
+    private final LongSupplier nanoClock;
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, RRateLimiter> clusterLimiters = new ConcurrentHashMap<>();
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Autowired
+    public AccountRateLimiter(RateLimitProperties properties, ObjectProvider<RedissonClient> redissonClient) {
+        this(properties, redissonClient.getIfAvailable(), System::nanoTime);
+    }
+
+    AccountRateLimiter(RateLimitProperties properties, RedissonClient redissonClient, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.redissonClient = redissonClient;
+        this.nanoClock = nanoClock;
+    }
+
+    public void acquire(String endpoint, Long userId, String accountNumber) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (userId != null) {
+            acquire(endpoint + ":user:" + userId, properties.getPerUser(endpoint));
+        }
+        if (accountNumber != null) {
+            acquire(endpoint + ":account:" + accountNumber, properties.getPerAccount(endpoint));
+        }
+    }
+
+    private void acquire(String key, RateLimitProperties.Limit limit) {
+        if (limit == null || limit.getPermitsPerSecond() <= 0) {
+            return;
+        }
+
+        long now = nanoClock.getAsLong();
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            sweepIfNeeded(now);
+            bucket = buckets.computeIfAbsent(key,
+                    k -> new TokenBucket(limit.getPermitsPerSecond(), limit.getBurst(), now));
+        }
+        if (!bucket.tryAcquire(now) || !tryAcquireCluster(key, limit)) {
+            log.debug("Rate limited. key :{}", key);
+            throw new AccountException(ErrorCode.TOO_MANY_REQUESTS);
+        }
+    }
+
+    private boolean tryAcquireCluster(String key, RateLimitProperties.Limit limit) {
+        if (!properties.isClusterEnabled() || redissonClient == null) {
+            return true;
+        }
+        try {
+            RRateLimiter limiter = clusterLimiters.computeIfAbsent(key, k -> initClusterLimiter(k, limit));
+            return limiter.tryAcquire();
+        } catch (RuntimeException e) {
+            // 만료된 limiter 는 다음 요청에서 다시 설정
+            clusterLimiters.remove(key);
+            log.error("Cluster rate limiter failed, falling back to local limit. key :{}", key, e);
+            return true;
+        }
+    }
+
+    // burst 개를 burst / permits-per-second 동안 허용하는 window 로 근사
+    private RRateLimiter initClusterLimiter(String key, RateLimitProperties.Limit limit) {
+        RRateLimiter limiter = redissonClient.getRateLimiter("RTLM:" + key);
+        int burst = Math.max(limit.getBurst(), 1);
+        long intervalMillis = Math.max((long) (burst * 1000 / limit.getPermitsPerSecond()), 1);
+        limiter.trySetRate(RateType.OVERALL, burst, intervalMillis, RateIntervalUnit.MILLISECONDS);
+        limiter.expire(CLUSTER_KEY_TTL_MINUTES, TimeUnit.MINUTES);
+        return limiter;
+    }
+
+    // 다시 가득 찬 bucket 은 새로 만든 것과 같으므로 지워서 map 이 키 개수만큼 커지지 않게 한다
+    private void sweepIfNeeded(long now) {
+        if (created.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            buckets.entrySet().removeIf(entry -> {
+                if (entry.getValue().isFull(now)) {
+                    clusterLimiters.remove(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 계좌번호별 mailbox 로 거래 작업을 도착 순서대로 하나씩 실행한다.
+ * 같은 계좌의 요청은 lock 재시도 대신 큐에서 차례를 기다리고,
+ * 큐가 가득 찼거나 대기 시간(deadline)이 지난 경우에만 거절된다.
+ */
+@Slf4j
+@Component
+public class AccountSerialExecutor {
+    // 한 계좌가 worker 를 독점하지 않도록 이 개수만큼 실행 후 다시 스케줄
+    private static final int DRAIN_BATCH_SIZE = 32;
+
+    private final int maxQueueDepth;
+    private final long deadlineMillis;
+    private final ExecutorService workers;
+
+    private final ConcurrentHashMap<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    public AccountSerialExecutor(@Value("${account.queue.max-depth:64}") int maxQueueDepth,
+                                 @Value("${account.queue.deadline-millis:3000}") long deadlineMillis,
+                                 @Value("${account.queue.worker-threads:32}") int workerThreads) {
+        this.maxQueueDepth = maxQueueDepth;
+        this.deadlineMillis = deadlineMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "account-queue-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * 계좌 mailbox 에 작업을 넣고 실행이 끝날 때까지 기다린 뒤 결과를 반환한다.
+     * 작업에서 발생한 예외는 그대로 다시 던진다.
+     */
+    public <T> T execute(String accountNumber, AccountTask<T> task) throws Throwable {
+        QueuedTask<T> queuedTask = new QueuedTask<>(task,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(deadlineMillis));
+        enqueue(accountNumber, queuedTask);
+        return queuedTask.await();
+    }
+
+    private void enqueue(String accountNumber, QueuedTask<?> queuedTask) {
+        while (true) {
+            Mailbox mailbox = mailboxes.computeIfAbsent(accountNumber, Mailbox::new);
+            synchronized (mailbox) {
+                if (mailbox.closed) {
+                    continue; // drain 이 끝나서 map 에서 빠진 mailbox, 새로 만든다
+                }
+                if (mailbox.queue.size() >= maxQueueDepth) {
+                    log.error("Account queue is full. accountNumber :{}", accountNumber);
+                    throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+                }
+
+                mailbox.queue.add(queuedTask);
+                if (!mailbox.scheduled) {
+                    mailbox.scheduled = true;
+                    workers.execute(() -> drain(mailbox));
+                }
+                return;
+            }
+        }
+    }
+
+    private void drain(Mailbox mailbox) {
+        for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+            QueuedTask<?> queuedTask;
+            synchronized (mailbox) {
+                queuedTask = mailbox.queue.poll();
+                if (queuedTask == null) {
+                    mailbox.scheduled = false;
+                    mailbox.closed = true;
+                    mailboxes.remove(mailbox.accountNumber, mailbox);
+                    return;
+                }
+            }
+            queuedTask.run();
+        }
+        workers.execute(() -> drain(mailbox));
+    }
+
+    @FunctionalInterface
+    public interface AccountTask<T> {
+        T run() throws Throwable;
+    }
+
+    // queue, scheduled, closed 는 mailbox 모니터 안에서만 변경
+    private static class Mailbox {
+        private final String accountNumber;
+        private final Queue<QueuedTask<?>> queue = new ArrayDeque<>();
+        private boolean scheduled;
+        private boolean closed;
+
+        private Mailbox(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private static class QueuedTask<T> {
+        private static final int PENDING = 0;
+        private static final int RUNNING = 1;
+        private static final int CANCELLED = 2;
+
+        private final AccountTask<T> task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private QueuedTask(AccountTask<T> task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        private void run() {
+            if (System.nanoTime() - deadline > 0 || !state.compareAndSet(PENDING, RUNNING)) {
+                result.completeExceptionally(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+                return;
+            }
+
+            try {
+                result.complete(task.run());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        }
+
+        private T await() throws Throwable {
+            try {
+                try {
+                    return result.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    if (state.compareAndSet(PENDING, CANCELLED)) {
+                        log.error("Account queue deadline exceeded");
+                        throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+                    }
+                    // 이미 실행중인 작업은 커밋 여부를 알아야 하므로 끝까지 기다린다
+                    return result.get();
+                }
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -9,19 +9,25 @@ import com.example.account.type.AccountStatus;
 import com.example.account.repository.AccountRepository;
 import com.example.account.type.ErrorCode;
 import com.example.account.type.AccountSetting;
+import com.example.account.type.TransactionMode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor // 제약사항이나 final field 생성자 생성
 public class AccountService {
     private final AccountRepository accountRepository;
     private final AccountUserRepository accountUserRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final LedgerService ledgerService;
+    private final RedisBalanceService redisBalanceService;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private TransactionMode transactionMode = TransactionMode.LOCK;
 
     /**
      *  사용자 있는지 조회
@@ -35,9 +41,7 @@ public class AccountService {
 
         validateNumberOfAccount(accountUser);
 
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> Long.parseLong(account.getAccountNumber()) + 1 + "")
-                .orElse(String.valueOf(AccountSetting.INITIAL_ACCOUNT_NUMBER.getNumber()));
+        String newAccountNumber = accountNumberAllocator.next();
 
         return AccountDto.fromEntity(
                 accountRepository.save(Account.builder()
@@ -45,6 +49,7 @@ public class AccountService {
                     .accountStatus(AccountStatus.IN_USE)
                     .accountNumber(newAccountNumber)
                     .balance(initialBalance)
+                    .openingBalance(initialBalance)
                     .registeredAt(LocalDateTime.now())
                     .build()));
     }
@@ -57,6 +62,7 @@ public class AccountService {
     }
 
     /**
+     *  redis 잔액 계좌이거나 지정을 풀고 아직 redis 에 남은 경우 (write-behind 가 반영하고 키를 지운 뒤 해지)
      *  사용자가 없는경우
      *  계좌가 없는경우
      *  소유주가 다른경우
@@ -66,6 +72,13 @@ public class AccountService {
      */
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
+        if (redisBalanceService.holds(accountNumber)) {
+            throw new AccountException(ErrorCode.REDIS_BALANCE_ACCOUNT);
+        }
+        // ENGINE 모드는 메모리 잔액이 기준이므로 AccountEngine.deleteAccount 로 해지
+        if (transactionMode == TransactionMode.ENGINE) {
+            throw new IllegalStateException("Accounts are closed by AccountEngine in ENGINE mode");
+        }
         AccountUser accountUser = getAccountUser(userId);
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
@@ -80,6 +93,17 @@ public class AccountService {
         return AccountDto.fromEntity(account);
     }
 
+    /**
+     * ENGINE 모드 해지 반영, AccountEngine worker 가 메모리 잔액을 확인한 뒤 호출
+     * 이미 해지된 계좌면 실패
+     */
+    @Transactional
+    public void unregisterAccount(String accountNumber, LocalDateTime unRegisteredAt) {
+        if (accountRepository.unregister(accountNumber, unRegisteredAt) == 0) {
+            throw new AccountException(ErrorCode.UNREGISTERED_ACCOUNT);
+        }
+    }
+
     private void validateDeleteAccount(AccountUser accountUser, Account account) {
         if (!accountUser.getId().equals(account.getAccountUser().getId())) {
             throw new AccountException(ErrorCode.ACCOUNT_USER_UN_MATCH);
@@ -89,23 +113,17 @@ public class AccountService {
             throw new AccountException(ErrorCode.UNREGISTERED_ACCOUNT);
         }
 
-        if (account.getBalance() > 0) {
+        if (currentBalance(account) > 0) {
             throw new AccountException(ErrorCode.REMAINED_BALANCE);
         }
     }
 
-    /**
-     * 사용자가 없는 경우 실패
-     * userId와 일치하는 계좌 조회
-     * List<Account>로 응답
-     */
-    @Transactional
-    public List<AccountDto> inquireAccounts(Long userId) {
-        AccountUser accountUser = getAccountUser(userId);
-
-        return accountRepository.findByAccountUser(accountUser)
-                .stream().map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+    // LEDGER 모드에서는 잔액 컬럼이 아니라 원장으로 계산한 잔액
+    private long currentBalance(Account account) {
+        if (transactionMode == TransactionMode.LEDGER) {
+            return ledgerService.balanceOf(account.getAccountNumber(), account.getBalance());
+        }
+        return account.getBalance();
     }
 
     private AccountUser getAccountUser(Long userId) {
@@ -0,0 +1,61 @@
+package com.example.account.service;
+
+import com.example.account.metric.LockMetrics;
+import com.example.account.metric.RollingHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * LockMetrics 에 쌓인 endpoint 별 lock 보유시간 분포로 대기시간과 lease 를 계산한다.
+ * - lease = p99.9 보유시간 x lease 배수
+ * - wait = p99 보유시간 x wait 배수 (앞선 보유자 몇 명을 기다릴 수 있는 정도)
+ * 두 값 모두 [최소값, 기존 고정값] 범위로 제한하고, 표본이 부족하면 기존 고정값을 쓴다.
+ */
+@Component
+public class AdaptiveLockTimeouts {
+    private static final long MIN_WAIT_MILLIS = 50;
+    private static final long MIN_LEASE_MILLIS = 200;
+
+    private final LockMetrics lockMetrics;
+    private final boolean enabled;
+    private final int minSamples;
+    private final double leaseFactor;
+    private final double waitFactor;
+
+    public AdaptiveLockTimeouts(LockMetrics lockMetrics,
+                                @Value("${account.lock.adaptive.enabled:true}") boolean enabled,
+                                @Value("${account.lock.adaptive.min-samples:200}") int minSamples,
+                                @Value("${account.lock.adaptive.lease-factor:3.0}") double leaseFactor,
+                                @Value("${account.lock.adaptive.wait-factor:8.0}") double waitFactor) {
+        this.lockMetrics = lockMetrics;
+        this.enabled = enabled;
+        this.minSamples = minSamples;
+        this.leaseFactor = leaseFactor;
+        this.waitFactor = waitFactor;
+    }
+
+    public LockTimeouts get(String endpoint) {
+        if (!enabled) {
+            return LockTimeouts.FALLBACK;
+        }
+
+        RollingHistogram.Snapshot snapshot = lockMetrics.getHoldTime(endpoint);
+        if (snapshot == null || snapshot.getCount() < minSamples) {
+            return LockTimeouts.FALLBACK;
+        }
+
+        long waitMillis = toMillis(snapshot.getPercentileMicros(99.0) * waitFactor);
+        long leaseMillis = toMillis(snapshot.getPercentileMicros(99.9) * leaseFactor);
+        return new LockTimeouts(
+                clamp(waitMillis, MIN_WAIT_MILLIS, LockTimeouts.FALLBACK.getWaitMillis()),
+                clamp(leaseMillis, MIN_LEASE_MILLIS, LockTimeouts.FALLBACK.getLeaseMillis()));
+    }
+
+    private long toMillis(double micros) {
+        return (long) Math.ceil(micros / 1_000);
+    }
+
+    private long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(value, max));
+    }
+}
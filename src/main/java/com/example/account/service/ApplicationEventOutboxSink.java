@@ -0,0 +1,25 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 같은 JVM 안의 소비자에게 전달
+ * 소비자는 @EventListener(TransactionEvent) 로 받고, 리스너가 예외를 던지면 묶음 전체가 다시 전달된다.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class ApplicationEventOutboxSink implements OutboxSink {
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    @Override
+    public void publish(List<TransactionEvent> events) {
+        events.forEach(applicationEventPublisher::publishEvent);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.metric.LockMetrics;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 요청 쓰레드를 점유하지 않는 거래 실행
+ * lock 대기는 lock 백엔드의 비동기 API 에서, 거래 처리는 전용 worker 에서 실행한다.
+ * worker 큐가 가득 차면 CURRENT_UNDER_TRANSACTION 으로 거절한다.
+ */
+@Slf4j
+@Service
+public class AsyncTransactionService {
+    private final TransactionInfoService transactionInfoService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final RedisBalanceService redisBalanceService;
+    private final GroupCommitter groupCommitter;
+    private final ObjectProvider<AccountEngine> accountEngine;
+    private final AccountLockProvider accountLockProvider;
+    private final AdaptiveLockTimeouts adaptiveLockTimeouts;
+    private final LockMetrics lockMetrics;
+    private final OptimisticRetry optimisticRetry;
+    private final TransactionMode transactionMode;
+    private final ExecutorService workers;
+
+    public AsyncTransactionService(TransactionInfoService transactionInfoService,
+                                   FailedTransactionRecorder failedTransactionRecorder,
+                                   RedisBalanceService redisBalanceService,
+                                   GroupCommitter groupCommitter,
+                                   ObjectProvider<AccountEngine> accountEngine,
+                                   AccountLockProvider accountLockProvider,
+                                   AdaptiveLockTimeouts adaptiveLockTimeouts,
+                                   LockMetrics lockMetrics,
+                                   OptimisticRetry optimisticRetry,
+                                   @Value("${account.async.worker-threads:16}") int workerThreads,
+                                   @Value("${account.async.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${account.transaction.mode:LOCK}") TransactionMode transactionMode) {
+        this.transactionInfoService = transactionInfoService;
+        this.failedTransactionRecorder = failedTransactionRecorder;
+        this.redisBalanceService = redisBalanceService;
+        this.groupCommitter = groupCommitter;
+        this.accountEngine = accountEngine;
+        this.accountLockProvider = accountLockProvider;
+        this.adaptiveLockTimeouts = adaptiveLockTimeouts;
+        this.lockMetrics = lockMetrics;
+        this.optimisticRetry = optimisticRetry;
+        this.transactionMode = transactionMode;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "account-async-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    public CompletableFuture<TransactionDto> transactUse(String accountNumber, Long userId, Long amount) {
+        return executeWithLock("useAccountBalance", accountNumber, () -> {
+            try {
+                if (redisBalanceService.handles(accountNumber)) {
+                    return redisBalanceService.use(accountNumber, userId, amount);
+                }
+                AccountEngine engine = accountEngine.getIfAvailable();
+                if (engine != null) {
+                    return engine.transactUse(accountNumber, userId, amount);
+                }
+                return groupCommitter.transactUse(accountNumber, userId, amount);
+            } catch (TransactionTimeoutException e) {
+                // 결과를 모르므로 실패로 기록하지 않음
+                log.error("Timed out to use Account Balance");
+                throw e;
+            } catch (AccountException e) {
+                log.error("Failed to use Account Balance");
+                failedTransactionRecorder.record(accountNumber, amount, USE, e.getErrorCode());
+                throw e;
+            }
+        });
+    }
+
+    public CompletableFuture<TransactionDto> transactCancel(String accountNumber, String transactionId,
+                                                            Long cancelAmount) {
+        return executeWithLock("cancelUseAccount", accountNumber, () -> {
+            try {
+                if (redisBalanceService.handles(accountNumber)) {
+                    return redisBalanceService.cancel(accountNumber, transactionId, cancelAmount);
+                }
+                AccountEngine engine = accountEngine.getIfAvailable();
+                if (engine != null) {
+                    return engine.transactCancel(accountNumber, transactionId, cancelAmount);
+                }
+                return transactionInfoService.transactCancel(accountNumber, transactionId, cancelAmount);
+            } catch (TransactionTimeoutException e) {
+                log.error("Timed out to cancel use Account Balance");
+                throw e;
+            } catch (AccountException e) {
+                log.error("Failed to cancel use Account Balance");
+                failedTransactionRecorder.record(accountNumber, cancelAmount, CANCEL, e.getErrorCode());
+                throw e;
+            }
+        });
+    }
+
+    private <T> CompletableFuture<T> executeWithLock(String endpoint, String accountNumber, Supplier<T> work) {
+        // redis 잔액 계좌는 lua script 한 번으로 처리하므로 lock 을 잡지 않음
+        if (!transactionMode.isLockRequired() || redisBalanceService.handles(accountNumber)) {
+            Supplier<T> attempt = transactionMode == TransactionMode.OPTIMISTIC
+                    ? () -> retryOptimistic(accountNumber, work)
+                    : work;
+            try {
+                return CompletableFuture.supplyAsync(attempt, workers);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION));
+            }
+        }
+
+        long startedAt = System.nanoTime();
+        AtomicBoolean started = new AtomicBoolean();
+
+        CompletableFuture<T> result = accountLockProvider.executeAsync(accountNumber,
+                adaptiveLockTimeouts.get(endpoint), () -> {
+                    started.set(true);
+                    long lockedAt = System.nanoTime();
+                    lockMetrics.recordAcquired(endpoint, accountNumber, lockedAt - startedAt);
+                    try {
+                        return work.get();
+                    } finally {
+                        lockMetrics.recordReleased(endpoint, accountNumber, System.nanoTime() - lockedAt);
+                    }
+                }, workers);
+
+        return result.whenComplete((value, error) -> {
+            if (error != null && !started.get()) {
+                lockMetrics.recordFailed(endpoint, accountNumber, System.nanoTime() - startedAt);
+            }
+        });
+    }
+
+    private <T> T retryOptimistic(String accountNumber, Supplier<T> work) {
+        try {
+            return optimisticRetry.execute(accountNumber, work::get);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new CompletionException(t);
+        }
+    }
+}
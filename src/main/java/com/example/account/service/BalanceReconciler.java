@@ -0,0 +1,284 @@
+package com.example.account.service;
+
+import com.example.account.metric.ReconciliationProgress;
+import com.example.account.metric.ReconciliationProgress.Discrepancy;
+import com.example.account.type.DiscrepancyType;
+import com.example.account.type.TransactionMode;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 계좌 잔액 대사
+ * 계좌 id 범위를 chunk 로 나눠 ForkJoin pool 에서 병렬로 검사한다. 계좌 lock 은 잡지 않는다.
+ * 계좌를 처음 만들 때의 잔액은 거래로 남지 않으므로 합계 대신 거래 후 잔액(balanceSnapshot)의 연속성을 본다.
+ * - 개설 잔액(openingBalance)이 있으면 첫 거래도 개설 잔액에서 이어져야 하고, 거래가 없는 계좌는 잔액이 개설 잔액과 같아야 한다.
+ * - 사용(실패 제외, 이후 취소된 건 포함)은 직전 잔액 - 금액, 취소 성공은 직전 잔액 + 금액이어야 한다.
+ * - 마지막 거래 후 잔액은 계좌 잔액과 같아야 한다. (LEDGER 모드는 잔액 컬럼을 갱신하지 않으므로 제외)
+ * chunk 마다 하나의 읽기 전용 쿼리로 계좌와 거래를 함께 읽어 (거래가 없는 계좌도 한 행) 같은 시점의 값을 비교하고,
+ * 결과는 fetch-size 단위로 흘려 받아 chunk 크기와 상관없이 메모리를 일정하게 쓴다.
+ */
+@Slf4j
+@Service
+public class BalanceReconciler {
+    private static final String CHUNK_QUERY = "select a.id account_id, a.account_number, a.balance, "
+            + "a.opening_balance, t.transaction_type, t.transaction_result, t.transaction_id, t.amount, "
+            + "t.balance_snapshot "
+            + "from account a left join transaction_info t on t.account_id = a.id "
+            + "where a.id between ? and ? "
+            + "order by a.id, t.transacted_at, t.transaction_id";
+    // 진행 상황에 반영하는 단위, 행마다 공유 카운터를 건드리지 않도록 묶어서 더한다
+    private static final int PROGRESS_ROWS = 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int maxReported;
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "balance-reconciler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${account.transaction.mode:LOCK}")
+    private TransactionMode transactionMode = TransactionMode.LOCK;
+
+    private volatile ReconciliationProgress progress;
+
+    public BalanceReconciler(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${account.reconciliation.chunk-size:10000}") int chunkSize,
+                             @Value("${account.reconciliation.parallelism:4}") int parallelism,
+                             @Value("${account.reconciliation.fetch-size:1000}") int fetchSize,
+                             @Value("${account.reconciliation.max-reported:1000}") int maxReported) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        // 일부 드라이버(postgresql 등)는 트랜잭션 안에서만 fetch-size 대로 나눠 읽는다
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.maxReported = maxReported;
+    }
+
+    @Scheduled(cron = "${account.reconciliation.cron:-}")
+    public void reconcileNightly() {
+        reconcile();
+    }
+
+    /**
+     * 실행 중이 아니면 백그라운드로 시작, 실행 중이면 현재 진행 상황을 돌려준다.
+     */
+    public synchronized ReconciliationProgress start() {
+        if (progress != null && progress.getStatus() == ReconciliationProgress.Status.RUNNING) {
+            return progress;
+        }
+        ReconciliationProgress started = prepare();
+        launcher.execute(() -> run(started));
+        return started;
+    }
+
+    public ReconciliationProgress reconcile() {
+        ReconciliationProgress started;
+        synchronized (this) {
+            if (progress != null && progress.getStatus() == ReconciliationProgress.Status.RUNNING) {
+                log.warn("Reconciliation already running");
+                return progress;
+            }
+            started = prepare();
+        }
+        run(started);
+        return started;
+    }
+
+    public ReconciliationProgress getProgress() {
+        return progress;
+    }
+
+    private ReconciliationProgress prepare() {
+        Map<String, Object> range = jdbcTemplate.queryForMap("select min(id) min_id, max(id) max_id from account");
+        long minId = range.get("min_id") == null ? 0 : ((Number) range.get("min_id")).longValue();
+        long maxId = range.get("max_id") == null ? -1 : ((Number) range.get("max_id")).longValue();
+        long totalChunks = maxId < minId ? 0 : (maxId - minId) / chunkSize + 1;
+
+        progress = new ReconciliationProgress(minId, maxId, totalChunks, maxReported);
+        return progress;
+    }
+
+    private void run(ReconciliationProgress current) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RangeTask(current, current.getFromAccountId(), current.getToAccountId()));
+            current.finish(ReconciliationProgress.Status.COMPLETED);
+            log.info("Reconciliation done. accounts :{}, rows :{}, rows/s :{}, discrepancies :{}",
+                    current.getAccounts(), current.getRows(), current.getRowsPerSecond(),
+                    current.getDiscrepancyCount());
+        } catch (RuntimeException e) {
+            current.finish(ReconciliationProgress.Status.FAILED);
+            log.error("Reconciliation failed", e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private void reconcileChunk(ReconciliationProgress current, long fromId, long toId) {
+        ChunkHandler handler = new ChunkHandler(current, transactionMode != TransactionMode.LEDGER);
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(CHUNK_QUERY, handler, fromId, toId));
+        handler.finish();
+    }
+
+    /**
+     * chunk 크기 이하가 될 때까지 계좌 id 범위를 반으로 나눈다.
+     * 계좌가 특정 구간에 몰려 있어도 남는 worker 가 큐에 쌓인 절반을 가져가서 처리한다.
+     */
+    private class RangeTask extends RecursiveAction {
+        private final ReconciliationProgress current;
+        private final long fromId;
+        private final long toId;
+
+        private RangeTask(ReconciliationProgress current, long fromId, long toId) {
+            this.current = current;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected void compute() {
+            if (toId < fromId) {
+                return;
+            }
+            if (toId - fromId < chunkSize) {
+                reconcileChunk(current, fromId, toId);
+                return;
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            invokeAll(new RangeTask(current, fromId, middle), new RangeTask(current, middle + 1, toId));
+        }
+    }
+
+    /**
+     * 계좌 id, 거래 순으로 정렬된 행을 받아서 계좌가 바뀔 때마다 이전 계좌를 마무리한다.
+     */
+    static class ChunkHandler implements RowCallbackHandler {
+        private final ReconciliationProgress current;
+        private final boolean compareBalance;
+
+        private long accountCount;
+        private long pendingRows;
+        private AccountChain chain;
+
+        ChunkHandler(ReconciliationProgress current, boolean compareBalance) {
+            this.current = current;
+            this.compareBalance = compareBalance;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long accountId = rs.getLong("account_id");
+            if (chain == null || chain.accountId != accountId) {
+                finishAccount();
+                long openingBalance = rs.getLong("opening_balance");
+                chain = new AccountChain(accountId, rs.getString("account_number"), rs.getLong("balance"),
+                        rs.wasNull() ? null : openingBalance);
+                accountCount++;
+            }
+            String transactionType = rs.getString("transaction_type");
+            if (transactionType == null) {
+                return; // 거래가 없는 계좌
+            }
+
+            Discrepancy discrepancy = chain.apply(
+                    TransactionType.valueOf(transactionType),
+                    TransactionResult.valueOf(rs.getString("transaction_result")),
+                    rs.getLong("transaction_id"), rs.getLong("amount"), rs.getLong("balance_snapshot"));
+            if (discrepancy != null) {
+                current.recordDiscrepancy(discrepancy);
+            }
+
+            if (++pendingRows == PROGRESS_ROWS) {
+                current.recordRows(pendingRows);
+                pendingRows = 0;
+            }
+        }
+
+        void finish() {
+            finishAccount();
+            current.recordRows(pendingRows);
+            current.recordChunk(accountCount);
+        }
+
+        private void finishAccount() {
+            if (chain == null || !compareBalance) {
+                return;
+            }
+            Discrepancy discrepancy = chain.finish();
+            if (discrepancy != null) {
+                current.recordDiscrepancy(discrepancy);
+            }
+        }
+    }
+
+    /**
+     * 한 계좌의 거래 후 잔액 연속성 검사
+     * 개설 잔액에서 시작하고, 개설 잔액이 없는 계좌의 첫 거래는 거래 후 잔액을 그대로 기준으로 삼는다.
+     */
+    static class AccountChain {
+        private final long accountId;
+        private final String accountNumber;
+        private final long accountBalance;
+
+        private Long balance;
+        private Long lastTransactionId;
+
+        AccountChain(long accountId, String accountNumber, long accountBalance, Long openingBalance) {
+            this.accountId = accountId;
+            this.accountNumber = accountNumber;
+            this.accountBalance = accountBalance;
+            this.balance = openingBalance;
+        }
+
+        Discrepancy apply(TransactionType type, TransactionResult result,
+                          long transactionId, long amount, long balanceSnapshot) {
+            long delta;
+            if (type == TransactionType.USE && result != TransactionResult.TRANSACTION_FAIL) {
+                delta = -amount;
+            } else if (type == TransactionType.CANCEL && result == TransactionResult.TRANSACTION_SUCCESS) {
+                delta = amount;
+            } else {
+                return null; // 실패 거래는 잔액을 바꾸지 않음
+            }
+
+            Long expected = balance == null ? null : balance + delta;
+            balance = balanceSnapshot;
+            lastTransactionId = transactionId;
+            if (expected != null && expected != balanceSnapshot) {
+                return new Discrepancy(DiscrepancyType.SNAPSHOT_CHAIN_BROKEN, accountNumber,
+                        transactionId, expected, balanceSnapshot);
+            }
+            return null;
+        }
+
+        Discrepancy finish() {
+            if (balance == null || balance == accountBalance) {
+                return null;
+            }
+            return new Discrepancy(DiscrepancyType.BALANCE_MISMATCH, accountNumber,
+                    lastTransactionId, balance, accountBalance);
+        }
+    }
+}
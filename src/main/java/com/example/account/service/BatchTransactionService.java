@@ -0,0 +1,258 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.metric.LockMetrics;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.validation.Validator;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * 거래 사용 일괄 처리
+ * 요청을 계좌번호별로 묶고, 계좌마다 lock 을 한 번만 잡은 뒤 chunk-size 건씩 한 트랜잭션으로 커밋한다.
+ * 계좌 묶음끼리는 전용 worker 에서 병렬로 실행하고, 결과는 요청 순서대로 돌려준다.
+ * 항목별 실패는 다른 항목에 영향을 주지 않고 실패 거래로 남는다. (lock 획득 실패는 단건 API 처럼 남기지 않음)
+ * 항목마다 사용자, 계좌별 요청 수 제한을 하나씩 차감하고, 넘은 항목은 TOO_MANY_REQUESTS 로 실패시킨다. (실패 거래로 남기지 않음)
+ */
+@Slf4j
+@Service
+public class BatchTransactionService {
+    private static final String ENDPOINT = "useAccountBalanceBatch";
+
+    private final TransactionInfoService transactionInfoService;
+    private final AccountLockProvider accountLockProvider;
+    private final AdaptiveLockTimeouts adaptiveLockTimeouts;
+    private final LockMetrics lockMetrics;
+    private final OptimisticRetry optimisticRetry;
+    private final RedisBalanceService redisBalanceService;
+    private final FailedTransactionRecorder failedTransactionRecorder;
+    private final ObjectProvider<AccountEngine> accountEngine;
+    private final AccountRateLimiter accountRateLimiter;
+    private final Validator validator;
+    private final TransactionMode transactionMode;
+    private final int maxItems;
+    private final int chunkSize;
+    private final ExecutorService workers;
+
+    public BatchTransactionService(TransactionInfoService transactionInfoService,
+                                   AccountLockProvider accountLockProvider,
+                                   AdaptiveLockTimeouts adaptiveLockTimeouts,
+                                   LockMetrics lockMetrics,
+                                   OptimisticRetry optimisticRetry,
+                                   RedisBalanceService redisBalanceService,
+                                   FailedTransactionRecorder failedTransactionRecorder,
+                                   ObjectProvider<AccountEngine> accountEngine,
+                                   AccountRateLimiter accountRateLimiter,
+                                   Validator validator,
+                                   @Value("${account.transaction.mode:LOCK}") TransactionMode transactionMode,
+                                   @Value("${account.batch.max-items:5000}") int maxItems,
+                                   @Value("${account.batch.chunk-size:100}") int chunkSize,
+                                   @Value("${account.batch.worker-threads:8}") int workerThreads,
+                                   @Value("${account.batch.queue-capacity:10000}") int queueCapacity) {
+        this.transactionInfoService = transactionInfoService;
+        this.accountLockProvider = accountLockProvider;
+        this.adaptiveLockTimeouts = adaptiveLockTimeouts;
+        this.lockMetrics = lockMetrics;
+        this.optimisticRetry = optimisticRetry;
+        this.redisBalanceService = redisBalanceService;
+        this.failedTransactionRecorder = failedTransactionRecorder;
+        this.accountEngine = accountEngine;
+        this.accountRateLimiter = accountRateLimiter;
+        this.validator = validator;
+        this.transactionMode = transactionMode;
+        this.maxItems = maxItems;
+        this.chunkSize = chunkSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerThreads, workerThreads,
+                0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "account-batch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * 요청 개수가 max-items 를 넘으면 ARGUMENT_NOT_VALID
+     */
+    public CompletableFuture<List<TransactionUse.BatchResponse>> transactUse(List<TransactionUse.Request> requests) {
+        if (requests == null || requests.isEmpty() || requests.size() > maxItems) {
+            throw new AccountException(ErrorCode.ARGUMENT_NOT_VALID);
+        }
+
+        TransactionUse.BatchResponse[] responses = new TransactionUse.BatchResponse[requests.size()];
+        // 계좌번호별 요청 위치, 같은 계좌 안에서는 요청 순서대로 처리
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            TransactionUse.Request request = requests.get(i);
+            if (request == null || !validator.validate(request).isEmpty()) {
+                responses[i] = TransactionUse.BatchResponse.failed(request, ErrorCode.ARGUMENT_NOT_VALID);
+                continue;
+            }
+            groups.computeIfAbsent(request.getAccountNumber(), key -> new ArrayList<>()).add(i);
+        }
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(groups.size());
+        groups.forEach((accountNumber, indexes) -> {
+            // 계좌 묶음 하나가 lock 한 번, 트랜잭션 몇 번이므로 한도도 묶음마다 하나 차감
+            try {
+                accountRateLimiter.acquire(ENDPOINT, requests.get(indexes.get(0)).getUserId(), accountNumber);
+            } catch (AccountException e) {
+                failRemaining(indexes, requests, responses, e.getErrorCode());
+                return;
+            }
+            futures.add(runGroup(accountNumber, indexes, requests, responses));
+        });
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> Arrays.asList(responses));
+    }
+
+    private CompletableFuture<Void> runGroup(String accountNumber, List<Integer> indexes,
+                                             List<TransactionUse.Request> requests,
+                                             TransactionUse.BatchResponse[] responses) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    processGroup(accountNumber, indexes, requests, responses);
+                } catch (AccountException e) {
+                    failRemaining(indexes, requests, responses, e.getErrorCode());
+                } catch (RuntimeException e) {
+                    log.error("Batch use failed. accountNumber :{}", accountNumber, e);
+                    failRemaining(indexes, requests, responses, ErrorCode.INTERNAL_SERVER_ERROR);
+                }
+            }, workers);
+        } catch (RejectedExecutionException e) {
+            failRemaining(indexes, requests, responses, ErrorCode.CURRENT_UNDER_TRANSACTION);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private void processGroup(String accountNumber, List<Integer> indexes,
+                              List<TransactionUse.Request> requests,
+                              TransactionUse.BatchResponse[] responses) {
+        if (redisBalanceService.handles(accountNumber)) {
+            processRedis(accountNumber, indexes, requests, responses);
+            return;
+        }
+        AccountEngine engine = accountEngine.getIfAvailable();
+        if (engine != null) {
+            processEngine(engine, accountNumber, indexes, requests, responses);
+            return;
+        }
+        if (!transactionMode.isLockRequired()) {
+            processChunks(accountNumber, indexes, requests, responses);
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            accountLockProvider.lock(accountNumber, adaptiveLockTimeouts.get(ENDPOINT));
+        } catch (AccountException e) {
+            lockMetrics.recordFailed(ENDPOINT, accountNumber, System.nanoTime() - startedAt);
+            throw e;
+        }
+
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordAcquired(ENDPOINT, accountNumber, lockedAt - startedAt);
+        try {
+            processChunks(accountNumber, indexes, requests, responses);
+        } finally {
+            lockMetrics.recordReleased(ENDPOINT, accountNumber, System.nanoTime() - lockedAt);
+            accountLockProvider.unlock(accountNumber);
+        }
+    }
+
+    // redis 잔액 계좌는 항목마다 lua script 한 번, lock 과 chunk 트랜잭션이 필요 없음
+    private void processRedis(String accountNumber, List<Integer> indexes,
+                              List<TransactionUse.Request> requests,
+                              TransactionUse.BatchResponse[] responses) {
+        for (Integer index : indexes) {
+            TransactionUse.Request request = requests.get(index);
+            try {
+                responses[index] = TransactionUse.BatchResponse.from(redisBalanceService.use(
+                        accountNumber, request.getUserId(), request.getAmount()));
+            } catch (AccountException e) {
+                failedTransactionRecorder.record(accountNumber, request.getAmount(), USE, e.getErrorCode());
+                responses[index] = TransactionUse.BatchResponse.failed(request, e.getErrorCode());
+            }
+        }
+    }
+
+    // ENGINE 모드는 항목마다 계좌 worker 에 요청, 트랜잭션은 journal 이 묶어서 커밋
+    private void processEngine(AccountEngine engine, String accountNumber, List<Integer> indexes,
+                               List<TransactionUse.Request> requests,
+                               TransactionUse.BatchResponse[] responses) {
+        for (Integer index : indexes) {
+            TransactionUse.Request request = requests.get(index);
+            try {
+                responses[index] = TransactionUse.BatchResponse.from(engine.transactUse(
+                        accountNumber, request.getUserId(), request.getAmount()));
+            } catch (TransactionTimeoutException e) {
+                // 결과를 모르므로 실패로 기록하지 않음 (나중에 반영될 수 있음)
+                responses[index] = TransactionUse.BatchResponse.failed(request, e.getErrorCode());
+            } catch (AccountException e) {
+                failedTransactionRecorder.record(accountNumber, request.getAmount(), USE, e.getErrorCode());
+                responses[index] = TransactionUse.BatchResponse.failed(request, e.getErrorCode());
+            }
+        }
+    }
+
+    private void processChunks(String accountNumber, List<Integer> indexes,
+                               List<TransactionUse.Request> requests,
+                               TransactionUse.BatchResponse[] responses) {
+        for (int from = 0; from < indexes.size(); from += chunkSize) {
+            List<Integer> chunk = indexes.subList(from, Math.min(from + chunkSize, indexes.size()));
+            List<TransactionUse.Request> chunkRequests = new ArrayList<>(chunk.size());
+            chunk.forEach(index -> chunkRequests.add(requests.get(index)));
+
+            List<TransactionUse.BatchResponse> chunkResponses = commitChunk(accountNumber, chunkRequests);
+            for (int i = 0; i < chunk.size(); i++) {
+                responses[chunk.get(i)] = chunkResponses.get(i);
+            }
+        }
+    }
+
+    private List<TransactionUse.BatchResponse> commitChunk(String accountNumber,
+                                                           List<TransactionUse.Request> chunkRequests) {
+        if (transactionMode != TransactionMode.OPTIMISTIC) {
+            return transactionInfoService.transactUseAll(accountNumber, chunkRequests);
+        }
+        // version 충돌이면 chunk 트랜잭션 전체를 다시 실행
+        try {
+            return optimisticRetry.execute(accountNumber,
+                    () -> transactionInfoService.transactUseAll(accountNumber, chunkRequests));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new CompletionException(t);
+        }
+    }
+
+    // 커밋된 chunk 는 그대로 두고 아직 결과가 없는 항목만 실패 처리
+    private void failRemaining(List<Integer> indexes, List<TransactionUse.Request> requests,
+                               TransactionUse.BatchResponse[] responses, ErrorCode errorCode) {
+        for (Integer index : indexes) {
+            if (responses[index] == null) {
+                responses[index] = TransactionUse.BatchResponse.failed(requests.get(index), errorCode);
+            }
+        }
+    }
+}
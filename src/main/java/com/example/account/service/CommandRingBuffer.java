@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * producer 여럿, consumer 하나인 고정 크기 ring buffer
+ * - slot 은 미리 만들어 두고 재사용해서 명령마다 객체를 만들지 않는다.
+ * - producer 는 빈 slot 이 있을 때만 순번을 CAS 로 가져간다. 가득 차면 기다리지 않고 false 를 돌려준다.
+ * - consumer 는 순번대로 published 된 slot 만 처리하고 비운다.
+ */
+final class CommandRingBuffer {
+    private final EngineCommand[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed; // consumer 만 씀
+
+    CommandRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new EngineCommand[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new EngineCommand();
+        }
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @param writer 가져간 slot 에 명령을 채움
+     * @return 가득 차서 넣지 못하면 false
+     */
+    boolean tryPublish(Consumer<EngineCommand> writer) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                return false;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        EngineCommand command = slots[(int) (sequence & mask)];
+        writer.accept(command);
+        command.published = sequence;
+        return true;
+    }
+
+    /**
+     * published 된 명령을 최대 limit 개까지 순서대로 처리
+     * @return 처리한 개수
+     */
+    int poll(Consumer<EngineCommand> handler, int limit) {
+        long next = consumed;
+        int handled = 0;
+        while (handled < limit) {
+            EngineCommand command = slots[(int) (next & mask)];
+            if (command.published != next) {
+                break;
+            }
+            try {
+                handler.accept(command);
+            } finally {
+                command.clear();
+                consumed = ++next;
+            }
+            handled++;
+        }
+        return handled;
+    }
+
+    boolean isEmpty() {
+        return claimed.get() == consumed;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.type.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Account row 에 SELECT ... FOR UPDATE 를 거는 lock
+ * lock 시점에 트랜잭션을 시작하고 unlock 시점에 커밋하므로,
+ * 그 사이에 호출되는 서비스의 트랜잭션은 이 트랜잭션에 참여해서 같은 row lock 안에서 실행된다.
+ * 실패 거래 저장처럼 롤백되면 안 되는 작업은 별도 트랜잭션(REQUIRES_NEW)으로 실행해야 한다.
+ * 대기시간은 repository 의 lock timeout(1초)을 사용하고, lease 는 트랜잭션 종료로 대신한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "database")
+public class DatabaseAccountLockService implements AccountLockProvider {
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ThreadLocal<Map<String, TransactionStatus>> lockTransactions =
+            ThreadLocal.withInitial(HashMap::new);
+
+    @Override
+    public void lock(String accountNumber, LockTimeouts timeouts) {
+        log.debug("Trying row lock for accountNumber :{}", accountNumber);
+        TransactionStatus status = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            // 계좌가 없는 경우는 서비스에서 ACCOUNT_NOT_FOUND 로 처리
+            accountRepository.findForUpdateByAccountNumber(accountNumber);
+        } catch (PessimisticLockingFailureException e) {
+            transactionManager.rollback(status);
+            log.error("Lock acquisition failed");
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        lockTransactions.get().put(accountNumber, status);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock row lock for accountNumber :{}", accountNumber);
+        TransactionStatus status = lockTransactions.get().remove(accountNumber);
+        if (status == null) {
+            return;
+        }
+
+        if (status.isRollbackOnly()) {
+            transactionManager.rollback(status);
+        } else {
+            transactionManager.commit(status);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEntry;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ring buffer slot, AccountEngine 이 미리 만들어 두고 재사용한다.
+ * producer 가 값을 채운 뒤 published 에 순번을 쓰면 worker 가 읽을 수 있다.
+ */
+final class EngineCommand {
+    enum Type {
+        USE, CANCEL, BALANCE, CLOSE, PRUNE
+    }
+
+    volatile long published = -1;
+
+    Type type;
+    String accountNumber;
+    Long userId;
+    Long amount;
+    long transactionId; // 새 거래 아이디
+    long canceledTransactionId; // CANCEL 대상 사용 거래
+    long epochMillis;
+    List<BalanceEntry> journaled; // PRUNE 대상
+    CompletableFuture<Object> result;
+
+    void clear() {
+        type = null;
+        accountNumber = null;
+        userId = null;
+        amount = null;
+        journaled = null;
+        result = null;
+    }
+}
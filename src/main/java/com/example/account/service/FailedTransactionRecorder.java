@@ -0,0 +1,219 @@
+package com.example.account.service;
+
+import com.example.account.domain.FailedTransactionCount;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.repository.FailedTransactionCountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureRecordingMode;
+import com.example.account.type.TransactionType;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/**
+ * 실패 거래 기록
+ * 거래 API 가 실패할 때마다 별도 트랜잭션을 열지 않도록, 계좌 lock 을 잡은 요청 쓰레드에서는 큐에 넣기만 한다.
+ * - ASYNC: writer 가 큐를 batch-size 건씩 꺼내 한 트랜잭션으로 저장한다.
+ *   큐가 가득 차면 요청 쓰레드에서 바로 저장한다. (실패 거래를 버리지 않고 요청 속도를 늦춤)
+ * - AGGREGATE: (계좌, 거래 종류, 오류, 분) 별 건수와 금액만 메모리에 모았다가 분이 끝나면 저장한다.
+ * - SYNC: 기존처럼 실패마다 바로 저장한다.
+ * 종료할 때는 남은 큐와 집계를 모두 저장한다.
+ */
+@Slf4j
+@Service
+public class FailedTransactionRecorder {
+    private final TransactionInfoService transactionInfoService;
+    private final FailedTransactionCountRepository failedTransactionCountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final FailureRecordingMode mode;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+
+    private final BlockingQueue<FailedTransaction> queue;
+    private final ConcurrentHashMap<CountKey, Count> counts = new ConcurrentHashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "failed-transaction-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    public FailedTransactionRecorder(TransactionInfoService transactionInfoService,
+                                     FailedTransactionCountRepository failedTransactionCountRepository,
+                                     TransactionIdGenerator transactionIdGenerator,
+                                     @Value("${account.failure-recording.mode:ASYNC}") FailureRecordingMode mode,
+                                     @Value("${account.failure-recording.queue-capacity:10000}") int queueCapacity,
+                                     @Value("${account.failure-recording.batch-size:500}") int batchSize,
+                                     @Value("${account.failure-recording.flush-interval-millis:200}")
+                                     long flushIntervalMillis) {
+        this.transactionInfoService = transactionInfoService;
+        this.failedTransactionCountRepository = failedTransactionCountRepository;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.mode = mode;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (mode == FailureRecordingMode.SYNC) {
+            return;
+        }
+        running = true;
+        writer.execute(this::writeLoop);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.shutdown();
+        writer.awaitTermination(flushIntervalMillis * 10, TimeUnit.MILLISECONDS);
+        while (drain() > 0) {
+            // 남은 큐 저장
+        }
+        flushCounts(true);
+    }
+
+    public void record(String accountNumber, Long amount, TransactionType type, ErrorCode errorCode) {
+        switch (mode) {
+            case SYNC:
+                transactionInfoService.saveFailedTransaction(accountNumber, amount, type);
+                return;
+            case AGGREGATE:
+                LocalDateTime minute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+                // 값은 compute 안에서만 바꾸므로 flush 가 remove 한 뒤에는 더 바뀌지 않는다
+                counts.compute(new CountKey(accountNumber, type, errorCode, minute),
+                        (key, count) -> (count == null ? new Count() : count).add(amount));
+                return;
+            default:
+                FailedTransaction failedTransaction = FailedTransaction.builder()
+                        .transactionId(transactionIdGenerator.nextId())
+                        .accountNumber(accountNumber)
+                        .amount(amount)
+                        .transactionType(type)
+                        .errorCode(errorCode)
+                        .transactedAt(LocalDateTime.now())
+                        .build();
+                if (!queue.offer(failedTransaction)) {
+                    log.warn("Failed transaction queue is full, saving synchronously. accountNumber :{}",
+                            accountNumber);
+                    transactionInfoService.saveFailedTransactionsNow(List.of(failedTransaction));
+                }
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                FailedTransaction first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    List<FailedTransaction> batch = new ArrayList<>(batchSize);
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    write(batch);
+                }
+                flushCounts(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Failed transaction writer failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return 저장한 실패 거래 개수
+     */
+    int drain() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        queue.drainTo(batch, batchSize);
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+        return batch.size();
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            transactionInfoService.saveFailedTransactions(batch);
+        } catch (RuntimeException e) {
+            log.error("Failed to save failed transactions. count :{}", batch.size(), e);
+        }
+    }
+
+    /**
+     * @param all false 이면 이미 끝난 분의 집계만 저장
+     */
+    void flushCounts(boolean all) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        LocalDateTime currentMinute = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        List<FailedTransactionCount> closed = new ArrayList<>();
+        for (CountKey key : counts.keySet()) {
+            if (!all && !key.minute.isBefore(currentMinute)) {
+                continue;
+            }
+            Count count = counts.remove(key);
+            if (count != null) {
+                closed.add(FailedTransactionCount.builder()
+                        .accountNumber(key.accountNumber)
+                        .transactionType(key.transactionType)
+                        .errorCode(key.errorCode)
+                        .minute(key.minute)
+                        .failureCount(count.failures)
+                        .totalAmount(count.amount)
+                        .build());
+            }
+        }
+        if (closed.isEmpty()) {
+            return;
+        }
+        try {
+            failedTransactionCountRepository.saveAll(closed);
+        } catch (RuntimeException e) {
+            log.error("Failed to save failed transaction counts. rows :{}", closed.size(), e);
+        }
+    }
+
+    Map<CountKey, Count> getCounts() {
+        return counts;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    static class CountKey {
+        private final String accountNumber;
+        private final TransactionType transactionType;
+        private final ErrorCode errorCode;
+        private final LocalDateTime minute;
+    }
+
+    static class Count {
+        private long failures;
+        private long amount;
+
+        private Count add(Long amount) {
+            failures++;
+            this.amount += amount == null ? 0 : amount;
+            return this;
+        }
+
+        long getFailures() {
+            return failures;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 로컬 파일에 이벤트를 한 줄씩 JSON 으로 추가 (JSON lines)
+ * 묶음 단위로 쓰고 force 한 뒤에 반환하므로 반환 후 outbox 에서 지워도 유실되지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+    private final FileChannel channel;
+
+    public FileOutboxSink(ObjectMapper objectMapper,
+                          @Value("${account.outbox.file.path:outbox/transaction-events.log}") String path)
+            throws IOException {
+        this.objectMapper = objectMapper;
+        Path file = Paths.get(path);
+        if (file.getParent() != null) {
+            file.getParent().toFile().mkdirs();
+        }
+        this.channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public synchronized void publish(List<TransactionEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (TransactionEvent event : events) {
+            lines.append(toJson(event)).append('\n');
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.error("Outbox file write failed", e);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String toJson(TransactionEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
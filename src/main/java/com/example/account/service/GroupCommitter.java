@@ -0,0 +1,212 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionOutcome;
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * 사용 거래 group commit (account.group-commit.enabled=true, LOCK 모드)
+ * 요청 쓰레드는 계좌 lock 을 잡은 채 큐에 넣고 기다리고, committer 가 window 동안 (또는 max-items 까지) 모인
+ * 다른 계좌의 요청을 한 트랜잭션, 한 번의 flush 로 처리한 뒤 각 요청에 결과를 돌려준다.
+ * - 항목의 검증 실패는 그 요청에만 오류로 전달된다.
+ * - 트랜잭션 전체가 실패하면 (flush, commit 오류) 모은 요청을 하나씩 따로 다시 처리한다.
+ * - 큐가 가득 차거나 종료 중이면 요청 쓰레드에서 바로 처리한다.
+ * - commit-timeout 안에 시작되지 않은 요청은 큐에서 빼서 요청 쓰레드에서 처리하고,
+ *   이미 커밋 중인 요청은 커밋이 끝날 때까지 기다린다. (먼저 응답하면 lock 을 풀고 실패로 기록한 뒤 반영될 수 있음)
+ * redis, local lock 은 트랜잭션을 열기 전에 기다리므로 기다리는 동안 DB connection 을 잡지 않는다.
+ * database lock 은 요청 쓰레드의 트랜잭션이 계좌 행 lock 을 잡고 있어 committer 가 같은 행을 바꾸지 못하므로 쓰지 않는다.
+ */
+@Slf4j
+@Service
+public class GroupCommitter {
+    private final TransactionInfoService transactionInfoService;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxItems;
+    private final int committers;
+    private final long commitTimeoutMillis;
+
+    private final BlockingQueue<Item> queue;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running;
+
+    public GroupCommitter(TransactionInfoService transactionInfoService,
+                          AccountLockProvider accountLockProvider,
+                          @Value("${account.group-commit.enabled:false}") boolean enabled,
+                          @Value("${account.transaction.mode:LOCK}") TransactionMode transactionMode,
+                          @Value("${account.group-commit.window-micros:2000}") long windowMicros,
+                          @Value("${account.group-commit.max-items:64}") int maxItems,
+                          @Value("${account.group-commit.committers:2}") int committers,
+                          @Value("${account.group-commit.queue-capacity:10000}") int queueCapacity,
+                          @Value("${account.group-commit.commit-timeout-millis:5000}") long commitTimeoutMillis) {
+        this.transactionInfoService = transactionInfoService;
+        // 다른 모드는 조건부 UPDATE, 재시도, 원장 조회가 항목마다 있어 묶어도 flush 를 줄이지 못함
+        boolean databaseLock = accountLockProvider instanceof DatabaseAccountLockService;
+        if (enabled && databaseLock) {
+            log.warn("Group commit is disabled with the database lock provider");
+        }
+        this.enabled = enabled && transactionMode == TransactionMode.LOCK && !databaseLock;
+        this.commitTimeoutMillis = commitTimeoutMillis;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxItems = maxItems;
+        this.committers = committers;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < committers; i++) {
+            Thread thread = new Thread(this::commitLoop, "group-committer-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    // 남은 요청을 모두 처리한 뒤 멈춤
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public TransactionDto transactUse(String accountNumber, Long userId, Long amount) {
+        if (!running) {
+            return transactionInfoService.transactUse(accountNumber, userId, amount);
+        }
+        Item item = new Item(new TransactionUse.Request(userId, accountNumber, amount));
+        if (!queue.offer(item)) {
+            log.warn("Group commit queue is full, committing alone. accountNumber :{}", accountNumber);
+            return transactionInfoService.transactUse(accountNumber, userId, amount);
+        }
+        // 넣는 사이에 종료되어 committer 가 가져가지 않을 요청
+        if (!running && queue.remove(item)) {
+            return transactionInfoService.transactUse(accountNumber, userId, amount);
+        }
+        try {
+            try {
+                return item.result.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (queue.remove(item)) {
+                    log.warn("Group commit did not start in time, committing alone. accountNumber :{}", accountNumber);
+                    return transactionInfoService.transactUse(accountNumber, userId, amount);
+                }
+                // committer 가 가져간 요청은 항상 결과가 채워지므로 (commitLoop finally) 끝까지 기다림
+                log.warn("Group commit is slow, waiting for it. accountNumber :{}", accountNumber);
+                return item.result.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private void commitLoop() {
+        List<Item> group = new ArrayList<>(maxItems);
+        while (running || !queue.isEmpty()) {
+            try {
+                Item first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                collect(group, System.nanoTime() + windowNanos);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                // 예상하지 못한 오류로 끝나도 모은 요청이 기다리지 않게
+                group.forEach(item -> item.result.completeExceptionally(
+                        new AccountException(ErrorCode.INTERNAL_SERVER_ERROR)));
+                group.clear();
+            }
+        }
+    }
+
+    // window 가 끝나거나 max-items 가 찰 때까지 모음
+    private void collect(List<Item> group, long deadline) throws InterruptedException {
+        while (group.size() < maxItems) {
+            queue.drainTo(group, maxItems - group.size());
+            long remaining = deadline - System.nanoTime();
+            if (group.size() >= maxItems || remaining <= 0) {
+                return;
+            }
+            Item next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    void commit(List<Item> group) {
+        List<TransactionUse.Request> requests = new ArrayList<>(group.size());
+        group.forEach(item -> requests.add(item.request));
+
+        List<TransactionOutcome> outcomes;
+        try {
+            outcomes = transactionInfoService.transactUseGroup(requests);
+        } catch (RuntimeException e) {
+            log.warn("Group commit failed, committing one by one. items :{}", group.size(), e);
+            group.forEach(this::commitAlone);
+            return;
+        }
+        for (int i = 0; i < group.size(); i++) {
+            TransactionOutcome outcome = outcomes.get(i);
+            if (outcome.getError() != null) {
+                group.get(i).result.completeExceptionally(outcome.getError());
+            } else {
+                group.get(i).result.complete(outcome.getTransaction());
+            }
+        }
+    }
+
+    private void commitAlone(Item item) {
+        try {
+            item.result.complete(transactionInfoService.transactUse(
+                    item.request.getAccountNumber(), item.request.getUserId(), item.request.getAmount()));
+        } catch (AccountException e) {
+            item.result.completeExceptionally(e);
+        } catch (RuntimeException e) {
+            log.error("Commit failed. accountNumber :{}", item.request.getAccountNumber(), e);
+            item.result.completeExceptionally(e);
+        }
+    }
+
+    static class Item {
+        private final TransactionUse.Request request;
+        private final CompletableFuture<TransactionDto> result = new CompletableFuture<>();
+
+        Item(TransactionUse.Request request) {
+            this.request = request;
+        }
+
+        CompletableFuture<TransactionDto> getResult() {
+            return result;
+        }
+    }
+}
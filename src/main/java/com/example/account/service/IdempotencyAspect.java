@@ -0,0 +1,47 @@
+package com.example.account.service;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * @Idempotent 요청에 Idempotency-Key 헤더가 있으면 IdempotencyService 로 실행
+ * 재요청이 계좌 lock 을 다시 잡지 않도록 LockAopAspect 보다 바깥에서 실행한다.
+ */
+@Aspect
+@Component
+@Order(IdempotencyAspect.ORDER)
+@RequiredArgsConstructor
+public class IdempotencyAspect {
+    public static final int ORDER = 10;
+    public static final String HEADER = "Idempotency-Key";
+
+    private final IdempotencyService idempotencyService;
+
+    @Around("@annotation(Idempotent) && args(request)")
+    public Object idempotent(ProceedingJoinPoint pjp, Object request) throws Throwable {
+        String idempotencyKey = getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return pjp.proceed();
+        }
+
+        MethodSignature signature = (MethodSignature) pjp.getSignature();
+        return idempotencyService.execute(signature.getName(), idempotencyKey, request,
+                signature.getReturnType(), pjp::proceed);
+    }
+
+    private String getIdempotencyKey() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return ((ServletRequestAttributes) attributes).getRequest().getHeader(HEADER);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.type.ErrorCode;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Idempotency-Key 처리
+ * 1. 키를 IN_PROGRESS 로 선점한 요청만 실제로 실행하고, 결과(응답 또는 거래 오류)를 키에 저장한다.
+ * 2. 같은 키의 재요청은 저장된 결과를 그대로 돌려준다. (계좌 lock, DB 를 거치지 않음)
+ * 3. 처리 중인 키로 들어온 요청은 먼저 들어온 요청이 끝날 때까지 기다린다.
+ * CURRENT_UNDER_TRANSACTION 이나 예상하지 못한 오류는 다시 시도할 수 있도록 키를 지운다.
+ * TRANSACTION_TIMEOUT 은 결과를 모르는 상태이므로 키를 IN_PROGRESS 로 두고, 거래가 끝나면 실제 결과를 저장한다.
+ * IN_PROGRESS 만료시간은 lock 대기와 거래 처리 시간보다 길어야 한다. (만료되면 다른 재요청이 실행될 수 있음)
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long MAX_POLL_MILLIS = 100;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+    private final long inProgressTtlMillis;
+    private final long completedTtlMillis;
+    private final long waitMillis;
+
+    public IdempotencyService(IdempotencyStore idempotencyStore,
+                              ObjectMapper objectMapper,
+                              @Value("${account.idempotency.in-progress-ttl-millis:30000}") long inProgressTtlMillis,
+                              @Value("${account.idempotency.completed-ttl-millis:86400000}") long completedTtlMillis,
+                              @Value("${account.idempotency.wait-millis:5000}") long waitMillis) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+        this.inProgressTtlMillis = inProgressTtlMillis;
+        this.completedTtlMillis = completedTtlMillis;
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * @param scope 키를 나누는 단위 (endpoint)
+     * @param request 같은 키로 다른 요청을 보냈는지 비교하는 대상
+     */
+    public Object execute(String scope, String idempotencyKey, Object request,
+                          Class<?> responseType, Execution execution) throws Throwable {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new AccountException(ErrorCode.ARGUMENT_NOT_VALID);
+        }
+        String key = scope + ":" + idempotencyKey;
+        String fingerprint = DigestUtils.md5DigestAsHex(write(request).getBytes(StandardCharsets.UTF_8));
+
+        long deadline = System.currentTimeMillis() + waitMillis;
+        long pollMillis = 5;
+        while (true) {
+            if (idempotencyStore.putIfAbsent(key, write(Record.inProgress(fingerprint)), inProgressTtlMillis)) {
+                return executeAndRecord(key, fingerprint, execution);
+            }
+
+            String stored = idempotencyStore.get(key);
+            if (stored != null) {
+                Record record = objectMapper.readValue(stored, Record.class);
+                if (!fingerprint.equals(record.getFingerprint())) {
+                    throw new AccountException(ErrorCode.IDEMPOTENCY_KEY_REUSED);
+                }
+                if (record.getStatus() == Record.Status.COMPLETED) {
+                    return objectMapper.readValue(record.getResponse(), responseType);
+                }
+                if (record.getStatus() == Record.Status.FAILED) {
+                    throw new AccountException(record.getErrorCode());
+                }
+            }
+
+            // 먼저 들어온 같은 요청이 처리 중, 결과가 저장되거나 키가 지워질 때까지 대기
+            if (System.currentTimeMillis() >= deadline) {
+                log.error("Idempotent request still in progress. key :{}", key);
+                throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+            }
+            sleep(pollMillis);
+            pollMillis = Math.min(pollMillis * 2, MAX_POLL_MILLIS);
+        }
+    }
+
+    private Object executeAndRecord(String key, String fingerprint, Execution execution) throws Throwable {
+        Object response;
+        try {
+            response = execution.proceed();
+        } catch (TransactionTimeoutException e) {
+            // 재요청은 키가 IN_PROGRESS 인 동안 기다리고, 거래가 끝나면 저장된 결과를 받음
+            e.getOutcome().whenCompleteAsync((value, error) -> {
+                if (error == null) {
+                    record(key, Record.completed(fingerprint, write(value)));
+                } else {
+                    recordFailure(key, fingerprint, error instanceof CompletionException ? error.getCause() : error);
+                }
+            });
+            throw e;
+        } catch (Throwable t) {
+            recordFailure(key, fingerprint, t);
+            throw t;
+        }
+
+        record(key, Record.completed(fingerprint, write(response)));
+        return response;
+    }
+
+    private void recordFailure(String key, String fingerprint, Throwable t) {
+        if (!(t instanceof AccountException)) {
+            idempotencyStore.remove(key);
+            return;
+        }
+        ErrorCode errorCode = ((AccountException) t).getErrorCode();
+        if (errorCode == ErrorCode.CURRENT_UNDER_TRANSACTION) {
+            idempotencyStore.remove(key);
+        } else if (errorCode != ErrorCode.TRANSACTION_TIMEOUT) {
+            // 결과를 기다릴 수 없는 TRANSACTION_TIMEOUT 은 IN_PROGRESS 만료까지 그대로 둠
+            record(key, Record.failed(fingerprint, errorCode));
+        }
+    }
+
+    // 거래는 이미 커밋되었으므로 기록에 실패해도 응답은 그대로 돌려준다
+    private void record(String key, Record record) {
+        try {
+            idempotencyStore.put(key, write(record), completedTtlMillis);
+        } catch (RuntimeException e) {
+            log.error("Failed to record idempotent result. key :{}", key, e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+    }
+
+    public interface Execution {
+        Object proceed() throws Throwable;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    static class Record {
+        enum Status {
+            IN_PROGRESS, COMPLETED, FAILED
+        }
+
+        private Status status;
+        private String fingerprint;
+        private String response; // COMPLETED 응답 JSON
+        private ErrorCode errorCode; // FAILED 거래 오류
+
+        static Record inProgress(String fingerprint) {
+            return new Record(Status.IN_PROGRESS, fingerprint, null, null);
+        }
+
+        static Record completed(String fingerprint, String response) {
+            return new Record(Status.COMPLETED, fingerprint, response, null);
+        }
+
+        static Record failed(String fingerprint, ErrorCode errorCode) {
+            return new Record(Status.FAILED, fingerprint, null, errorCode);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.service;
+
+/**
+ * Idempotency-Key 별 처리 기록 저장소, 값은 만료시간이 지나면 사라진다.
+ * - redis : 노드 간 공유 (account.redis.enabled=true, 기본값)
+ * - local : 단일 노드용 JVM 내부 map
+ */
+public interface IdempotencyStore {
+    /**
+     * @return 키가 없어서 저장했으면 true
+     */
+    boolean putIfAbsent(String key, String value, long ttlMillis);
+
+    String get(String key);
+
+    void put(String key, String value, long ttlMillis);
+
+    void remove(String key);
+}
@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.TransactionInquiry;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionIdCodec;
+import com.example.account.type.TransactionMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * 조회 전용 경로
+ * 엔티티를 거치지 않고 repository 의 projection 으로 응답 객체를 바로 만든다.
+ * readOnly 트랜잭션이라 flush 와 변경감지 스냅샷이 없다. (javax Transactional 에는 readOnly 가 없어 spring 것을 사용)
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class InquiryService {
+    private final AccountUserRepository accountUserRepository;
+    private final AccountRepository accountRepository;
+    private final TransactionInfoRepository transactionInfoRepository;
+    private final LedgerService ledgerService;
+    private final RedisBalanceService redisBalanceService;
+    private final ObjectProvider<AccountEngine> accountEngine;
+
+    @Value("${account.transaction.mode:LOCK}")
+    private TransactionMode transactionMode = TransactionMode.LOCK;
+
+    /**
+     * 사용자가 없는 경우 실패
+     * userId와 일치하는 계좌 조회
+     */
+    public List<AccountInfo> inquireAccounts(Long userId) {
+        if (!accountUserRepository.existsById(userId)) {
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        List<AccountInfo> accountInfos = accountRepository.findAccountInfosByUserId(userId);
+        if (transactionMode == TransactionMode.LEDGER) {
+            // 잔액 컬럼은 원장 시작 시점 잔액이므로 checkpoint + 이후 거래로 대체
+            accountInfos.forEach(accountInfo -> accountInfo.setBalance(ledgerService.balanceOf(
+                    accountInfo.getAccountNumber(), accountInfo.getBalance())));
+        }
+        // redis 잔액 계좌는 redis 의 잔액이 기준 (DB 는 write-behind 가 반영된 시점의 값)
+        accountInfos.forEach(accountInfo -> redisBalanceService.balanceOf(accountInfo.getAccountNumber())
+                .ifPresent(accountInfo::setBalance));
+        if (transactionMode == TransactionMode.ENGINE) {
+            // 메모리에 올라온 계좌는 engine 잔액이 기준 (DB 는 journal 이 반영된 시점의 값)
+            AccountEngine engine = accountEngine.getObject();
+            accountInfos.forEach(accountInfo -> engine.currentBalance(accountInfo.getAccountNumber())
+                    .ifPresent(accountInfo::setBalance));
+        }
+        return accountInfos;
+    }
+
+    /**
+     * 해당 거래 아이디가 없는 경우
+     * 실패한 거래도 확인 가능해야 함
+     */
+    public TransactionInquiry inquireTransaction(String transactionId) {
+        return transactionInfoRepository.findInquiryByTransactionId(TransactionIdCodec.parse(transactionId))
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.account.service;
+
+import com.example.account.config.ConditionalOnTransactionMode;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.type.TransactionMode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * LEDGER 모드 checkpoint 작성
+ * 주기적으로 계좌별 최신 checkpoint 이후의 거래를 접어 새 checkpoint 를 만든다.
+ * 커밋이 늦게 보이는 거래(다른 노드, 긴 트랜잭션)를 빠뜨리지 않도록 settle-lag 이전 거래까지만 접는다.
+ * settle-lag 은 트랜잭션 길이와 노드 간 시계 차이보다 커야 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnTransactionMode(TransactionMode.LEDGER)
+public class LedgerCompactor {
+    private static final int PAGE_SIZE = 500;
+
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final LedgerService ledgerService;
+    private final long settleLagMillis;
+
+    public LedgerCompactor(BalanceCheckpointRepository balanceCheckpointRepository,
+                           LedgerService ledgerService,
+                           @Value("${account.ledger.settle-lag-millis:10000}") long settleLagMillis) {
+        this.balanceCheckpointRepository = balanceCheckpointRepository;
+        this.ledgerService = ledgerService;
+        this.settleLagMillis = settleLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${account.ledger.compact-interval-millis:60000}")
+    public void compact() {
+        LocalDateTime settledUntil = LocalDateTime.now().minus(Duration.ofMillis(settleLagMillis));
+        int compacted = 0;
+
+        // 접으면서 새 checkpoint 가 추가되므로 바뀌지 않는 계좌 id 순으로 넘긴다
+        Pageable pageable = PageRequest.of(0, PAGE_SIZE, Sort.by("account.id"));
+        Slice<BalanceCheckpoint> latest;
+        do {
+            latest = balanceCheckpointRepository.findLatestPerAccount(pageable);
+            for (BalanceCheckpoint checkpoint : latest) {
+                try {
+                    if (ledgerService.compact(checkpoint, settledUntil)) {
+                        compacted++;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Ledger compaction failed. accountNumber :{}",
+                            checkpoint.getAccount().getAccountNumber(), e);
+                }
+            }
+            pageable = latest.nextPageable();
+        } while (latest.hasNext());
+
+        log.info("Ledger compaction done. settledUntil :{}, compacted accounts :{}", settledUntil, compacted);
+    }
+}
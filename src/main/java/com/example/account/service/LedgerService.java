@@ -0,0 +1,81 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * LEDGER 모드 잔액 계산
+ * 현재 잔액 = 최신 checkpoint 잔액 + checkpoint 이후 거래 변화량
+ * checkpoint 가 없는 계좌는 아직 원장에 쓴 적이 없으므로 잔액 컬럼이 곧 현재 잔액이다.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+    private final BalanceCheckpointRepository balanceCheckpointRepository;
+    private final TransactionInfoRepository transactionInfoRepository;
+
+    @Transactional
+    public long balanceOf(String accountNumber, long columnBalance) {
+        return balanceCheckpointRepository.findFirstByAccountAccountNumberOrderBySettledUntilDesc(accountNumber)
+                .map(checkpoint -> checkpoint.getBalance() + nullToZero(
+                        transactionInfoRepository.sumLedgerDeltaAfter(accountNumber, checkpoint.getSettledUntil())))
+                .orElse(columnBalance);
+    }
+
+    /**
+     * 원장에 거래를 추가하기 전에 호출 (계좌 lock 안에서)
+     * 첫 사용이면 잔액 컬럼과 지금까지의 마지막 거래 시각으로 시작 checkpoint 를 만든다.
+     */
+    @Transactional
+    public long openBalance(Account account) {
+        String accountNumber = account.getAccountNumber();
+        if (balanceCheckpointRepository.findFirstByAccountAccountNumberOrderBySettledUntilDesc(accountNumber)
+                .isPresent()) {
+            return balanceOf(accountNumber, account.getBalance());
+        }
+
+        LocalDateTime settledUntil = transactionInfoRepository.findLastTransactedAt(accountNumber)
+                .orElseGet(() -> LocalDateTime.now().minusSeconds(1));
+        balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+                .account(account)
+                .balance(account.getBalance())
+                .settledUntil(settledUntil)
+                .build());
+        return account.getBalance();
+    }
+
+    /**
+     * latest 이후 settledUntil 까지의 거래를 접어서 새 checkpoint 저장
+     * @return 접을 거래가 없으면 false
+     */
+    @Transactional
+    public boolean compact(BalanceCheckpoint latest, LocalDateTime settledUntil) {
+        if (!settledUntil.isAfter(latest.getSettledUntil())) {
+            return false;
+        }
+        Long delta = transactionInfoRepository.sumLedgerDeltaBetween(
+                latest.getAccount().getAccountNumber(), latest.getSettledUntil(), settledUntil);
+        if (delta == null) {
+            return false;
+        }
+
+        balanceCheckpointRepository.save(BalanceCheckpoint.builder()
+                .account(latest.getAccount())
+                .balance(latest.getBalance() + delta)
+                .settledUntil(settledUntil)
+                .build());
+        return true;
+    }
+
+    private long nullToZero(Long value) {
+        return Optional.ofNullable(value).orElse(0L);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 단일 노드 배포와 테스트용 JVM 내부 lock
+ * 계좌번호 해시로 고정 개수의 lock 중 하나를 골라 사용한다. (다른 계좌가 같은 stripe 를 공유할 수 있음)
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.lock.provider", havingValue = "local")
+public class LocalAccountLockService implements AccountLockProvider {
+    private static final int STRIPE_COUNT = 1024;
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPE_COUNT];
+
+    public LocalAccountLockService() {
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    @Override
+    public void lock(String accountNumber, LockTimeouts timeouts) {
+        log.debug("Trying local lock for accountNumber :{}", accountNumber);
+        try {
+            if (!getStripe(accountNumber).tryLock(timeouts.getWaitMillis(), TimeUnit.MILLISECONDS)) {
+                log.error("Lock acquisition failed");
+                throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock local lock for accountNumber :{}", accountNumber);
+        ReentrantLock stripe = getStripe(accountNumber);
+        if (stripe.isHeldByCurrentThread()) {
+            stripe.unlock();
+        }
+    }
+
+    private ReentrantLock getStripe(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        hash ^= (hash >>> 16); // 하위 비트에 상위 비트를 섞어서 분산
+        return stripes[(hash & Integer.MAX_VALUE) % STRIPE_COUNT];
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.account.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 단일 노드 배포와 테스트용 JVM 내부 저장소
+ * 만료된 항목은 조회할 때 무시하고, 일정 횟수 저장할 때마다 한 번씩 정리한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.redis.enabled", havingValue = "false")
+public class LocalIdempotencyStore implements IdempotencyStore {
+    private static final int SWEEP_INTERVAL = 1024;
+
+    private final ConcurrentHashMap<String, Entry> records = new ConcurrentHashMap<>();
+    private final AtomicInteger writes = new AtomicInteger();
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttlMillis) {
+        sweepIfNeeded();
+        Entry created = new Entry(value, System.currentTimeMillis() + ttlMillis);
+        Entry current = records.compute(key, (k, entry) -> entry == null || entry.isExpired() ? created : entry);
+        return current == created;
+    }
+
+    @Override
+    public String get(String key) {
+        Entry entry = records.get(key);
+        return entry == null || entry.isExpired() ? null : entry.value;
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        sweepIfNeeded();
+        records.put(key, new Entry(value, System.currentTimeMillis() + ttlMillis));
+    }
+
+    @Override
+    public void remove(String key) {
+        records.remove(key);
+    }
+
+    private void sweepIfNeeded() {
+        if (writes.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            records.values().removeIf(Entry::isExpired);
+        }
+    }
+
+    private static class Entry {
+        private final String value;
+        private final long expiresAtMillis;
+
+        private Entry(String value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAtMillis;
+        }
+    }
+}
@@ -1,30 +1,79 @@
 package com.example.account.service;
 
 import com.example.account.aop.AccountLockIdInterface;
-import com.example.account.service.AccountLockService;
+import com.example.account.exception.AccountException;
+import com.example.account.metric.LockMetrics;
+import com.example.account.type.TransactionMode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 @Slf4j
 @Aspect
 @Component
+@Order(LockAopAspect.ORDER) // IdempotencyAspect 안쪽
 @RequiredArgsConstructor
 public class LockAopAspect {
-    private final AccountLockService accountLockService;
+    public static final int ORDER = 20;
+
+    private final AccountLockProvider accountLockProvider;
+    private final AccountSerialExecutor accountSerialExecutor;
+    private final AdaptiveLockTimeouts adaptiveLockTimeouts;
+    private final LockMetrics lockMetrics;
+    private final OptimisticRetry optimisticRetry;
+    private final RedisBalanceService redisBalanceService;
+
+    // true 이면 같은 계좌의 요청을 계좌별 큐에 넣어 순서대로 실행
+    @Value("${account.queue.enabled:false}")
+    private boolean queueEnabled;
+
+    // ATOMIC 은 조건부 UPDATE, OPTIMISTIC 은 version 충돌 재시도로 정합성을 보장하므로 lock 을 잡지 않음
+    @Value("${account.transaction.mode:LOCK}")
+    private TransactionMode transactionMode = TransactionMode.LOCK;
 
     @Around("@annotation(AccountLock) && args(request)")
     public Object lockTransaction(ProceedingJoinPoint pjp,
                                   AccountLockIdInterface request) throws Throwable {
+        // redis 잔액 계좌는 lua script 한 번으로 검증과 변경을 처리
+        if (redisBalanceService.handles(request.getAccountNumber())) {
+            return pjp.proceed();
+        }
+        if (transactionMode == TransactionMode.OPTIMISTIC) {
+            return optimisticRetry.execute(request.getAccountNumber(), pjp::proceed);
+        }
+        if (!transactionMode.isLockRequired()) {
+            return pjp.proceed();
+        }
+        if (queueEnabled) {
+            return accountSerialExecutor.execute(request.getAccountNumber(),
+                    () -> lockAndProceed(pjp, request.getAccountNumber()));
+        }
+        return lockAndProceed(pjp, request.getAccountNumber());
+    }
+
+    private Object lockAndProceed(ProceedingJoinPoint pjp, String accountNumber) throws Throwable {
+        String endpoint = pjp.getSignature().getName();
+        long startedAt = System.nanoTime();
+        try {
+            accountLockProvider.lock(accountNumber, adaptiveLockTimeouts.get(endpoint));
+        } catch (AccountException e) {
+            lockMetrics.recordFailed(endpoint, accountNumber, System.nanoTime() - startedAt);
+            log.error("Lock acquisition failed. endpoint :{}, accountNumber :{}", endpoint, accountNumber);
+            throw e;
+        }
+
+        long lockedAt = System.nanoTime();
+        lockMetrics.recordAcquired(endpoint, accountNumber, lockedAt - startedAt);
         try {
-            accountLockService.lock(request.getAccountNumber());
             return pjp.proceed();
         } finally {
-            accountLockService.unlock(request.getAccountNumber());
+            lockMetrics.recordReleased(endpoint, accountNumber, System.nanoTime() - lockedAt);
+            accountLockProvider.unlock(accountNumber);
         }
     }
-
 }
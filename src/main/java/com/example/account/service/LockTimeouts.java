@@ -0,0 +1,16 @@
+package com.example.account.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class LockTimeouts {
+    //기존 고정값, 관측된 보유시간이 부족할 때 사용
+    public static final LockTimeouts FALLBACK = new LockTimeouts(1_000, 5_000);
+
+    private final long waitMillis;
+    private final long leaseMillis;
+}
@@ -0,0 +1,61 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * OPTIMISTIC 모드 재시도
+ * 트랜잭션 전체를 다시 실행해야 하므로 서비스 트랜잭션 바깥(aspect, async worker)에서 감싼다.
+ * version 충돌 시 지수 증가 상한 안에서 무작위로 쉬고(full jitter) 재시도하며,
+ * 횟수를 다 쓰면 CURRENT_UNDER_TRANSACTION 으로 응답한다.
+ */
+@Slf4j
+@Component
+public class OptimisticRetry {
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetry(@Value("${account.optimistic.max-attempts:5}") int maxAttempts,
+                           @Value("${account.optimistic.base-backoff-millis:5}") long baseBackoffMillis,
+                           @Value("${account.optimistic.max-backoff-millis:100}") long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    public <T> T execute(String accountNumber, Attempt<T> attempt) throws Throwable {
+        for (int attemptCount = 1; ; attemptCount++) {
+            try {
+                return attempt.run();
+            } catch (OptimisticLockingFailureException e) {
+                if (attemptCount >= maxAttempts) {
+                    log.error("Optimistic retries exhausted. accountNumber :{}", accountNumber);
+                    throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+                }
+                log.debug("Version conflict, retry {} for accountNumber :{}", attemptCount, accountNumber);
+                backoff(attemptCount);
+            }
+        }
+    }
+
+    private void backoff(int attemptCount) {
+        long ceiling = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(attemptCount - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION);
+        }
+    }
+
+    public interface Attempt<T> {
+        T run() throws Throwable;
+    }
+}
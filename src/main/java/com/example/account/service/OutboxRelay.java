@@ -0,0 +1,78 @@
+package com.example.account.service;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.dto.TransactionEvent;
+import com.example.account.repository.OutboxEventRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * outbox 를 묶음 단위로 sink 에 전달하고, 전달된 묶음을 삭제한다. (최소 한 번 전달)
+ * - 거래 시각 순으로 읽고, 거래 시각이 settle-millis 보다 오래된 이벤트만 전달한다.
+ *   실패 거래처럼 거래 아이디와 시각을 먼저 받고 늦게 저장되는 이벤트가 settle-millis 안에 저장되면
+ *   같은 계좌의 이벤트는 거래 순서대로 전달된다. (settle-millis 는 failure-recording 의 flush 주기보다 길게)
+ * - 전달에 실패하면 이번 주기를 멈추고, 다음 주기에 같은 묶음부터 다시 보낸다.
+ * - outbox 저장(account.outbox.enabled)을 켠 경우에만 동작한다. 둘 다 기본은 꺼짐
+ * - 순서를 지키기 위해 relay 는 한 노드에서만 켠다. (account.outbox.relay-enabled)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = {"account.outbox.enabled", "account.outbox.relay-enabled"}, havingValue = "true")
+public class OutboxRelay {
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxSink outboxSink;
+    private final int batchSize;
+    private final long settleMillis;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxSink outboxSink,
+                       @Value("${account.outbox.batch-size:500}") int batchSize,
+                       @Value("${account.outbox.settle-millis:1000}") long settleMillis) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxSink = outboxSink;
+        this.batchSize = batchSize;
+        this.settleMillis = settleMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${account.outbox.relay-interval-millis:500}")
+    public void relay() {
+        try {
+            // 밀린 outbox 가 있으면 다음 주기를 기다리지 않고 이어서 전달
+            int relayed;
+            do {
+                relayed = relayBatch();
+            } while (relayed == batchSize);
+        } catch (RuntimeException e) {
+            log.error("Outbox relay failed", e);
+        }
+    }
+
+    /**
+     * @return 전달한 이벤트 개수
+     */
+    int relayBatch() {
+        LocalDateTime settledBefore = LocalDateTime.now().minusNanos(settleMillis * 1_000_000);
+        List<OutboxEvent> outboxEvents = outboxEventRepository
+                .findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(settledBefore, PageRequest.of(0, batchSize));
+        if (outboxEvents.isEmpty()) {
+            return 0;
+        }
+
+        outboxSink.publish(outboxEvents.stream()
+                .map(TransactionEvent::fromEntity)
+                .collect(Collectors.toList()));
+        // 삭제 전에 죽으면 다음 relay 에서 다시 전달된다
+        outboxEventRepository.deleteAllByIdInBatch(outboxEvents.stream()
+                .map(OutboxEvent::getId)
+                .collect(Collectors.toList()));
+        return outboxEvents.size();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionEvent;
+
+import java.util.List;
+
+/**
+ * OutboxRelay 가 거래 이벤트를 내보내는 곳
+ * account.outbox.sink 설정값으로 구현체를 선택한다.
+ * - in-process : 같은 JVM 의 @EventListener 로 전달 (기본값)
+ * - file : 로컬 파일에 한 줄씩 JSON 으로 추가
+ * - redis : redis stream 에 추가
+ *
+ * 정상 반환하면 전달된 것으로 보고 outbox 에서 삭제한다.
+ * 실패하면 예외를 던지고, 같은 묶음이 순서 그대로 다시 전달된다.
+ */
+public interface OutboxSink {
+    void publish(List<TransactionEvent> events);
+}
@@ -0,0 +1,32 @@
+package com.example.account.service;
+
+import com.example.account.aop.AccountLockIdInterface;
+import com.example.account.aop.AccountUserIdInterface;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * @RateLimited 요청을 가장 바깥에서 거른다.
+ * 거절된 요청은 멱등 처리, 계좌 lock, 실패 거래 저장을 거치지 않는다.
+ */
+@Aspect
+@Component
+@Order(RateLimitAspect.ORDER) // IdempotencyAspect, LockAopAspect 바깥
+@RequiredArgsConstructor
+public class RateLimitAspect {
+    public static final int ORDER = 0;
+
+    private final AccountRateLimiter accountRateLimiter;
+
+    @Around("@annotation(RateLimited) && args(request)")
+    public Object rateLimit(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable {
+        Long userId = request instanceof AccountUserIdInterface
+                ? ((AccountUserIdInterface) request).getUserId() : null;
+        accountRateLimiter.acquire(pjp.getSignature().getName(), userId, request.getAccountNumber());
+        return pjp.proceed();
+    }
+}
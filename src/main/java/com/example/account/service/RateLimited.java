@@ -0,0 +1,12 @@
+package com.example.account.service;
+
+import java.lang.annotation.*;
+
+/**
+ * 사용자, 계좌별 요청 수 제한 (RateLimitAspect), 제한 값은 메서드 이름별로 설정한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RateLimited {
+}
@@ -0,0 +1,31 @@
+package com.example.account.service;
+
+import com.example.account.type.AccountSetting;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * redis 카운터(INCRBY)로 번호 구간을 예약한다.
+ * 카운터는 발급된 번호 개수이며, 실제 번호는 INITIAL_ACCOUNT_NUMBER 부터 시작한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.number.allocator", havingValue = "redis")
+public class RedisAccountNumberAllocator extends AccountNumberAllocator {
+    private static final String COUNTER_KEY = "ACNO:counter";
+
+    private final RedissonClient redissonClient;
+
+    public RedisAccountNumberAllocator(RedissonClient redissonClient,
+                                       @Value("${account.number.block-size:100}") int blockSize) {
+        super(blockSize);
+        this.redissonClient = redissonClient;
+    }
+
+    @Override
+    protected long reserveBlock(int blockSize) {
+        long reserved = redissonClient.getAtomicLong(COUNTER_KEY).addAndGet(blockSize);
+        return AccountSetting.INITIAL_ACCOUNT_NUMBER.getNumber() + reserved - blockSize;
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.dto.BalanceEntry;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.*;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResult.TRANSACTION_SUCCESS;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+
+/**
+ * redis 잔액 계좌 (account.redis-balance.account-numbers)
+ * 지정한 계좌는 redis 의 잔액이 기준이고, 사용/취소 검증과 잔액 변경, write-behind 항목 추가를
+ * lua script 한 번으로 처리한다. (계좌 lock, DB 를 거치지 않음)
+ * 거래와 잔액은 RedisBalanceWriteBehind 가 묶음 단위로 DB 에 반영한다.
+ * - 계좌 정보는 처음 거래할 때 DB 에서 읽어 redis 에 올린다. 이후 DB 의 잔액은 write-behind 가 반영된 시점의 값이다.
+ * - redis 가 기준이므로 redis 는 AOF 등으로 영속화해야 한다.
+ * - 지정 계좌의 해지는 AccountService 가 거절한다. 먼저 지정을 풀고 write-behind 가 끝난 뒤 해지한다.
+ * - 지정을 푼 계좌는 시작할 때 redis 에 남은 키로 찾아서(retiring) write-behind 가 대기열을 모두 반영한 뒤
+ *   계좌 정보와 거래 기록 키를 지운다. 다시 지정하면 그때의 DB 값으로 새로 올린다.
+ * redis 키는 계좌번호 hash tag 로 묶어 클러스터에서도 같은 slot 에 둔다.
+ */
+@Slf4j
+@Service
+public class RedisBalanceService {
+    private static final String NOT_LOADED = "NOT_LOADED";
+    private static final String NOT_IN_REDIS = "NOT_IN_REDIS";
+    private static final String OK = "OK:";
+
+    // 계좌 정보가 없을 때만 올림 (동시에 올려도 먼저 올린 값 유지)
+    private static final String LOAD_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then "
+            + "redis.call('hmset', KEYS[1], 'balance', ARGV[1], 'userId', ARGV[2], 'status', ARGV[3]) end "
+            + "return 'OK:'";
+
+    // 거래 시각은 script 안에서 redis 시계로 정함 (대기열 순서 = 거래 시각 순서)
+    // 같은 밀리초에 여러 건이면 계좌의 마지막 시각 + 1 로 올려서 계좌 안에서 항상 증가
+    private static final String NOW =
+            "redis.replicate_commands() "
+            + "local time = redis.call('TIME') "
+            + "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) "
+            + "local last = tonumber(redis.call('hget', KEYS[1], 'at') or '0') "
+            + "if now <= last then now = last + 1 end "
+            + "local at = string.format('%.0f', now) "
+            + "redis.call('hset', KEYS[1], 'at', at) ";
+
+    // Account.useBalance 와 같은 순서로 검증 (소유주, 해지, 잔액, 최소/최대 금액)
+    private static final String USE_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return 'NOT_LOADED' end "
+            + "if redis.call('hget', KEYS[1], 'userId') ~= ARGV[1] then return 'ACCOUNT_USER_UN_MATCH' end "
+            + "if redis.call('hget', KEYS[1], 'status') == 'UNREGISTERED' then return 'UNREGISTERED_ACCOUNT' end "
+            + "local amount = tonumber(ARGV[2]) "
+            + "if amount > tonumber(redis.call('hget', KEYS[1], 'balance')) then return 'INSUFFICIENT_BALANCE' end "
+            + "if amount < tonumber(ARGV[3]) then return 'TOO_SMALL_AMOUNT' end "
+            + "if amount > tonumber(ARGV[4]) then return 'TOO_BIG_AMOUNT' end "
+            + NOW
+            + "local balance = redis.call('hincrby', KEYS[1], 'balance', -amount) "
+            + "redis.call('hset', KEYS[2], ARGV[5], ARGV[2] .. ':U:' .. at) "
+            + "redis.call('rpush', KEYS[3], ARGV[5] .. ':USE:' .. ARGV[2] .. ':' .. balance .. ':' .. at) "
+            + "return 'OK:' .. balance .. ':' .. at";
+
+    // redis 에 없는 거래(write-behind 후 정리된 거래)는 DB 에서 검증한 뒤 ARGV[5] = 1 로 다시 실행
+    private static final String CANCEL_SCRIPT =
+            "if redis.call('exists', KEYS[1]) == 0 then return 'NOT_LOADED' end "
+            + "local used = redis.call('hget', KEYS[2], ARGV[1]) "
+            + "if not used then "
+            + "  if ARGV[5] ~= '1' then return 'NOT_IN_REDIS' end "
+            + "else "
+            + "  local amount, state, at = string.match(used, '^(%d+):(%a):(%d+)$') "
+            + "  if state ~= 'U' then return 'UNABLE_CANCEL_TRANSACTION' end "
+            + "  if amount ~= ARGV[2] then return 'TRANSACTION_AMOUNT_UN_MATCH' end "
+            + "  if tonumber(at) < tonumber(ARGV[4]) then return 'EXCEED_DATE_1YEAR' end "
+            + "end "
+            + NOW
+            + "redis.call('hset', KEYS[2], ARGV[1], ARGV[2] .. ':C:' .. at) "
+            + "local balance = redis.call('hincrby', KEYS[1], 'balance', ARGV[2]) "
+            + "redis.call('rpush', KEYS[3], ARGV[3] .. ':CANCEL:' .. ARGV[2] .. ':' .. balance .. ':' "
+            + ".. at .. ':' .. ARGV[1]) "
+            + "return 'OK:' .. balance .. ':' .. at";
+
+    // 대기열이 비었을 때만 계좌 정보와 거래 기록을 지움
+    private static final String RETIRE_SCRIPT =
+            "if redis.call('llen', KEYS[3]) > 0 then return 'PENDING' end "
+            + "redis.call('del', KEYS[1], KEYS[2]) "
+            + "return 'OK:'";
+
+    // DB 에 반영된 거래 기록을 지움, 그사이 바뀐(취소된) 기록은 남김
+    private static final String PRUNE_SCRIPT =
+            "for i = 1, #ARGV, 2 do "
+            + "if redis.call('hget', KEYS[1], ARGV[i]) == ARGV[i + 1] then redis.call('hdel', KEYS[1], ARGV[i]) end "
+            + "end return 'OK:'";
+
+    private final RedissonClient redissonClient;
+    private final AccountRepository accountRepository;
+    private final AccountUserRepository accountUserRepository;
+    private final TransactionInfoService transactionInfoService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final Set<String> accountNumbers;
+    // 지정을 풀었지만 redis 에 대기열이나 계좌 정보가 남은 계좌
+    private final Set<String> retiringAccountNumbers = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> scriptShas = new ConcurrentHashMap<>();
+
+    public RedisBalanceService(ObjectProvider<RedissonClient> redissonClient,
+                               AccountRepository accountRepository,
+                               AccountUserRepository accountUserRepository,
+                               TransactionInfoService transactionInfoService,
+                               TransactionIdGenerator transactionIdGenerator,
+                               @Value("${account.redis-balance.account-numbers:}") List<String> accountNumbers) {
+        this.redissonClient = redissonClient.getIfAvailable();
+        this.accountRepository = accountRepository;
+        this.accountUserRepository = accountUserRepository;
+        this.transactionInfoService = transactionInfoService;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.accountNumbers = accountNumbers.stream()
+                .map(String::trim)
+                .filter(accountNumber -> !accountNumber.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        if (!this.accountNumbers.isEmpty() && this.redissonClient == null) {
+            throw new IllegalStateException("account.redis-balance requires account.redis.enabled=true");
+        }
+    }
+
+    public boolean handles(String accountNumber) {
+        return accountNumbers.contains(accountNumber);
+    }
+
+    public Set<String> getAccountNumbers() {
+        return accountNumbers;
+    }
+
+    public Set<String> getRetiringAccountNumbers() {
+        return retiringAccountNumbers;
+    }
+
+    /**
+     * 지정 계좌이거나, 지정을 풀었지만 아직 redis 에 계좌 정보나 반영되지 않은 거래가 남은 계좌
+     * (다른 노드의 write-behind 가 정리 중일 수 있으므로 redis 를 직접 확인)
+     */
+    public boolean holds(String accountNumber) {
+        if (handles(accountNumber)) {
+            return true;
+        }
+        return redissonClient != null
+                && redissonClient.getKeys().countExists(accountKey(accountNumber), entriesKey(accountNumber)) > 0;
+    }
+
+    // 지정하지 않은 계좌의 남은 키를 찾음
+    @PostConstruct
+    public void findRetiring() {
+        if (redissonClient == null) {
+            return;
+        }
+        for (String key : redissonClient.getKeys().getKeysByPattern("ABAL:{*")) {
+            int open = key.indexOf('{');
+            int close = key.indexOf('}', open);
+            if (open < 0 || close < 0) {
+                continue;
+            }
+            String accountNumber = key.substring(open + 1, close);
+            if (!handles(accountNumber)) {
+                retiringAccountNumbers.add(accountNumber);
+            }
+        }
+        if (!retiringAccountNumbers.isEmpty()) {
+            log.info("Retiring redis balance accounts :{}", retiringAccountNumbers);
+        }
+    }
+
+    /**
+     * 대기열을 모두 반영한 지정 해제 계좌의 키를 지움
+     * @return 그사이 대기열이 생겨 지우지 못하면 false
+     */
+    public boolean retire(String accountNumber) {
+        String result = run(RETIRE_SCRIPT,
+                List.of(accountKey(accountNumber), usedKey(accountNumber), entriesKey(accountNumber)));
+        if (!result.startsWith(OK)) {
+            return false;
+        }
+        retiringAccountNumbers.remove(accountNumber);
+        return true;
+    }
+
+    /**
+     * 사용자가 없는 경우 (실패한 경우에만 확인)
+     * 소유주 아이디와 불일치
+     * 계좌가 해지상태인 경우
+     * 잔액이 부족할 경우
+     * 거래금액이 너무 크거나 작은 경우
+     */
+    public TransactionDto use(String accountNumber, Long userId, Long amount) {
+        long transactionId = transactionIdGenerator.nextId();
+        String result = runLoaded(accountNumber, USE_SCRIPT,
+                String.valueOf(userId), String.valueOf(amount),
+                String.valueOf(AccountSetting.MIN_TRANSACTION_AMOUNT.getNumber()),
+                String.valueOf(AccountSetting.MAX_TRANSACTION_AMOUNT.getNumber()),
+                String.valueOf(transactionId));
+
+        if (result.equals(ErrorCode.ACCOUNT_USER_UN_MATCH.name()) && !accountUserRepository.existsById(userId)) {
+            throw new AccountException(ErrorCode.USER_NOT_FOUND);
+        }
+        return toDto(accountNumber, result, transactionId, amount, USE);
+    }
+
+    /**
+     * 해당 거래 아이디가 없는 경우
+     * 취소할 수 없는 거래건인 경우
+     * 거래 금액과 취소 금액이 다른 경우
+     * 해당 계좌의 거래가 아닌경우
+     * 1년이 넘은 거래 건인 경우
+     */
+    public TransactionDto cancel(String accountNumber, String transactionId, Long cancelAmount) {
+        long canceledTransactionId = TransactionIdCodec.parse(transactionId);
+        long newTransactionId = transactionIdGenerator.nextId();
+        String oneYearAgo = String.valueOf(toEpochMillis(LocalDateTime.now().minusYears(1)));
+
+        String result = runLoaded(accountNumber, CANCEL_SCRIPT,
+                String.valueOf(canceledTransactionId), String.valueOf(cancelAmount),
+                String.valueOf(newTransactionId), oneYearAgo, "0");
+        if (result.equals(NOT_IN_REDIS)) {
+            transactionInfoService.validateCancelable(accountNumber, canceledTransactionId, cancelAmount);
+            result = runLoaded(accountNumber, CANCEL_SCRIPT,
+                    String.valueOf(canceledTransactionId), String.valueOf(cancelAmount),
+                    String.valueOf(newTransactionId), oneYearAgo, "1");
+        }
+        return toDto(accountNumber, result, newTransactionId, cancelAmount, CANCEL);
+    }
+
+    public Optional<Long> balanceOf(String accountNumber) {
+        if (!handles(accountNumber)) {
+            return Optional.empty();
+        }
+        String balance = redissonClient.<String, String>getMap(accountKey(accountNumber), StringCodec.INSTANCE)
+                .get("balance");
+        return Optional.ofNullable(balance).map(Long::valueOf);
+    }
+
+    // write-behind 대기 항목을 앞에서부터 읽음 (반영 후 trimEntries 로 제거)
+    public List<BalanceEntry> readEntries(String accountNumber, int limit) {
+        List<String> values = redissonClient.<String>getList(entriesKey(accountNumber), StringCodec.INSTANCE)
+                .range(0, limit - 1);
+        return values.stream().map(BalanceEntry::parse).collect(Collectors.toList());
+    }
+
+    /**
+     * DB 에 반영한 항목을 대기열에서 지우고, 더 바뀔 수 없는 거래 기록을 정리한다.
+     * 사용 거래는 아직 취소되지 않은 기록만 지운다. (이후 취소는 DB 의 거래로 검증)
+     */
+    public void trimEntries(String accountNumber, List<BalanceEntry> entries) {
+        redissonClient.getList(entriesKey(accountNumber), StringCodec.INSTANCE).trim(entries.size(), -1);
+
+        List<Object> expected = new ArrayList<>();
+        for (BalanceEntry entry : entries) {
+            long millis = toEpochMillis(entry.getTransactedAt());
+            if (entry.getTransactionType() == USE) {
+                expected.add(String.valueOf(entry.getTransactionId()));
+                expected.add(entry.getAmount() + ":U:" + millis);
+            } else {
+                expected.add(String.valueOf(entry.getCanceledTransactionId()));
+                expected.add(entry.getAmount() + ":C:" + millis);
+            }
+        }
+        run(PRUNE_SCRIPT, List.of(usedKey(accountNumber)), expected.toArray());
+    }
+
+    // 계좌 정보가 redis 에 없으면 DB 에서 올린 뒤 한 번 더 실행
+    private String runLoaded(String accountNumber, String script, Object... args) {
+        List<Object> keys = List.of(accountKey(accountNumber), usedKey(accountNumber), entriesKey(accountNumber));
+        String result = run(script, keys, args);
+        if (!result.equals(NOT_LOADED)) {
+            return result;
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        run(LOAD_SCRIPT, List.of(accountKey(accountNumber)),
+                String.valueOf(account.getBalance()),
+                String.valueOf(account.getAccountUser().getId()),
+                account.getAccountStatus().name());
+        return run(script, keys, args);
+    }
+
+    private String run(String script, List<Object> keys, Object... args) {
+        RScript rScript = redissonClient.getScript(StringCodec.INSTANCE);
+        String sha = scriptShas.computeIfAbsent(script, rScript::scriptLoad);
+        try {
+            return rScript.evalSha(RScript.Mode.READ_WRITE, sha, RScript.ReturnType.VALUE, keys, args);
+        } catch (RedisException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("NOSCRIPT")) {
+                throw e;
+            }
+            // redis 재시작 등으로 script cache 가 비워진 경우
+            scriptShas.put(script, rScript.scriptLoad(script));
+            return rScript.evalSha(RScript.Mode.READ_WRITE, scriptShas.get(script),
+                    RScript.ReturnType.VALUE, keys, args);
+        }
+    }
+
+    // 성공 결과는 OK:거래 후 잔액:거래 시각(epoch millis)
+    private TransactionDto toDto(String accountNumber, String result, long transactionId, Long amount,
+                                 TransactionType type) {
+        if (!result.startsWith(OK)) {
+            throw new AccountException(ErrorCode.valueOf(result));
+        }
+        String[] fields = result.substring(OK.length()).split(":");
+        return TransactionDto.builder()
+                .transactionId(TransactionIdCodec.format(transactionId))
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .transactionType(type)
+                .transactionResult(TRANSACTION_SUCCESS)
+                .balanceSnapshot(Long.parseLong(fields[0]))
+                .transactedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[1])),
+                        ZoneId.systemDefault()))
+                .build();
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(ChronoUnit.MILLIS).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String accountKey(String accountNumber) {
+        return "ABAL:{" + accountNumber + "}";
+    }
+
+    private static String usedKey(String accountNumber) {
+        return "ABAL:{" + accountNumber + "}:used";
+    }
+
+    private static String entriesKey(String accountNumber) {
+        return "ABAL:{" + accountNumber + "}:entries";
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEntry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * redis 잔액 계좌의 거래와 잔액을 묶음 단위로 DB 에 반영한다.
+ * - 계좌마다 대기열 앞에서 batch-size 건을 읽어 한 트랜잭션으로 저장한 뒤 대기열에서 지운다. (최소 한 번 반영)
+ * - 반영에 실패한 계좌는 이번 주기를 건너뛰고 다음 주기에 같은 항목부터 다시 반영한다.
+ * - 같은 계좌의 순서를 지키기 위해 한 노드에서만 켠다. (account.redis-balance.write-behind-enabled)
+ * - 지정을 푼 계좌(retiring)도 대기열을 끝까지 반영하고, 다 비면 redis 의 계좌 키를 지운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.redis-balance.write-behind-enabled", havingValue = "true",
+        matchIfMissing = true)
+public class RedisBalanceWriteBehind {
+    private final RedisBalanceService redisBalanceService;
+    private final TransactionInfoService transactionInfoService;
+    private final int batchSize;
+
+    public RedisBalanceWriteBehind(RedisBalanceService redisBalanceService,
+                                   TransactionInfoService transactionInfoService,
+                                   @Value("${account.redis-balance.batch-size:500}") int batchSize) {
+        this.redisBalanceService = redisBalanceService;
+        this.transactionInfoService = transactionInfoService;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${account.redis-balance.write-behind-interval-millis:200}")
+    public void flush() {
+        for (String accountNumber : redisBalanceService.getAccountNumbers()) {
+            flushAccount(accountNumber);
+        }
+        for (String accountNumber : List.copyOf(redisBalanceService.getRetiringAccountNumbers())) {
+            if (flushAccount(accountNumber)) {
+                retire(accountNumber);
+            }
+        }
+    }
+
+    /**
+     * @return 대기열을 모두 반영했으면 true
+     */
+    private boolean flushAccount(String accountNumber) {
+        try {
+            // 밀린 항목이 있으면 다음 주기를 기다리지 않고 이어서 반영
+            int flushed;
+            do {
+                flushed = flushBatch(accountNumber);
+            } while (flushed == batchSize);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Redis balance write-behind failed. accountNumber :{}", accountNumber, e);
+            return false;
+        }
+    }
+
+    private void retire(String accountNumber) {
+        try {
+            if (redisBalanceService.retire(accountNumber)) {
+                log.info("Redis balance account retired. accountNumber :{}", accountNumber);
+            }
+        } catch (RuntimeException e) {
+            log.error("Redis balance retire failed. accountNumber :{}", accountNumber, e);
+        }
+    }
+
+    /**
+     * @return 반영한 항목 개수
+     */
+    int flushBatch(String accountNumber) {
+        List<BalanceEntry> entries = redisBalanceService.readEntries(accountNumber, batchSize);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        transactionInfoService.saveBalanceEntries(accountNumber, entries);
+        redisBalanceService.trimEntries(accountNumber, entries);
+        return entries.size();
+    }
+}
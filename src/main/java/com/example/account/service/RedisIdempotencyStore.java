@@ -0,0 +1,44 @@
+package com.example.account.service;
+
+import org.redisson.api.RMapCache;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 항목별 만료시간을 지원하는 redisson map cache 사용
+ */
+@Component
+@ConditionalOnProperty(name = "account.redis.enabled", havingValue = "true", matchIfMissing = true)
+public class RedisIdempotencyStore implements IdempotencyStore {
+    private static final String MAP_NAME = "IDEM";
+
+    private final RMapCache<String, String> records;
+
+    public RedisIdempotencyStore(RedissonClient redissonClient) {
+        this.records = redissonClient.getMapCache(MAP_NAME, StringCodec.INSTANCE);
+    }
+
+    @Override
+    public boolean putIfAbsent(String key, String value, long ttlMillis) {
+        return records.putIfAbsent(key, value, ttlMillis, TimeUnit.MILLISECONDS) == null;
+    }
+
+    @Override
+    public String get(String key) {
+        return records.get(key);
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        records.fastPut(key, value, ttlMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void remove(String key) {
+        records.fastRemove(key);
+    }
+}
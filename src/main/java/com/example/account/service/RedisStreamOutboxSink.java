@@ -0,0 +1,54 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionEvent;
+import org.redisson.api.RBatch;
+import org.redisson.api.RStreamAsync;
+import org.redisson.api.RedissonClient;
+import org.redisson.api.stream.StreamAddArgs;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * redis stream 에 이벤트를 추가, 소비자는 consumer group 으로 읽는다.
+ * 묶음은 redis batch 한 번으로 보내므로 왕복은 묶음당 한 번이다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.outbox.sink", havingValue = "redis")
+public class RedisStreamOutboxSink implements OutboxSink {
+    private final RedissonClient redissonClient;
+    private final String streamKey;
+
+    public RedisStreamOutboxSink(RedissonClient redissonClient,
+                                 @Value("${account.outbox.redis.stream:ACTX:events}") String streamKey) {
+        this.redissonClient = redissonClient;
+        this.streamKey = streamKey;
+    }
+
+    @Override
+    public void publish(List<TransactionEvent> events) {
+        RBatch batch = redissonClient.createBatch();
+        RStreamAsync<String, String> stream = batch.getStream(streamKey, StringCodec.INSTANCE);
+        for (TransactionEvent event : events) {
+            stream.addAsync(StreamAddArgs.entries(toFields(event)));
+        }
+        batch.execute();
+    }
+
+    private Map<String, String> toFields(TransactionEvent event) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("transactionId", event.getTransactionId());
+        fields.put("accountNumber", event.getAccountNumber());
+        fields.put("transactionType", event.getTransactionType().name());
+        fields.put("transactionResult", event.getTransactionResult().name());
+        fields.put("amount", String.valueOf(event.getAmount()));
+        fields.put("balanceSnapshot", String.valueOf(event.getBalanceSnapshot()));
+        fields.put("transactedAt", String.valueOf(event.getTransactedAt()));
+        return fields;
+    }
+}
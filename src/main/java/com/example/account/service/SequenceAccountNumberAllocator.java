@@ -0,0 +1,57 @@
+package com.example.account.service;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * DB sequence(account_number_seq)로 번호 구간을 예약한다.
+ * sequence 의 INCREMENT BY 값과 block-size 가 같아야 한다. (schema.sql)
+ * 다르면 노드끼리 구간이 겹치거나 번호를 건너뛰므로, schema.sql 이 실행된 뒤(모든 bean 생성 후) 확인하고 시작하지 않는다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.number.allocator", havingValue = "database", matchIfMissing = true)
+public class SequenceAccountNumberAllocator extends AccountNumberAllocator implements SmartInitializingSingleton {
+    private static final String INCREMENT_QUERY = "select increment from information_schema.sequences "
+            + "where upper(sequence_name) = 'ACCOUNT_NUMBER_SEQ'";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int blockSize;
+
+    public SequenceAccountNumberAllocator(JdbcTemplate jdbcTemplate,
+                                          @Value("${account.number.block-size:100}") int blockSize) {
+        super(blockSize);
+        this.jdbcTemplate = jdbcTemplate;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        validateIncrement();
+    }
+
+    void validateIncrement() {
+        List<String> increments = jdbcTemplate.queryForList(INCREMENT_QUERY, String.class);
+        if (increments.isEmpty()) {
+            throw new IllegalStateException("account_number_seq does not exist");
+        }
+        long increment = Long.parseLong(increments.get(0).trim());
+        if (increment != blockSize) {
+            throw new IllegalStateException("account_number_seq increment " + increment
+                    + " does not match account.number.block-size " + blockSize);
+        }
+    }
+
+    @Override
+    protected long reserveBlock(int blockSize) {
+        Long blockStart = jdbcTemplate.queryForObject("select next value for account_number_seq", Long.class);
+        if (blockStart == null) {
+            throw new IllegalStateException("account_number_seq returned no value");
+        }
+        return blockStart;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.account.service;
+
+/**
+ * 요청 시점에 경과 시간만큼 토큰을 채우는 token bucket
+ * bucket 하나는 키 하나(사용자 또는 계좌)에만 쓰이므로 경합이 적어 synchronized 로 충분하다.
+ */
+class TokenBucket {
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long refilledAtNanos;
+
+    TokenBucket(double permitsPerSecond, int burst, long nowNanos) {
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.capacity = Math.max(burst, 1);
+        this.tokens = capacity;
+        this.refilledAtNanos = nowNanos;
+    }
+
+    synchronized boolean tryAcquire(long nowNanos) {
+        refill(nowNanos);
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    // 다시 가득 찬 bucket 은 지워도 동작이 같다
+    synchronized boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long nowNanos) {
+        if (nowNanos > refilledAtNanos) {
+            tokens = Math.min(capacity, tokens + (nowNanos - refilledAtNanos) * permitsPerNano);
+            refilledAtNanos = nowNanos;
+        }
+    }
+}
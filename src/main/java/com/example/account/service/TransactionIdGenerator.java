@@ -0,0 +1,9 @@
+package com.example.account.service;
+
+/**
+ * 거래 아이디 발급
+ * 같은 노드에서 발급한 아이디는 단조 증가해야 한다. (인덱스 끝에 순서대로 삽입되도록)
+ */
+public interface TransactionIdGenerator {
+    long nextId();
+}
@@ -2,31 +2,53 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.TransactionInfo;
+import com.example.account.dto.BalanceEntry;
+import com.example.account.dto.FailedTransaction;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionOutcome;
+import com.example.account.dto.TransactionUse;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.TransactionInfoRepository;
 import com.example.account.type.*;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.account.type.TransactionResult.TRANSACTION_FAIL;
 import static com.example.account.type.TransactionResult.TRANSACTION_SUCCESS;
 import static com.example.account.type.TransactionType.CANCEL;
 import static com.example.account.type.TransactionType.USE;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class TransactionInfoService {
     private final TransactionInfoRepository transactionInfoRepository;
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final LedgerService ledgerService;
+    private final OutboxEventRepository outboxEventRepository;
+
+    // ATOMIC 이면 조건부 UPDATE 로 잔액을 바꾸고 계좌 lock 을 사용하지 않음
+    @Value("${account.transaction.mode:LOCK}")
+    private TransactionMode transactionMode = TransactionMode.LOCK;
+
+    // relay 없이 outbox 만 쌓이지 않도록 켠 경우에만 저장 (OutboxRelay 와 함께 켬)
+    @Value("${account.outbox.enabled:false}")
+    private boolean outboxEnabled = false;
 
     /**
      * 사용자가 없는 경우
@@ -37,22 +59,155 @@ public class TransactionInfoService {
      */
     @Transactional()
     public TransactionDto transactUse(String accountNumber, Long userId, Long amount) {
+        requireNotEngine();
+        if (transactionMode == TransactionMode.ATOMIC) {
+            return transactUseAtomic(accountNumber, userId, amount);
+        }
+
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
+        return useBalance(accountUser, account, amount);
+    }
+
+    /**
+     * 같은 계좌의 사용 요청 여러 건을 한 트랜잭션에서 순서대로 처리 (계좌 lock 은 호출하는 쪽에서 잡음)
+     * 항목이 실패해도 롤백하지 않고 saveFailedTransaction 과 같은 실패 거래를 남긴 뒤 다음 항목을 처리한다.
+     */
+    @Transactional()
+    public List<TransactionUse.BatchResponse> transactUseAll(String accountNumber,
+                                                             List<TransactionUse.Request> requests) {
+        requireNotEngine();
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        Map<Long, Optional<AccountUser>> accountUsers = new HashMap<>();
+
+        List<TransactionUse.BatchResponse> responses = new ArrayList<>(requests.size());
+        for (TransactionUse.Request request : requests) {
+            try {
+                if (transactionMode == TransactionMode.ATOMIC) {
+                    responses.add(TransactionUse.BatchResponse.from(
+                            transactUseAtomic(accountNumber, request.getUserId(), request.getAmount())));
+                    continue;
+                }
+                AccountUser accountUser = accountUsers
+                        .computeIfAbsent(request.getUserId(), accountUserRepository::findById)
+                        .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+                responses.add(TransactionUse.BatchResponse.from(
+                        useBalance(accountUser, account, request.getAmount())));
+            } catch (AccountException e) {
+                if (transactionMode == TransactionMode.ATOMIC) {
+                    // 조건부 UPDATE 가 영속성 컨텍스트를 비우므로 (clearAutomatically) 실패 거래의 잔액은 다시 읽음
+                    account = accountRepository.findByAccountNumber(accountNumber).orElse(account);
+                }
+                saveTransaction(account, request.getAmount(), USE, TRANSACTION_FAIL);
+                responses.add(TransactionUse.BatchResponse.failed(request, e.getErrorCode()));
+            }
+        }
+        return responses;
+    }
+
+    /**
+     * GroupCommitter 가 모은 여러 계좌의 사용 요청을 한 트랜잭션, 한 번의 flush 로 처리 (계좌 lock 은 요청마다 호출한 쪽에서 잡음)
+     * 사용자와 계좌는 변경 전에 한 번에 조회해서 항목마다 auto flush 가 일어나지 않게 한다.
+     * 항목의 검증 실패는 잔액을 바꾸기 전에 나므로 그 항목의 결과로만 남기고 다음 항목을 처리한다.
+     */
+    @Transactional()
+    public List<TransactionOutcome> transactUseGroup(List<TransactionUse.Request> requests) {
+        Map<Long, AccountUser> accountUsers = accountUserRepository.findAllById(requests.stream()
+                        .map(TransactionUse.Request::getUserId)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(AccountUser::getId, Function.identity()));
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(requests.stream()
+                        .map(TransactionUse.Request::getAccountNumber)
+                        .collect(Collectors.toSet())).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<TransactionOutcome> outcomes = new ArrayList<>(requests.size());
+        for (TransactionUse.Request request : requests) {
+            try {
+                AccountUser accountUser = Optional.ofNullable(accountUsers.get(request.getUserId()))
+                        .orElseThrow(() -> new AccountException(ErrorCode.USER_NOT_FOUND));
+                Account account = Optional.ofNullable(accounts.get(request.getAccountNumber()))
+                        .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+                outcomes.add(TransactionOutcome.success(useBalance(accountUser, account, request.getAmount())));
+            } catch (AccountException e) {
+                outcomes.add(TransactionOutcome.failure(e));
+            }
+        }
+        return outcomes;
+    }
+
+    private TransactionDto useBalance(AccountUser accountUser, Account account, Long amount) {
         validateTransactUse(accountUser, account);
 
+        if (transactionMode == TransactionMode.LEDGER) {
+            return appendUse(account, amount);
+        }
+
         account.useBalance(amount); //엔티티 수정 로직을 엔티티 메서드로
 
         return TransactionDto.fromEntity(
                 saveTransaction(account, amount, USE, TRANSACTION_SUCCESS));
     }
 
+    // 계좌 잔액은 그대로 두고 원장에 거래만 추가
+    private TransactionDto appendUse(Account account, Long amount) {
+        long balance = ledgerService.openBalance(account);
+        if (amount > balance) {
+            throw new AccountException(ErrorCode.INSUFFICIENT_BALANCE);
+        }
+        Account.validateTransactionAmount(amount);
+
+        return TransactionDto.fromEntity(
+                saveTransaction(account, amount, USE, TRANSACTION_SUCCESS, balance - amount));
+    }
+
+    // 거래금액 범위도 조건부 UPDATE 에서 확인하므로 실패 원인은 diagnoseFailedDebit 에서 LOCK 모드 순서로 판단
+    private TransactionDto transactUseAtomic(String accountNumber, Long userId, Long amount) {
+        if (accountRepository.debitBalance(accountNumber, userId, amount) == 0) {
+            throw new AccountException(diagnoseFailedDebit(accountNumber, userId, amount));
+        }
+
+        // 차감한 행은 이 트랜잭션이 잡고 있으므로 다시 읽은 잔액이 곧 거래 후 잔액
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        return TransactionDto.fromEntity(
+                saveTransaction(account, amount, USE, TRANSACTION_SUCCESS));
+    }
+
+    // 차감이 0 건인 경우에만 조회해서 원인을 LOCK 모드와 같은 순서로 판단
+    private ErrorCode diagnoseFailedDebit(String accountNumber, Long userId, Long amount) {
+        AccountUser accountUser = accountUserRepository.findById(userId).orElse(null);
+        if (accountUser == null) {
+            return ErrorCode.USER_NOT_FOUND;
+        }
+        Account account = accountRepository.findByAccountNumber(accountNumber).orElse(null);
+        if (account == null) {
+            return ErrorCode.ACCOUNT_NOT_FOUND;
+        }
+        try {
+            validateTransactUse(accountUser, account);
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+        if (account.getBalance() < amount) {
+            return ErrorCode.INSUFFICIENT_BALANCE;
+        }
+        try {
+            Account.validateTransactionAmount(amount);
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+        // 조회 시점에는 조건을 만족 (동시 변경), 재시도 가능한 오류로 응답
+        return ErrorCode.CURRENT_UNDER_TRANSACTION;
+    }
+
     private void validateTransactUse(AccountUser accountUser, Account account) {
-        if (accountUser != account.getAccountUser()) {
+        if (!accountUser.getId().equals(account.getAccountUser().getId())) {
             throw new AccountException(ErrorCode.ACCOUNT_USER_UN_MATCH);
         }
 
@@ -70,13 +225,25 @@ public class TransactionInfoService {
      */
     @Transactional()
     public TransactionDto transactCancel(String accountNumber, String transactionId, Long cancelAmount) {
-        TransactionInfo transactionInfo = transactionInfoRepository.findByTransactionId(transactionId)
+        requireNotEngine();
+
+        TransactionInfo transactionInfo = transactionInfoRepository.findByTransactionId(TransactionIdCodec.parse(transactionId))
                 .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
 
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        validateCancelUseBalance(cancelAmount, transactionInfo, account);
+        validateCancelUseBalance(cancelAmount, transactionInfo, account.getAccountNumber());
+
+        if (transactionMode == TransactionMode.ATOMIC) {
+            return transactCancelAtomic(accountNumber, transactionInfo, cancelAmount);
+        }
+        if (transactionMode == TransactionMode.LEDGER) {
+            long balance = ledgerService.openBalance(account);
+            transactionInfo.transactionResultToCancel();
+            return TransactionDto.fromEntity(saveTransaction(
+                    account, cancelAmount, CANCEL, TRANSACTION_SUCCESS, balance + cancelAmount));
+        }
 
         account.cancelUseBalance(cancelAmount);
         transactionInfo.transactionResultToCancel();
@@ -85,12 +252,48 @@ public class TransactionInfoService {
                 account, cancelAmount, CANCEL, TRANSACTION_SUCCESS));
     }
 
-    private void validateCancelUseBalance(Long cancelAmount, TransactionInfo transactionInfo, Account account) {
+    private TransactionDto transactCancelAtomic(String accountNumber, TransactionInfo transactionInfo,
+                                                Long cancelAmount) {
+        // 취소 상태 변경이 성공한 요청만 잔액을 되돌림 (중복 취소 방지)
+        if (transactionInfoRepository.markCanceled(transactionInfo.getId()) == 0) {
+            throw new AccountException(ErrorCode.UNABLE_CANCEL_TRANSACTION);
+        }
+        accountRepository.creditBalance(accountNumber, cancelAmount);
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+        return TransactionDto.fromEntity(saveTransaction(
+                account, cancelAmount, CANCEL, TRANSACTION_SUCCESS));
+    }
+
+    // ENGINE 모드의 잔액은 AccountEngine 메모리가 기준이므로 여기서 바꾸면 안 됨 (트랜잭션 밖에서 AccountEngine 호출)
+    private void requireNotEngine() {
+        if (transactionMode == TransactionMode.ENGINE) {
+            throw new IllegalStateException("ENGINE mode transactions must be submitted to AccountEngine");
+        }
+    }
+
+    /**
+     * 취소할 수 있는 거래인지 확인만 한다. (redis 잔액 계좌, ENGINE 모드에서 메모리에 없는 거래 취소)
+     */
+    public void validateCancelable(String accountNumber, long transactionId, Long cancelAmount) {
+        TransactionInfo transactionInfo = transactionInfoRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND));
+
+        validateCancelUseBalance(cancelAmount, transactionInfo, accountNumber);
+
+        if (transactionInfo.getTransactionType() != USE
+                || transactionInfo.getTransactionResult() != TRANSACTION_SUCCESS) {
+            throw new AccountException(ErrorCode.UNABLE_CANCEL_TRANSACTION);
+        }
+    }
+
+    private void validateCancelUseBalance(Long cancelAmount, TransactionInfo transactionInfo, String accountNumber) {
         if (!cancelAmount.equals(transactionInfo.getAmount())) {
             throw new AccountException(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH);
         }
 
-        if (!account.getAccountNumber().equals(transactionInfo.getAccount().getAccountNumber())) {
+        if (!accountNumber.equals(transactionInfo.getAccount().getAccountNumber())) {
             throw new AccountException(ErrorCode.ACCOUNT_NUMBER_UN_MATCH);
         }
 
@@ -99,34 +302,137 @@ public class TransactionInfoService {
         }
     }
 
+    // database lock 사용 시 lock 트랜잭션이 롤백되어도 실패 거래는 남도록 별도 트랜잭션으로 저장
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void saveFailedTransaction(String accountNumber, Long amount, TransactionType type) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
+
+        saveTransaction(account, amount, type, TRANSACTION_FAIL);
+    }
+
     /**
-     * 해당 거래 아이디가 없는 경우
-     * 실패한 거래도 확인 가능해야 함
+     * FailedTransactionRecorder 가 모은 실패 거래를 한 트랜잭션에서 저장 (계좌 조회 한 번, insert 는 jdbc batch)
+     * 그사이 없어진 계좌의 실패 거래는 남기지 않는다.
      */
-    @Transactional
-    public TransactionDto inquireTransaction(String transactionId) {
-        return TransactionDto.fromEntity(transactionInfoRepository.findByTransactionId(transactionId)
-                .orElseThrow(() -> new AccountException(ErrorCode.TRANSACTION_NOT_FOUND)));
+    @Transactional()
+    public void saveFailedTransactions(List<FailedTransaction> failedTransactions) {
+        insertFailedTransactions(failedTransactions);
     }
 
-    @Transactional
-    public void saveFailedTransaction(String accountNumber, Long amount, TransactionType type) {
+    // 큐가 가득 차 요청 쓰레드에서 바로 저장할 때: database lock 트랜잭션에 참여하면 같이 롤백되므로 별도 트랜잭션
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void saveFailedTransactionsNow(List<FailedTransaction> failedTransactions) {
+        insertFailedTransactions(failedTransactions);
+    }
+
+    private void insertFailedTransactions(List<FailedTransaction> failedTransactions) {
+        Set<String> accountNumbers = failedTransactions.stream()
+                .map(FailedTransaction::getAccountNumber)
+                .collect(Collectors.toSet());
+        Map<String, Account> accounts = accountRepository.findByAccountNumberIn(accountNumbers).stream()
+                .collect(Collectors.toMap(Account::getAccountNumber, Function.identity()));
+
+        List<TransactionInfo> transactionInfos = new ArrayList<>(failedTransactions.size());
+        for (FailedTransaction failedTransaction : failedTransactions) {
+            Account account = accounts.get(failedTransaction.getAccountNumber());
+            if (account == null) {
+                log.warn("Failed transaction dropped, account not found. accountNumber :{}",
+                        failedTransaction.getAccountNumber());
+                continue;
+            }
+            transactionInfos.add(TransactionInfo.builder()
+                    .account(account)
+                    .transactionType(failedTransaction.getTransactionType())
+                    .transactionResult(TRANSACTION_FAIL)
+                    .amount(failedTransaction.getAmount())
+                    .balanceSnapshot(account.getBalance())
+                    .transactionId(failedTransaction.getTransactionId())
+                    .transactedAt(failedTransaction.getTransactedAt())
+                    .build());
+        }
+        transactionInfoRepository.saveAll(transactionInfos);
+        saveOutboxEvents(transactionInfos);
+    }
+
+    /**
+     * redis 잔액 계좌의 write-behind 항목을 순서대로 반영 (RedisBalanceService)
+     * 검증은 redis 에서 끝났으므로 거래를 추가하고 취소된 사용 거래의 상태와 계좌 잔액만 맞춘다.
+     * 반영 후 대기열에서 지우기 전에 실패하면 같은 항목이 다시 오므로 이미 저장된 거래는 건너뛴다.
+     */
+    @Transactional()
+    public void saveBalanceEntries(String accountNumber, List<BalanceEntry> entries) {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ErrorCode.ACCOUNT_NOT_FOUND));
 
-        saveTransaction(account, amount, type, TRANSACTION_FAIL);
+        Set<Long> transactionIds = new HashSet<>();
+        for (BalanceEntry entry : entries) {
+            transactionIds.add(entry.getTransactionId());
+            if (entry.getCanceledTransactionId() != null) {
+                transactionIds.add(entry.getCanceledTransactionId());
+            }
+        }
+        Map<Long, TransactionInfo> transactionInfos = transactionInfoRepository.findByTransactionIdIn(transactionIds)
+                .stream()
+                .collect(Collectors.toMap(TransactionInfo::getTransactionId, Function.identity()));
+
+        List<TransactionInfo> created = new ArrayList<>(entries.size());
+        for (BalanceEntry entry : entries) {
+            if (transactionInfos.containsKey(entry.getTransactionId())) {
+                continue;
+            }
+            TransactionInfo transactionInfo = TransactionInfo.builder()
+                    .account(account)
+                    .transactionType(entry.getTransactionType())
+                    .transactionResult(TRANSACTION_SUCCESS)
+                    .amount(entry.getAmount())
+                    .balanceSnapshot(entry.getBalanceSnapshot())
+                    .transactionId(entry.getTransactionId())
+                    .transactedAt(entry.getTransactedAt())
+                    .build();
+            if (entry.getTransactionType() == CANCEL) {
+                TransactionInfo canceled = transactionInfos.get(entry.getCanceledTransactionId());
+                if (canceled != null) {
+                    canceled.setTransactionResult(TransactionResult.TRANSACTION_CANCEL);
+                }
+            }
+            transactionInfos.put(entry.getTransactionId(), transactionInfo);
+            created.add(transactionInfo);
+            account.setBalance(entry.getBalanceSnapshot());
+        }
+        transactionInfoRepository.saveAll(created);
+        saveOutboxEvents(created);
     }
 
     private TransactionInfo saveTransaction(Account account, Long amount,
                                             TransactionType type, TransactionResult result) {
-        return transactionInfoRepository.save(TransactionInfo.builder()
+        return saveTransaction(account, amount, type, result, account.getBalance());
+    }
+
+    private TransactionInfo saveTransaction(Account account, Long amount, TransactionType type,
+                                            TransactionResult result, Long balanceSnapshot) {
+        TransactionInfo transactionInfo = transactionInfoRepository.save(TransactionInfo.builder()
                 .account(account)
                 .transactionType(type)
                 .transactionResult(result)
                 .amount(amount)
-                .balanceSnapshot(account.getBalance())
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+                .balanceSnapshot(balanceSnapshot)
+                .transactionId(transactionIdGenerator.nextId())
                 .transactedAt(LocalDateTime.now())
                 .build());
+        // 하위 시스템 전달용, 거래와 같은 트랜잭션에서 저장
+        if (outboxEnabled) {
+            outboxEventRepository.save(OutboxEvent.from(transactionInfo));
+        }
+        return transactionInfo;
+    }
+
+    private void saveOutboxEvents(List<TransactionInfo> transactionInfos) {
+        if (!outboxEnabled || transactionInfos.isEmpty()) {
+            return;
+        }
+        outboxEventRepository.saveAll(transactionInfos.stream()
+                .map(OutboxEvent::from)
+                .collect(Collectors.toList()));
     }
 }
@@ -0,0 +1,332 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEntry;
+import com.example.account.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * ENGINE 모드 거래 결과의 write-ahead journal (account.journal.enabled=true)
+ * - 거래 결과를 고정 크기 segment 파일에 memory-mapped 로 이어 쓴다.
+ *   record: length(int) crc32(int) type(byte) transactionId canceledTransactionId amount balance epochMillis(long)
+ *           accountNumber(short 길이 + bytes)
+ * - flusher 쓰레드가 그사이 쓰인 record 를 fsync 한 번으로 묶어서 내리고, 내려간 record 의 응답을 완료한다.
+ * - 시작할 때 남아 있는 segment 를 순서대로 읽어 DB 에 다시 반영한다. (이미 저장된 거래는 건너뛰므로 여러 번 반영해도 됨)
+ *   길이가 0 이거나 crc 가 맞지 않는 record 부터는 쓰다 만 것으로 보고 읽지 않는다.
+ * - DB 반영이 끝난 segment 는 archive 이면 .done 으로 이름을 바꾸고 (감사, 다른 환경 재반영용), 아니면 지운다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.journal.enabled", havingValue = "true")
+public class WriteAheadJournal {
+    private static final String SUFFIX = ".wal";
+    private static final String DONE_SUFFIX = ".done";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int FIXED_PAYLOAD_BYTES = 1 + Long.BYTES * 5 + Short.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final long flushIntervalNanos;
+    private final boolean archive;
+
+    private final ConcurrentHashMap<Long, Segment> segments = new ConcurrentHashMap<>();
+    private final List<Segment> sealed = new ArrayList<>(); // fsync 전에 다 찬 segment, this 로 보호
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>(); // this 로 보호
+    private final ByteBuffer payload = ByteBuffer.allocate(FIXED_PAYLOAD_BYTES + Short.MAX_VALUE); // this 로 보호
+    private final CRC32 crc = new CRC32(); // this 로 보호
+    private final Object flushLock = new Object(); // flusher 와 close 의 flush 가 겹치지 않게
+    private List<Path> recovered = List.of();
+    private Segment current;
+    private long written; // 지금까지 쓴 byte 수 (segment 를 넘어 증가), this 로 보호
+    private volatile long durable;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteAheadJournal(@Value("${account.journal.path:journal}") String path,
+                             @Value("${account.journal.segment-bytes:67108864}") int segmentBytes,
+                             @Value("${account.journal.flush-interval-micros:500}") long flushIntervalMicros,
+                             @Value("${account.journal.archive:false}") boolean archive) {
+        this.directory = Paths.get(path);
+        this.segmentBytes = segmentBytes;
+        this.flushIntervalNanos = TimeUnit.MICROSECONDS.toNanos(flushIntervalMicros);
+        this.archive = archive;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            recovered = files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        long nextId = recovered.isEmpty() ? 0 : segmentId(recovered.get(recovered.size() - 1)) + 1;
+        synchronized (this) {
+            current = openSegment(nextId);
+        }
+        running = true;
+        flusher = new Thread(this::flushLoop, "write-ahead-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    // 남은 record 를 내리고 기다리던 응답을 모두 완료 (AccountEngine 이 먼저 멈춘 뒤)
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        flush();
+    }
+
+    /**
+     * 시작할 때 남아 있던 segment 의 거래를 계좌별로 파일 순서대로 넘긴다. (AccountEngine 이 worker 시작 전에 호출)
+     * 모두 반영되면 segment 를 정리하고, 반영 중 실패하면 파일을 그대로 두고 예외를 던진다.
+     */
+    public void replay(BiConsumer<String, List<BalanceEntry>> consumer) throws IOException {
+        for (Path file : recovered) {
+            Map<String, List<BalanceEntry>> entries = new LinkedHashMap<>();
+            int count = read(file, (accountNumber, entry) ->
+                    entries.computeIfAbsent(accountNumber, key -> new ArrayList<>()).add(entry));
+            entries.forEach(consumer);
+            log.info("Write-ahead journal replayed. segment :{}, records :{}", file.getFileName(), count);
+            retire(file);
+        }
+        recovered = List.of();
+    }
+
+    /**
+     * @param onDurable record 가 fsync 된 뒤 flusher 쓰레드에서 실행 (없으면 null)
+     * @return record 가 들어간 segment, DB 반영 후 markPersisted 로 알려줌
+     */
+    public synchronized long append(String accountNumber, BalanceEntry entry, Runnable onDurable) {
+        byte[] account = accountNumber.getBytes(StandardCharsets.US_ASCII);
+        payload.clear();
+        payload.put((byte) entry.getTransactionType().ordinal())
+                .putLong(entry.getTransactionId())
+                .putLong(entry.getCanceledTransactionId() == null ? 0 : entry.getCanceledTransactionId())
+                .putLong(entry.getAmount())
+                .putLong(entry.getBalanceSnapshot())
+                .putLong(entry.getTransactedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli())
+                .putShort((short) account.length)
+                .put(account)
+                .flip();
+        crc.reset();
+        crc.update(payload.array(), 0, payload.limit());
+
+        int recordBytes = HEADER_BYTES + payload.limit();
+        if (current.buffer.remaining() < recordBytes) {
+            // 남은 공간은 0 으로 두어 읽을 때 segment 끝으로 처리
+            written += current.buffer.remaining();
+            sealed.add(current);
+            current = openSegment(current.id + 1);
+        }
+        current.buffer.putInt(payload.limit()).putInt((int) crc.getValue()).put(payload);
+        current.appended++;
+        written += recordBytes;
+        if (onDurable != null) {
+            pending.add(new Pending(written, onDurable));
+        }
+        return current.id;
+    }
+
+    public void markPersisted(long segmentId) {
+        Segment segment = segments.get(segmentId);
+        if (segment != null) {
+            segment.markPersisted();
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                if (!flush()) {
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (RuntimeException e) {
+                log.error("Write-ahead journal flush failed", e);
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+        }
+    }
+
+    /**
+     * 쓰는 쪽은 막지 않고 (lock 은 위치만 읽을 때 잡음) 그사이 쓰인 record 를 fsync 한 번으로 내린다.
+     * @return 내린 record 가 있으면 true
+     */
+    boolean flush() {
+        synchronized (flushLock) {
+            List<Segment> full;
+            Segment segment;
+            long position;
+            synchronized (this) {
+                if (written == durable) {
+                    return false;
+                }
+                full = new ArrayList<>(sealed);
+                sealed.clear();
+                segment = current;
+                position = written;
+            }
+            for (Segment sealedSegment : full) {
+                sealedSegment.buffer.force();
+                sealedSegment.markForced();
+            }
+            segment.buffer.force();
+            durable = position;
+
+            List<Runnable> completed = new ArrayList<>();
+            synchronized (this) {
+                while (!pending.isEmpty() && pending.peek().position <= position) {
+                    completed.add(pending.poll().onDurable);
+                }
+            }
+            completed.forEach(Runnable::run);
+            return true;
+        }
+    }
+
+    long getDurable() {
+        return durable;
+    }
+
+    private Segment openSegment(long id) {
+        Path file = directory.resolve(String.format("%020d%s", id, SUFFIX));
+        // mapping 은 channel 을 닫아도 남아 있으므로 바로 닫음
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Segment segment = new Segment(id, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void retire(Path file) throws IOException {
+        if (archive) {
+            Files.move(file, file.resolveSibling(file.getFileName() + DONE_SUFFIX));
+        } else {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * segment 파일 하나를 처음부터 읽는다.
+     * @return 읽은 record 개수
+     */
+    static int read(Path file, BiConsumer<String, BalanceEntry> consumer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        CRC32 crc = new CRC32();
+        int count = 0;
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < FIXED_PAYLOAD_BYTES || length > buffer.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(buffer.array(), buffer.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Write-ahead journal record corrupted, ignoring the rest. segment :{}, record :{}",
+                        file.getFileName(), count);
+                break;
+            }
+            TransactionType type = TransactionType.values()[buffer.get()];
+            long transactionId = buffer.getLong();
+            long canceledTransactionId = buffer.getLong();
+            long amount = buffer.getLong();
+            long balance = buffer.getLong();
+            long epochMillis = buffer.getLong();
+            byte[] account = new byte[buffer.getShort()];
+            buffer.get(account);
+            consumer.accept(new String(account, StandardCharsets.US_ASCII), new BalanceEntry(
+                    transactionId, type, amount, balance,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()),
+                    canceledTransactionId == 0 ? null : canceledTransactionId));
+            count++;
+        }
+        return count;
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private class Segment {
+        private final long id;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int appended; // WriteAheadJournal 의 lock 으로 보호, 다 찬 뒤에는 바뀌지 않음
+        private int persisted;
+        private boolean forced;
+        private boolean retired;
+
+        private Segment(long id, Path file, MappedByteBuffer buffer) {
+            this.id = id;
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private synchronized void markPersisted() {
+            persisted++;
+            retireIfDone();
+        }
+
+        // 다 찬 segment 를 마지막으로 fsync 한 뒤 호출
+        private synchronized void markForced() {
+            forced = true;
+            retireIfDone();
+        }
+
+        private void retireIfDone() {
+            if (!forced || retired || persisted < appended) {
+                return;
+            }
+            retired = true;
+            segments.remove(id);
+            try {
+                retire(file);
+            } catch (IOException e) {
+                log.error("Failed to retire write-ahead journal segment. segment :{}", file.getFileName(), e);
+            }
+        }
+    }
+
+    private static class Pending {
+        private final long position;
+        private final Runnable onDurable;
+
+        private Pending(long position, Runnable onDurable) {
+            this.position = position;
+            this.onDurable = onDurable;
+        }
+    }
+}
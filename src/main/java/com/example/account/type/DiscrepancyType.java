@@ -0,0 +1,6 @@
+package com.example.account.type;
+
+public enum DiscrepancyType {
+    SNAPSHOT_CHAIN_BROKEN, // 직전 거래 후 잔액 ± 거래금액 != 이번 거래 후 잔액
+    BALANCE_MISMATCH // 마지막 거래 후 잔액 != 계좌 잔액
+}
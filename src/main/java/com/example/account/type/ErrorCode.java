@@ -22,7 +22,11 @@ public enum ErrorCode {
     ACCOUNT_NUMBER_UN_MATCH("해당 거래의 계좌번호가 일치하지 않습니다."),
     EXCEED_DATE_1YEAR("거래일이 1년이상 지난 건입니다."),
     UNABLE_CANCEL_TRANSACTION("취소할 수 없는 거래건입니다."),
-    CURRENT_UNDER_TRANSACTION("현재 거래중인 계좌입니다. 나중에 다시 시도해주세요.")
+    CURRENT_UNDER_TRANSACTION("현재 거래중인 계좌입니다. 나중에 다시 시도해주세요."),
+    IDEMPOTENCY_KEY_REUSED("같은 Idempotency-Key 로 다른 요청을 보낼 수 없습니다."),
+    TOO_MANY_REQUESTS("요청이 너무 많습니다. 잠시 후 다시 시도해주세요."),
+    TRANSACTION_TIMEOUT("거래 처리 시간이 초과되었습니다. 같은 Idempotency-Key 로 다시 시도해주세요."),
+    REDIS_BALANCE_ACCOUNT("redis 잔액 계좌는 지정을 해제한 뒤 해지할 수 있습니다.")
     ;
 
     private final String description; //코드 부가설명
@@ -0,0 +1,7 @@
+package com.example.account.type;
+
+public enum FailureRecordingMode {
+    SYNC, // 실패마다 별도 트랜잭션으로 바로 저장
+    ASYNC, // 큐에 넣고 writer 가 묶음 단위로 저장, 실패 거래 아이디로 조회 가능
+    AGGREGATE // 계좌, 거래 종류, 오류, 분 단위 건수만 저장 (실패 거래 행을 남기지 않음)
+}
@@ -0,0 +1,57 @@
+package com.example.account.type;
+
+import com.example.account.exception.AccountException;
+
+import java.util.Arrays;
+
+/**
+ * 거래 아이디 문자열 변환
+ * DB 에는 BIGINT 로 저장하고, API 에서는 13자리 고정폭 Crockford base32 문자열로 주고받는다.
+ * 고정폭이므로 문자열 정렬 순서와 숫자 순서가 같다.
+ */
+public final class TransactionIdCodec {
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13; // 5bit x 13 = 65bit
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < ALPHABET.length; i++) {
+            DECODE[ALPHABET[i]] = i;
+            DECODE[Character.toLowerCase(ALPHABET[i])] = i;
+        }
+    }
+
+    private TransactionIdCodec() {
+    }
+
+    public static String format(long transactionId) {
+        char[] chars = new char[LENGTH];
+        long value = transactionId;
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 형식이 맞지 않는 아이디는 존재하지 않는 거래로 처리
+     */
+    public static long parse(String transactionId) {
+        if (transactionId == null || transactionId.length() != LENGTH) {
+            throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+        }
+        long value = 0;
+        for (int i = 0; i < LENGTH; i++) {
+            char c = transactionId.charAt(i);
+            int digit = c < DECODE.length ? DECODE[c] : -1;
+            // 첫 자리는 부호 비트를 넘지 않아야 함 (0 ~ 7)
+            if (digit < 0 || (i == 0 && digit > 7)) {
+                throw new AccountException(ErrorCode.TRANSACTION_NOT_FOUND);
+            }
+            value = (value << 5) | digit;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.account.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum TransactionMode {
+    LOCK(true), // 계좌 lock 을 잡고 조회 후 변경감지로 잔액 수정
+    ATOMIC(false), // 조건부 UPDATE 한 문장으로 잔액 수정, lock 없음
+    OPTIMISTIC(false), // lock 없이 변경감지로 수정, version 충돌 시 재시도
+    LEDGER(true), // 잔액을 수정하지 않고 거래만 추가, 잔액은 checkpoint + 이후 거래 합계
+    ENGINE(false); // 계좌별 단일 worker 가 메모리 잔액을 변경하고 journal 이 DB 에 반영, lock 없음
+
+    private final boolean lockRequired;
+}
@@ -0,0 +1,2 @@
+-- 계좌번호 구간 예약용, INCREMENT BY 는 account.number.block-size 와 같아야 함 (다르면 시작 시 실패)
+create sequence if not exists account_number_seq start with 1000000000 increment by 100;
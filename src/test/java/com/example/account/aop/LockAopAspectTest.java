@@ -2,33 +2,71 @@ package com.example.account.aop;
 
 import com.example.account.dto.TransactionUse;
 import com.example.account.exception.AccountException;
-import com.example.account.service.AccountLockService;
+import com.example.account.metric.LockMetrics;
+import com.example.account.service.AccountLockProvider;
+import com.example.account.service.AdaptiveLockTimeouts;
 import com.example.account.service.LockAopAspect;
+import com.example.account.service.OptimisticRetry;
+import com.example.account.service.RedisBalanceService;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
 import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class LockAopAspectTest {
     @Mock
-    private AccountLockService accountLockService;
+    private AccountLockProvider accountLockProvider;
+
+    @Mock
+    private AdaptiveLockTimeouts adaptiveLockTimeouts;
+
+    @Mock
+    private LockMetrics lockMetrics;
+
+    @Mock
+    private OptimisticRetry optimisticRetry;
+
+    @Mock
+    private RedisBalanceService redisBalanceService;
 
     @Mock
     private ProceedingJoinPoint proceedingJoinPoint;
 
+    @Mock
+    private Signature signature;
+
     @InjectMocks
     private LockAopAspect lockAopAspect;
 
+    @BeforeEach
+    void setUp() {
+        lenient().when(proceedingJoinPoint.getSignature())
+                .thenReturn(signature);
+        lenient().when(signature.getName())
+                .thenReturn("useAccountBalance");
+    }
+
     @Test
     void accountLockAndUnlock() throws Throwable {
         //given
@@ -39,10 +77,12 @@ class LockAopAspectTest {
         //when
         lockAopAspect.lockTransaction(proceedingJoinPoint, request);
         //then
-        verify(accountLockService,times(1)).lock(lockCaptor.capture());
-        verify(accountLockService,times(1)).unlock(unlockCaptor.capture());
+        verify(accountLockProvider,times(1)).lock(lockCaptor.capture(), any());
+        verify(accountLockProvider,times(1)).unlock(unlockCaptor.capture());
         assertEquals(request.getAccountNumber(),lockCaptor.getValue());
         assertEquals(request.getAccountNumber(),unlockCaptor.getValue());
+        verify(lockMetrics, times(1)).recordAcquired(eq("useAccountBalance"), eq("1111111111"), anyLong());
+        verify(lockMetrics, times(1)).recordReleased(eq("useAccountBalance"), eq("1111111111"), anyLong());
     }
 
     @Test
@@ -59,9 +99,50 @@ class LockAopAspectTest {
                 () -> lockAopAspect.lockTransaction(proceedingJoinPoint, request));
 
         //then
-        verify(accountLockService,times(1)).lock(lockCaptor.capture());
-        verify(accountLockService,times(1)).unlock(unlockCaptor.capture());
+        verify(accountLockProvider,times(1)).lock(lockCaptor.capture(), any());
+        verify(accountLockProvider,times(1)).unlock(unlockCaptor.capture());
         assertEquals(request.getAccountNumber(),lockCaptor.getValue());
         assertEquals(request.getAccountNumber(),unlockCaptor.getValue());
     }
-}
\ No newline at end of file
+
+    @Test
+    void lockFailIsRecordedWithoutUnlock() throws Throwable {
+        //given
+        TransactionUse.Request request = new TransactionUse.Request(111L, "1111111111", 500L);
+        willThrow(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION))
+                .given(accountLockProvider).lock(anyString(), any());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> lockAopAspect.lockTransaction(proceedingJoinPoint, request));
+        //then
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
+        verify(lockMetrics, times(1)).recordFailed(eq("useAccountBalance"), eq("1111111111"), anyLong());
+        verify(accountLockProvider, never()).unlock(anyString());
+        verify(proceedingJoinPoint, never()).proceed();
+    }
+
+    @Test
+    void atomicModeSkipsLock() throws Throwable {
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "transactionMode", TransactionMode.ATOMIC);
+        TransactionUse.Request request = new TransactionUse.Request(111L, "1111111111", 500L);
+        //when
+        lockAopAspect.lockTransaction(proceedingJoinPoint, request);
+        //then
+        verify(proceedingJoinPoint, times(1)).proceed();
+        verify(accountLockProvider, never()).lock(anyString(), any());
+        verify(accountLockProvider, never()).unlock(anyString());
+    }
+
+    @Test
+    void optimisticModeRetriesWithoutLock() throws Throwable {
+        //given
+        ReflectionTestUtils.setField(lockAopAspect, "transactionMode", TransactionMode.OPTIMISTIC);
+        TransactionUse.Request request = new TransactionUse.Request(111L, "1111111111", 500L);
+        //when
+        lockAopAspect.lockTransaction(proceedingJoinPoint, request);
+        //then
+        verify(optimisticRetry, times(1)).execute(eq("1111111111"), any());
+        verify(accountLockProvider, never()).lock(anyString(), any());
+    }
+}
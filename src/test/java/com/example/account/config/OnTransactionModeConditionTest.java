@@ -0,0 +1,40 @@
+package com.example.account.config;
+
+import com.example.account.type.TransactionMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OnTransactionModeConditionTest {
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(LedgerOnly.class);
+
+    @Test
+    @DisplayName("대소문자가 달라도 같은 모드면 등록")
+    void matchesRelaxedValue() {
+        contextRunner.withPropertyValues("account.transaction.mode=ledger")
+                .run(context -> assertTrue(context.containsBean("ledgerBean")));
+    }
+
+    @Test
+    @DisplayName("다른 모드이거나 설정이 없으면 (LOCK) 등록하지 않음")
+    void skipsOtherMode() {
+        contextRunner.withPropertyValues("account.transaction.mode=ATOMIC")
+                .run(context -> assertFalse(context.containsBean("ledgerBean")));
+        contextRunner.run(context -> assertFalse(context.containsBean("ledgerBean")));
+    }
+
+    @Configuration
+    static class LedgerOnly {
+        @Bean
+        @ConditionalOnTransactionMode(TransactionMode.LEDGER)
+        String ledgerBean() {
+            return "ledger";
+        }
+    }
+}
@@ -6,6 +6,8 @@ import com.example.account.dto.AccountInfo;
 import com.example.account.dto.CreateAccount;
 import com.example.account.dto.DeleteAccount;
 import com.example.account.service.AccountService;
+import com.example.account.service.InquiryService;
+import com.example.account.service.RedisBalanceService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -34,6 +36,12 @@ public class AccountControllerTest {
     @MockBean // 가짜 빈 등록
     private AccountService accountService;
 
+    @MockBean
+    private InquiryService inquiryService;
+
+    @MockBean
+    private RedisBalanceService redisBalanceService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -94,11 +102,10 @@ public class AccountControllerTest {
     void inquireAccounts() throws Exception {
         //given
         LocalDateTime now = LocalDateTime.now().withNano(0);
-        given(accountService.inquireAccounts(anyLong()))
-                .willReturn(new ArrayList<>(List.of(AccountDto.builder().accountNumber("1111111111")
-                        .balance(1000L).build(), AccountDto.builder().accountNumber("1111111112")
-                        .balance(10000L).build(), AccountDto.builder().accountNumber("1111111113")
-                        .balance(100000L).build())));
+        given(inquiryService.inquireAccounts(anyLong()))
+                .willReturn(new ArrayList<>(List.of(new AccountInfo("1111111111", 1000L),
+                        new AccountInfo("1111111112", 10000L),
+                        new AccountInfo("1111111113", 100000L))));
 
         //when
         //then
@@ -0,0 +1,58 @@
+package com.example.account.controller;
+
+import com.example.account.metric.LockMetrics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(LockAdminController.class)
+@Import(LockMetrics.class)
+class LockAdminControllerTest {
+    @Autowired
+    private LockMetrics lockMetrics;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("보유 중인 lock 조회")
+    void inquireHeldLocks() throws Exception {
+        //given
+        lockMetrics.recordAcquired("useAccountBalance", "1111111111", TimeUnit.MILLISECONDS.toNanos(1));
+        //when
+        //then
+        mockMvc.perform(get("/admin/locks"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].accountNumber").value("1111111111"))
+                .andExpect(jsonPath("$[0].endpoint").value("useAccountBalance"));
+    }
+
+    @Test
+    @DisplayName("lock 통계 조회")
+    void inquireLockStats() throws Exception {
+        //given
+        lockMetrics.recordAcquired("useAccountBalance", "2222222222", TimeUnit.MILLISECONDS.toNanos(10));
+        lockMetrics.recordReleased("useAccountBalance", "2222222222", TimeUnit.MILLISECONDS.toNanos(3));
+        lockMetrics.recordFailed("useAccountBalance", "2222222222", TimeUnit.SECONDS.toNanos(1));
+        //when
+        //then
+        mockMvc.perform(get("/admin/locks/stats?top=1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.endpoints[0].endpoint").value("useAccountBalance"))
+                .andExpect(jsonPath("$.endpoints[0].failureCount").value(1))
+                .andExpect(jsonPath("$.contendedAccounts[0].accountNumber").value("2222222222"))
+                .andExpect(jsonPath("$.contendedAccounts[0].contentionCount").value(2));
+    }
+}
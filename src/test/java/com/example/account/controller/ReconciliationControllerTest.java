@@ -0,0 +1,79 @@
+package com.example.account.controller;
+
+import com.example.account.metric.ReconciliationProgress;
+import com.example.account.service.BalanceReconciler;
+import com.example.account.type.DiscrepancyType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ReconciliationController.class)
+class ReconciliationControllerTest {
+    @MockBean
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("잔액 대사 시작")
+    void startReconciliation() throws Exception {
+        //given
+        given(balanceReconciler.start())
+                .willReturn(new ReconciliationProgress(1, 100, 1, 10));
+        //when
+        //then
+        mockMvc.perform(post("/admin/reconciliation"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.totalChunks").value(1));
+    }
+
+    @Test
+    @DisplayName("잔액 대사 진행 상황 조회")
+    void inquireReconciliation() throws Exception {
+        //given
+        ReconciliationProgress progress = new ReconciliationProgress(1, 100, 1, 10);
+        progress.recordRows(10);
+        progress.recordChunk(5);
+        progress.recordDiscrepancy(new ReconciliationProgress.Discrepancy(
+                DiscrepancyType.BALANCE_MISMATCH, "1111111111", 1234L, 9000L, 5000L));
+        progress.finish(ReconciliationProgress.Status.COMPLETED);
+        given(balanceReconciler.getProgress())
+                .willReturn(progress);
+        //when
+        //then
+        mockMvc.perform(get("/admin/reconciliation"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.accounts").value(5))
+                .andExpect(jsonPath("$.rows").value(10))
+                .andExpect(jsonPath("$.discrepancyCount").value(1))
+                .andExpect(jsonPath("$.discrepancies[0].transactionId").value("000000000016J"))
+                .andExpect(jsonPath("$.discrepancies[0].type").value("BALANCE_MISMATCH"));
+    }
+
+    @Test
+    @DisplayName("실행한 적 없으면 204")
+    void inquireReconciliationBeforeStart() throws Exception {
+        //given
+        given(balanceReconciler.getProgress())
+                .willReturn(null);
+        //when
+        //then
+        mockMvc.perform(get("/admin/reconciliation"))
+                .andExpect(status().isNoContent());
+    }
+}
@@ -2,8 +2,16 @@ package com.example.account.controller;
 
 import com.example.account.dto.TransactionCancel;
 import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionInquiry;
 import com.example.account.dto.TransactionUse;
+import com.example.account.service.AsyncTransactionService;
+import com.example.account.service.BatchTransactionService;
+import com.example.account.service.FailedTransactionRecorder;
+import com.example.account.service.GroupCommitter;
+import com.example.account.service.InquiryService;
+import com.example.account.service.RedisBalanceService;
 import com.example.account.service.TransactionInfoService;
+import com.example.account.type.ErrorCode;
 import com.example.account.type.TransactionResult;
 import com.example.account.type.TransactionType;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,15 +22,20 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(TransactionController.class)
@@ -30,6 +43,24 @@ class TransactionControllerTest {
     @MockBean
     private TransactionInfoService transactionInfoService;
 
+    @MockBean
+    private AsyncTransactionService asyncTransactionService;
+
+    @MockBean
+    private BatchTransactionService batchTransactionService;
+
+    @MockBean
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @MockBean
+    private InquiryService inquiryService;
+
+    @MockBean
+    private RedisBalanceService redisBalanceService;
+
+    @MockBean
+    private GroupCommitter groupCommitter;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -46,7 +77,7 @@ class TransactionControllerTest {
         input.setUserId(1L);
         LocalDateTime now = LocalDateTime.now().withNano(0);
 
-        given(transactionInfoService.transactUse(anyString(), anyLong(), anyLong()))
+        given(groupCommitter.transactUse(anyString(), anyLong(), anyLong()))
                 .willReturn(TransactionDto.builder()
                         .transactionId("1q2w3e4r5t")
                         .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
@@ -100,14 +131,78 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$.transactedAt").value(now.toString()));
     }
 
+    @Test
+    @DisplayName("잔액 사용 비동기")
+    void useAccountBalanceAsync() throws Exception {
+        //given
+        TransactionUse.Request input = new TransactionUse.Request(1L, "1111111111", 10000L);
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+
+        given(asyncTransactionService.transactUse(anyString(), anyLong(), anyLong()))
+                .willReturn(CompletableFuture.completedFuture(TransactionDto.builder()
+                        .transactionId("1q2w3e4r5t")
+                        .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                        .accountNumber("1111111111")
+                        .amount(10000L)
+                        .transactedAt(now).build()));
+        //when
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/async")
+                        .content(objectMapper.writeValueAsString(input))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value("1q2w3e4r5t"))
+                .andExpect(jsonPath("$.transactionResult").value("TRANSACTION_SUCCESS"))
+                .andExpect(jsonPath("$.amount").value(10000L));
+    }
+
+    @Test
+    @DisplayName("잔액 일괄 사용")
+    void useAccountBalanceBatch() throws Exception {
+        //given
+        List<TransactionUse.Request> input = List.of(
+                new TransactionUse.Request(1L, "1111111111", 10000L),
+                new TransactionUse.Request(1L, "2222222222", 20000L));
+
+        given(batchTransactionService.transactUse(anyList()))
+                .willReturn(CompletableFuture.completedFuture(List.of(
+                        TransactionUse.BatchResponse.builder()
+                                .accountNumber("1111111111")
+                                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                                .transactionId("1q2w3e4r5t")
+                                .amount(10000L).build(),
+                        TransactionUse.BatchResponse.failed(input.get(1), ErrorCode.INSUFFICIENT_BALANCE))));
+        //when
+        MvcResult mvcResult = mockMvc.perform(post("/transaction/use/batch")
+                        .content(objectMapper.writeValueAsString(input))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].transactionId").value("1q2w3e4r5t"))
+                .andExpect(jsonPath("$[0].transactionResult").value("TRANSACTION_SUCCESS"))
+                .andExpect(jsonPath("$[1].accountNumber").value("2222222222"))
+                .andExpect(jsonPath("$[1].transactionResult").value("TRANSACTION_FAIL"))
+                .andExpect(jsonPath("$[1].errorCode").value("INSUFFICIENT_BALANCE"));
+    }
+
     @Test
     @DisplayName("잔액 조회")
     void inquireTransaction() throws Exception {
         //given
         LocalDateTime now = LocalDateTime.now().withNano(0);
 
-        given(transactionInfoService.inquireTransaction(anyString()))
-                .willReturn(TransactionDto.builder()
+        given(inquiryService.inquireTransaction(anyString()))
+                .willReturn(TransactionInquiry.builder()
                         .accountNumber("1111111111")
                         .transactionType(TransactionType.USE)
                         .transactionResult(TransactionResult.TRANSACTION_FAIL)
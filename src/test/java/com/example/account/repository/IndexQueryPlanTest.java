@@ -0,0 +1,72 @@
+package com.example.account.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 대용량 데이터에서 계좌/거래 조회가 인덱스를 타는지 실행계획으로 확인
+ * 기본 test 에서는 제외, ./gradlew largeDataTest 로 실행 (-DlargeData.rows 로 계좌 수 조정)
+ */
+@Tag("large-data")
+@DataJpaTest
+@ExtendWith(SpringExtension.class)
+class IndexQueryPlanTest {
+    private static final int ACCOUNT_ROWS = Integer.getInteger("largeData.rows", 1_000_000);
+    private static final int TRANSACTIONS_PER_ACCOUNT = 2;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("insert into account_user(id, name, created_at, updated_at) "
+                + "values (next value for account_user_seq, 'large-data', now(), now())");
+        Long userId = jdbcTemplate.queryForObject("select max(id) from account_user", Long.class);
+
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, account_status, balance, "
+                + "registered_at, created_at, updated_at) "
+                + "select next value for account_seq, ?, cast(1000000000 + x as varchar), 'IN_USE', 10000, "
+                + "now(), now(), now() "
+                + "from system_range(1, ?)", userId, ACCOUNT_ROWS);
+        jdbcTemplate.update("insert into transaction_info(id, account_id, transaction_type, transaction_result, "
+                + "transaction_id, amount, balance_snapshot, transacted_at, created_at, updated_at) "
+                + "select next value for transaction_info_seq, a.id, 'USE', 'TRANSACTION_SUCCESS', a.id * ? + r.x, "
+                + "1000, 9000, now(), now(), now() "
+                + "from account a, system_range(1, ?) r", TRANSACTIONS_PER_ACCOUNT, TRANSACTIONS_PER_ACCOUNT);
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("계좌/거래 조회가 인덱스를 사용")
+    void lookupsStayIndexBacked() {
+        // AccountRepository.findByAccountNumber
+        assertIndexUsed("ux_account_account_number",
+                "select * from account where account_number = '1000500000'");
+        // AccountRepository.countByAccountUser
+        assertIndexUsed("ix_account_account_user_id",
+                "select count(id) from account where account_user_id = 1");
+        // TransactionInfoRepository.findByTransactionId
+        assertIndexUsed("ux_transaction_info_transaction_id",
+                "select * from transaction_info where transaction_id = 1000001");
+        // 계좌별 최근 거래 이력
+        assertIndexUsed("ix_transaction_info_account_id_transacted_at",
+                "select * from transaction_info where account_id = 500000 "
+                        + "and transacted_at >= dateadd('YEAR', -1, now()) order by transacted_at");
+    }
+
+    private void assertIndexUsed(String indexName, String sql) {
+        String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+        assertNotNull(plan);
+        assertTrue(plan.toUpperCase().contains(indexName.toUpperCase()), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+}
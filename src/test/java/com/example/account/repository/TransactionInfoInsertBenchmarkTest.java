@@ -0,0 +1,143 @@
+package com.example.account.repository;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.TransactionInfo;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import com.example.benchmark.IdentityTransactionInfo;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 거래 저장 처리량 비교, 두 경우 모두 repository saveAll 로 같은 크기씩 저장
+ * - before: 변경 전 매핑 (IDENTITY), insert 마다 생성된 키를 읽어야 해서 JDBC batch 가 꺼짐
+ * - after : TransactionInfoRepository, pooled-lo sequence + JDBC batch
+ * 기본 test 에서는 제외, ./gradlew benchmarkTest 로 실행
+ */
+@Tag("benchmark")
+@DataJpaTest(showSql = false, properties = {
+        "spring.jpa.properties.hibernate.show_sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ExtendWith(SpringExtension.class)
+class TransactionInfoInsertBenchmarkTest {
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 20_000);
+    private static final int BATCH_SIZE = 50;
+
+    @Autowired
+    private TransactionInfoRepository transactionInfoRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    @DisplayName("거래 저장 처리량 (identity vs pooled-lo batch)")
+    void insertThroughput() {
+        //given
+        AccountUser user = accountUserRepository.save(AccountUser.builder().name("benchmark").build());
+        Account account = accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber("1999999999")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(10000L)
+                .registeredAt(LocalDateTime.now())
+                .build());
+        entityManager.flush();
+        // repository 프록시와 같은 save/saveAll 구현
+        JpaRepository<IdentityTransactionInfo, Long> identityRepository =
+                new SimpleJpaRepository<>(IdentityTransactionInfo.class, entityManager);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        //when
+        statistics.clear();
+        long beforeNanos = insert(identityRepository, transactionId -> IdentityTransactionInfo.builder()
+                .account(account)
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+        long beforeStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long afterNanos = insert(transactionInfoRepository, transactionId -> TransactionInfo.builder()
+                .account(account)
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                .transactionId(transactionId)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+        long afterStatements = statistics.getPrepareStatementCount();
+
+        //then
+        System.out.printf("rows=%d before(identity)=%.0f rows/s statements=%d "
+                        + "after(pooled-lo batch)=%.0f rows/s statements=%d%n",
+                ROWS, throughput(beforeNanos), beforeStatements, throughput(afterNanos), afterStatements);
+        // identity 는 건마다 insert, pooled-lo 는 50건씩 묶이고 sequence 도 50건마다 한 번만 호출
+        assertTrue(beforeStatements >= ROWS, "identity prepared statements: " + beforeStatements);
+        assertTrue(afterStatements < ROWS / 10, "prepared statements: " + afterStatements);
+    }
+
+    private <T> long insert(JpaRepository<T, Long> repository, LongFunction<T> factory) {
+        long startedAt = System.nanoTime();
+        List<T> chunk = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < ROWS; i++) {
+            chunk.add(factory.apply(i));
+            if (chunk.size() == BATCH_SIZE) {
+                repository.saveAll(chunk);
+                entityManager.flush();
+                entityManager.clear();
+                chunk.clear();
+            }
+        }
+        repository.saveAll(chunk);
+        entityManager.flush();
+        entityManager.clear();
+        return System.nanoTime() - startedAt;
+    }
+
+    private double throughput(long nanos) {
+        return ROWS / (nanos / 1_000_000_000.0);
+    }
+
+    // 비교용 entity 는 이 context 에서만 등록 (다른 테스트 context 의 schema 는 그대로)
+    @TestConfiguration
+    @EntityScan(basePackageClasses = {Account.class, IdentityTransactionInfo.class})
+    static class BenchmarkEntityConfig {
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.AccountDto;
+import com.example.account.dto.BalanceEntry;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionIdCodec;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountEngineTest {
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    private final AtomicLong ids = new AtomicLong(1000L);
+    private AccountEngine accountEngine;
+
+    @BeforeEach
+    void setUp() {
+        accountEngine = new AccountEngine(transactionInfoService, accountService, accountRepository, accountUserRepository,
+                ids::incrementAndGet, null, 2, 16, 100, 10, false, 1000);
+        accountEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        accountEngine.shutdown();
+    }
+
+    @Test
+    @DisplayName("사용 성공 - 메모리 잔액에서 차감하고 journal 로 DB 에 반영")
+    void useSuccess() {
+        //given
+        givenAccount(10000L);
+        ArgumentCaptor<List<BalanceEntry>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        TransactionDto first = accountEngine.use("1000000000", 12L, 1000L).join();
+        TransactionDto second = accountEngine.use("1000000000", 12L, 2000L).join();
+        //then
+        assertEquals(9000L, first.getBalanceSnapshot());
+        assertEquals(7000L, second.getBalanceSnapshot());
+        assertEquals(TransactionIdCodec.format(1002L), second.getTransactionId());
+        assertEquals(Optional.of(7000L), accountEngine.balanceOf("1000000000").join());
+        verify(accountRepository, times(1)).findByAccountNumber("1000000000");
+        verify(transactionInfoService, timeout(1000).atLeastOnce())
+                .saveBalanceEntries(eq("1000000000"), captor.capture());
+        assertEquals(TransactionType.USE, captor.getAllValues().get(0).get(0).getTransactionType());
+    }
+
+    @Test
+    @DisplayName("사용 실패 - 잔액 부족이면 잔액을 바꾸지 않고 journal 에도 남기지 않음")
+    void useFailedInsufficientBalance() {
+        //given
+        givenAccount(1000L);
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.use("1000000000", 12L, 2000L).join());
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, ((AccountException) exception.getCause()).getErrorCode());
+        assertEquals(Optional.of(1000L), accountEngine.balanceOf("1000000000").join());
+        verify(transactionInfoService, after(100).never()).saveBalanceEntries(eq("1000000000"), anyList());
+    }
+
+    @Test
+    @DisplayName("사용 실패 - 소유주 불일치")
+    void useFailedUserUnMatch() {
+        //given
+        givenAccount(10000L);
+        given(accountUserRepository.existsById(13L)).willReturn(true);
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.use("1000000000", 13L, 1000L).join());
+        //then
+        assertEquals(ErrorCode.ACCOUNT_USER_UN_MATCH, ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("취소 - 메모리의 사용 거래로 검증하고, 같은 거래를 두 번 취소할 수 없음")
+    void cancelUseInMemory() {
+        //given
+        givenAccount(10000L);
+        TransactionDto used = accountEngine.use("1000000000", 12L, 1000L).join();
+        //when
+        TransactionDto canceled = accountEngine.cancel("1000000000", used.getTransactionId(), 1000L).join();
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.cancel("1000000000", used.getTransactionId(), 1000L).join());
+        //then
+        assertEquals(10000L, canceled.getBalanceSnapshot());
+        assertEquals(ErrorCode.UNABLE_CANCEL_TRANSACTION, ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionInfoService, never()).validateCancelable(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("취소 - 메모리에 없는 거래는 DB 거래로 검증")
+    void cancelValidatedInDatabase() {
+        //given
+        givenAccount(10000L);
+        lenient().doThrow(new AccountException(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH))
+                .when(transactionInfoService).validateCancelable("1000000000", 1234L, 500L);
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.cancel("1000000000", TransactionIdCodec.format(1234L), 500L).join());
+        TransactionDto canceled = accountEngine.cancel("1000000000", TransactionIdCodec.format(1234L), 1000L)
+                .join();
+        //then
+        assertEquals(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH, ((AccountException) exception.getCause()).getErrorCode());
+        assertEquals(11000L, canceled.getBalanceSnapshot());
+        verify(transactionInfoService).validateCancelable("1000000000", 1234L, 1000L);
+    }
+
+    @Test
+    @DisplayName("해지 - 메모리 잔액으로 확인하고, 해지 후 사용 거래는 거절")
+    void closeUsesMemoryBalance() {
+        //given
+        givenAccount(1000L);
+        given(accountUserRepository.existsById(12L)).willReturn(true);
+        accountEngine.use("1000000000", 12L, 1000L).join();
+        //when
+        AccountDto closed = accountEngine.close(12L, "1000000000").join();
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.use("1000000000", 12L, 1000L).join());
+        //then
+        assertEquals("1000000000", closed.getAccountNumber());
+        assertNotNull(closed.getUnRegisteredAt());
+        verify(accountService).unregisterAccount(eq("1000000000"), any());
+        assertEquals(ErrorCode.UNREGISTERED_ACCOUNT, ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("해지 실패 - 메모리 잔액이 남은 경우 DB 에 반영하지 않음")
+    void closeFailedRemainedBalance() {
+        //given
+        givenAccount(0L);
+        given(accountUserRepository.existsById(12L)).willReturn(true);
+        accountEngine.cancel("1000000000", TransactionIdCodec.format(1234L), 1000L).join();
+        //when
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> accountEngine.close(12L, "1000000000").join());
+        //then
+        assertEquals(ErrorCode.REMAINED_BALANCE, ((AccountException) exception.getCause()).getErrorCode());
+        verify(accountService, never()).unregisterAccount(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("거래 아이디와 시각은 worker 가 처리 순서대로 정함")
+    void transactionIdsFollowProcessingOrder() {
+        //given
+        givenAccount(100000L);
+        List<CompletableFuture<TransactionDto>> results = new ArrayList<>();
+        //when
+        for (int i = 0; i < 10; i++) { // ring buffer 16 안에서
+            results.add(CompletableFuture.supplyAsync(() -> accountEngine.use("1000000000", 12L, 1000L))
+                    .thenCompose(Function.identity()));
+        }
+        //then
+        List<TransactionDto> processed = results.stream()
+                .map(CompletableFuture::join)
+                .sorted(Comparator.comparing(TransactionDto::getBalanceSnapshot).reversed())
+                .collect(Collectors.toList());
+        for (int i = 1; i < processed.size(); i++) {
+            TransactionDto before = processed.get(i - 1);
+            TransactionDto after = processed.get(i);
+            assertTrue(TransactionIdCodec.parse(before.getTransactionId())
+                    < TransactionIdCodec.parse(after.getTransactionId()));
+            assertFalse(after.getTransactedAt().isBefore(before.getTransactedAt()));
+        }
+    }
+
+    private void givenAccount(Long balance) {
+        AccountUser user = AccountUser.builder().id(12L).build();
+        given(accountRepository.findByAccountNumber("1000000000"))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountNumber("1000000000")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(balance)
+                        .build()));
+    }
+}
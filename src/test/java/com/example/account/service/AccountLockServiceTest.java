@@ -4,16 +4,27 @@ import com.example.account.exception.AccountException;
 import com.example.account.type.ErrorCode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RFuture;
 import org.redisson.api.RLock;
+import org.redisson.api.RScript;
 import org.redisson.api.RedissonClient;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class AccountLockServiceTest {
@@ -24,35 +35,142 @@ class AccountLockServiceTest {
     @Mock
     private RLock rLock;
 
+    @Mock
+    private RFuture<Boolean> lockFuture;
+
+    @Mock
+    private RFuture<Void> unlockFuture;
+
+    @Mock
+    private RScript rScript;
+
     @InjectMocks
     private AccountLockService accountLockService;
 
     @Test
-    void lockSuccess() throws InterruptedException {
+    void renewChecksOwnerInOneScript() {
+        //given
+        given(redissonClient.getScript(any()))
+                .willReturn(rScript);
+        given(redissonClient.getId())
+                .willReturn("node");
+        given(rScript.eval(eq("ACLK:11111"), eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), eq(List.<Object>of("ACLK:11111")), eq("node:-1"), eq("3000")))
+                .willReturn(0L);
+        //when
+        boolean renewed = accountLockService.renew("11111", -1L, System.currentTimeMillis(), 3000);
+        //then
+        assertFalse(renewed);
+    }
+
+    @Test
+    void renewStopsAfterMaxHold() {
+        //given
+        //when
+        boolean renewed = accountLockService.renew("11111", -1L,
+                System.currentTimeMillis() - LockTimeouts.FALLBACK.getLeaseMillis() - 1, 3000);
+        //then
+        assertFalse(renewed);
+        verify(redissonClient, never()).getScript(any());
+    }
+
+    @Test
+    void renewExtendsOnlyUntilMaxHold() {
+        //given
+        ReflectionTestUtils.setField(accountLockService, "maxHoldMillis", 2000L);
+        given(redissonClient.getScript(any()))
+                .willReturn(rScript);
+        given(redissonClient.getId())
+                .willReturn("node");
+        ArgumentCaptor<Object> expire = ArgumentCaptor.forClass(Object.class);
+        given(rScript.eval(eq("ACLK:11111"), eq(RScript.Mode.READ_WRITE), anyString(),
+                eq(RScript.ReturnType.INTEGER), eq(List.<Object>of("ACLK:11111")), eq("node:-1"), expire.capture()))
+                .willReturn(1L);
+        //when
+        boolean renewed = accountLockService.renew("11111", -1L, System.currentTimeMillis() - 1500, 3000);
+        boolean stopped = accountLockService.renew("11111", -1L, System.currentTimeMillis() - 2001, 3000);
+        //then
+        assertTrue(renewed);
+        assertTrue(Long.parseLong((String) expire.getValue()) <= 500);
+        assertFalse(stopped);
+        verify(redissonClient, times(1)).getScript(any());
+    }
+
+    @Test
+    void lockSuccess() throws Exception {
         //given
         given(redissonClient.getLock(any()))
                 .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.get())
                 .willReturn(true);
         //when
         //then
-        assertDoesNotThrow(() -> accountLockService.lock("11111"));
+        assertDoesNotThrow(() -> accountLockService.lock("11111", LockTimeouts.FALLBACK));
     }
 
     @Test
-    void lockFail() throws InterruptedException {
+    void lockFail() throws Exception {
         //given
         given(redissonClient.getLock(any()))
                 .willReturn(rLock);
-        given(rLock.tryLock(anyLong(), anyLong(), any()))
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.get())
                 .willReturn(false);
         //when
         AccountException exception = assertThrows(AccountException.class,
-                () -> accountLockService.lock("11111"));
+                () -> accountLockService.lock("11111", LockTimeouts.FALLBACK));
         //then
         assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
 
     }
 
+    @Test
+    void unlockReleasesRedisLockWithoutLocalWaiter() throws Exception {
+        //given
+        given(redissonClient.getLock(any()))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.get())
+                .willReturn(true);
+        given(rLock.unlockAsync(anyLong()))
+                .willReturn(unlockFuture);
+        //when
+        accountLockService.lock("11111", LockTimeouts.FALLBACK);
+        accountLockService.unlock("11111");
+        //then
+        verify(rLock, times(1)).unlockAsync(anyLong());
+    }
+
+    @Test
+    void redisLockHandedOverToLocalWaiter() throws Exception {
+        //given
+        given(redissonClient.getLock(any()))
+                .willReturn(rLock);
+        given(rLock.tryLockAsync(anyLong(), anyLong(), any(), anyLong()))
+                .willReturn(lockFuture);
+        given(lockFuture.get())
+                .willReturn(true);
+        given(rLock.unlockAsync(anyLong()))
+                .willReturn(unlockFuture);
 
-}
\ No newline at end of file
+        accountLockService.lock("11111", LockTimeouts.FALLBACK);
+        Thread waiter = new Thread(() -> {
+            accountLockService.lock("11111", LockTimeouts.FALLBACK);
+            accountLockService.unlock("11111");
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        //when
+        accountLockService.unlock("11111");
+        waiter.join();
+        //then
+        verify(rLock, times(1)).tryLockAsync(anyLong(), anyLong(), any(), anyLong());
+        verify(rLock, times(1)).unlockAsync(anyLong());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RAtomicLong;
+import org.redisson.api.RedissonClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private RAtomicLong counter;
+
+    @Test
+    @DisplayName("예약한 구간을 다 쓰면 다음 구간 예약")
+    void sequenceAllocatorReservesNextBlock() {
+        //given
+        given(jdbcTemplate.queryForObject(anyString(), eq(Long.class)))
+                .willReturn(1000000000L, 1000000300L);
+        AccountNumberAllocator allocator = new SequenceAccountNumberAllocator(jdbcTemplate, 2);
+        //when
+        String first = allocator.next();
+        String second = allocator.next();
+        String third = allocator.next();
+        //then
+        assertEquals("1000000000", first);
+        assertEquals("1000000001", second);
+        assertEquals("1000000300", third);
+        verify(jdbcTemplate, times(2)).queryForObject(anyString(), eq(Long.class));
+    }
+
+    @Test
+    @DisplayName("sequence 의 INCREMENT BY 가 block-size 와 다르면 시작하지 않음")
+    void sequenceAllocatorRejectsMismatchedIncrement() {
+        //given
+        given(jdbcTemplate.queryForList(anyString(), eq(String.class)))
+                .willReturn(List.of("100"));
+        SequenceAccountNumberAllocator matched = new SequenceAccountNumberAllocator(jdbcTemplate, 100);
+        SequenceAccountNumberAllocator mismatched = new SequenceAccountNumberAllocator(jdbcTemplate, 50);
+        //when
+        //then
+        assertDoesNotThrow(matched::validateIncrement);
+        assertThrows(IllegalStateException.class, mismatched::validateIncrement);
+    }
+
+    @Test
+    @DisplayName("첫 계좌번호는 INITIAL_ACCOUNT_NUMBER")
+    void redisAllocatorStartsFromInitialAccountNumber() {
+        //given
+        given(redissonClient.getAtomicLong(anyString()))
+                .willReturn(counter);
+        given(counter.addAndGet(anyLong()))
+                .willReturn(100L);
+        AccountNumberAllocator allocator = new RedisAccountNumberAllocator(redissonClient, 100);
+        //when
+        String accountNumber = allocator.next();
+        //then
+        assertEquals("1000000000", accountNumber);
+        verify(counter, times(1)).addAndGet(100L);
+    }
+}
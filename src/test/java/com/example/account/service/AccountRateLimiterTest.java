@@ -0,0 +1,110 @@
+package com.example.account.service;
+
+import com.example.account.config.RateLimitProperties;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountRateLimiterTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private RateLimitProperties properties;
+    private AccountRateLimiter accountRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.getDefaults().setPerUser(limit(10, 2));
+        properties.getDefaults().setPerAccount(limit(10, 3));
+        accountRateLimiter = new AccountRateLimiter(properties, null, now::get);
+    }
+
+    @Test
+    @DisplayName("burst 를 넘으면 TOO_MANY_REQUESTS")
+    void rejectedAfterBurst() {
+        //given
+        accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000");
+        accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000");
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000"));
+        //then
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, exception.getErrorCode());
+        // 다른 사용자, 다른 endpoint 는 영향 없음
+        assertDoesNotThrow(() -> accountRateLimiter.acquire("useAccountBalance", 2L, "2000000000"));
+        assertDoesNotThrow(() -> accountRateLimiter.acquire("cancelUseAccount", 1L, "1000000000"));
+    }
+
+    @Test
+    @DisplayName("시간이 지나면 초당 permits-per-second 개씩 다시 허용")
+    void refillsOverTime() {
+        //given
+        accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000");
+        accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000");
+        assertThrows(AccountException.class,
+                () -> accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000"));
+        //when
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        //then
+        assertDoesNotThrow(() -> accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000"));
+        assertThrows(AccountException.class,
+                () -> accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000"));
+    }
+
+    @Test
+    @DisplayName("사용자가 달라도 같은 계좌는 계좌 한도를 함께 사용")
+    void perAccountLimitSharedByUsers() {
+        //given
+        accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000");
+        accountRateLimiter.acquire("useAccountBalance", 2L, "1000000000");
+        accountRateLimiter.acquire("useAccountBalance", 3L, "1000000000");
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountRateLimiter.acquire("useAccountBalance", 4L, "1000000000"));
+        //then
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("endpoint 별 설정이 defaults 보다 우선")
+    void endpointOverride() {
+        //given
+        RateLimitProperties.Endpoint cancel = new RateLimitProperties.Endpoint();
+        cancel.setPerAccount(limit(1, 1));
+        properties.getEndpoints().put("cancelUseAccount", cancel);
+        //when
+        accountRateLimiter.acquire("cancelUseAccount", null, "1000000000");
+        //then
+        assertThrows(AccountException.class,
+                () -> accountRateLimiter.acquire("cancelUseAccount", null, "1000000000"));
+        // 사용자 한도는 설정하지 않았으므로 defaults 사용
+        assertEquals(2, properties.getPerUser("cancelUseAccount").getBurst());
+    }
+
+    @Test
+    @DisplayName("enabled=false 이면 제한 없음")
+    void disabled() {
+        //given
+        properties.setEnabled(false);
+        //when
+        //then
+        for (int i = 0; i < 100; i++) {
+            assertDoesNotThrow(() -> accountRateLimiter.acquire("useAccountBalance", 1L, "1000000000"));
+        }
+    }
+
+    private static RateLimitProperties.Limit limit(double permitsPerSecond, int burst) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setPermitsPerSecond(permitsPerSecond);
+        limit.setBurst(burst);
+        return limit;
+    }
+}
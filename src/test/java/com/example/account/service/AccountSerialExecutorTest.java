@@ -0,0 +1,117 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountSerialExecutorTest {
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private AccountSerialExecutor accountSerialExecutor;
+
+    @AfterEach
+    void tearDown() {
+        accountSerialExecutor.shutdown();
+        clients.shutdown();
+    }
+
+    @Test
+    void executeInArrivalOrder() throws Throwable {
+        //given
+        accountSerialExecutor = new AccountSerialExecutor(64, 3000, 4);
+        List<Integer> executed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CompletableFuture<Object> first = runAsync(() -> {
+            blocker.await();
+            executed.add(0);
+            return null;
+        });
+        Thread.sleep(50);
+        List<CompletableFuture<Object>> others = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            int order = i;
+            others.add(runAsync(() -> executed.add(order)));
+            Thread.sleep(10);
+        }
+        //when
+        blocker.countDown();
+        first.join();
+        others.forEach(CompletableFuture::join);
+        //then
+        assertEquals(List.of(0, 1, 2, 3, 4, 5), executed);
+    }
+
+    @Test
+    void rejectWhenQueueIsFull() throws Throwable {
+        //given
+        accountSerialExecutor = new AccountSerialExecutor(1, 3000, 4);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CompletableFuture<Object> running = runAsync(() -> {
+            blocker.await();
+            return null;
+        });
+        Thread.sleep(50);
+        CompletableFuture<Object> queued = runAsync(() -> null);
+        Thread.sleep(50);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSerialExecutor.execute("1111111111", () -> null));
+        //then
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
+        blocker.countDown();
+        running.join();
+        queued.join();
+    }
+
+    @Test
+    void rejectWhenDeadlinePassed() throws Throwable {
+        //given
+        accountSerialExecutor = new AccountSerialExecutor(64, 100, 4);
+        CountDownLatch blocker = new CountDownLatch(1);
+        CompletableFuture<Object> running = runAsync(() -> {
+            blocker.await();
+            return null;
+        });
+        Thread.sleep(20);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSerialExecutor.execute("1111111111", () -> null));
+        //then
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
+        blocker.countDown();
+        running.join();
+    }
+
+    @Test
+    void rethrowTaskException() {
+        //given
+        accountSerialExecutor = new AccountSerialExecutor(64, 3000, 4);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountSerialExecutor.execute("1111111111", () -> {
+                    throw new AccountException(ErrorCode.INSUFFICIENT_BALANCE);
+                }));
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+    }
+
+    private CompletableFuture<Object> runAsync(AccountSerialExecutor.AccountTask<Object> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return accountSerialExecutor.execute("1111111111", task);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }, clients);
+    }
+}
@@ -17,14 +17,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
@@ -37,6 +36,12 @@ class AccountServiceTest {
     @Mock
     private AccountUserRepository accountUserRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private RedisBalanceService redisBalanceService;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -51,10 +56,8 @@ class AccountServiceTest {
                 .willReturn(Optional.of(user));
         given(accountRepository.countByAccountUser(any()))
                 .willReturn(0);
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.ofNullable(Account.builder()
-                        .accountNumber("1000000011")
-                        .build()));
+        given(accountNumberAllocator.next())
+                .willReturn("1000000012");
         given(accountRepository.save(any()))
                 .willReturn(Account.builder()
                         .accountUser(user)
@@ -72,36 +75,6 @@ class AccountServiceTest {
         assertEquals(10000L, accountDto.getBalance());
     }
 
-    @Test
-    @DisplayName("첫 계좌 생성 시 계좌번호")
-    void createFirstAccount() {
-        //given
-        AccountUser user = AccountUser.builder()
-                .name("홍길동")
-                .id(1234L).build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.countByAccountUser(any()))
-                .willReturn(0);
-        given(accountRepository.findFirstByOrderByIdDesc())
-                .willReturn(Optional.empty());
-        given(accountRepository.save(any()))
-                .willReturn(Account.builder()
-                        .accountUser(user)
-                        .balance(10000L)
-                        .build());
-
-        ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
-        //when
-        AccountDto accountDto = accountService.createAccount(user.getId(), 10000L);
-
-        //then
-        verify(accountRepository, times(1)).save(captor.capture());
-        assertEquals("1000000000", captor.getValue().getAccountNumber());
-        assertEquals(1234L, accountDto.getUserId());
-        assertEquals(10000L, accountDto.getBalance());
-    }
-
     @Test
     @DisplayName("계좌 생성 사용자가 없는 경우")
     void createAccountFailByUserNotFound() {
@@ -230,6 +203,19 @@ class AccountServiceTest {
         assertEquals(ErrorCode.REMAINED_BALANCE, exception.getErrorCode());
     }
 
+    @Test
+    @DisplayName("계좌 삭제 redis 잔액 계좌인 경우")
+    void deleteAccountFailByRedisBalanceAccount() {
+        //given
+        given(redisBalanceService.holds("1111111111")).willReturn(true);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                accountService.deleteAccount(1234L, "1111111111"));
+        //then
+        assertEquals(ErrorCode.REDIS_BALANCE_ACCOUNT, exception.getErrorCode());
+        verify(accountRepository, never()).save(any());
+    }
+
     @Test
     @DisplayName("계좌 삭제 성공")
     void deleteAccountSuccess() {
@@ -257,42 +243,4 @@ class AccountServiceTest {
         assertEquals(AccountStatus.UNREGISTERED, captor.getValue().getAccountStatus());
 
     }
-
-    @Test
-    @DisplayName("계좌 조회 사용자가 없는 경우")
-    void inquireAccountsFailByUserNotFound() {
-        //given
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.empty());
-        //when
-        AccountException exception = assertThrows(AccountException.class, () ->
-                accountService.inquireAccounts(1234L));
-        //then
-        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
-    }
-
-    @Test
-    @DisplayName("계좌 조회 성공")
-    void inquireAccountsSuccess() {
-        //given
-        AccountUser user = AccountUser.builder()
-                .id(1234L).name("홍길동").build();
-        given(accountUserRepository.findById(anyLong()))
-                .willReturn(Optional.of(user));
-        given(accountRepository.findByAccountUser(any()))
-                .willReturn(Arrays.asList(Account.builder().accountUser(user).accountNumber("1111111111").balance(1000L).build(),
-                        Account.builder().accountUser(user).accountNumber("1111111112").balance(10000L).build(),
-                        Account.builder().accountUser(user).accountNumber("1111111113").balance(100000L).build()));
-        //when
-        List<AccountDto> accountDtoList = accountService.inquireAccounts(1234L);
-        //then
-        assertEquals(3, accountDtoList.size());
-        assertEquals("1111111111",accountDtoList.get(0).getAccountNumber());
-        assertEquals(1000L,accountDtoList.get(0).getBalance());
-        assertEquals("1111111112",accountDtoList.get(1).getAccountNumber());
-        assertEquals(10000L,accountDtoList.get(1).getBalance());
-        assertEquals("1111111113",accountDtoList.get(2).getAccountNumber());
-        assertEquals(100000L,accountDtoList.get(2).getBalance());
-    }
-
-}
\ No newline at end of file
+}
@@ -0,0 +1,62 @@
+package com.example.account.service;
+
+import com.example.account.metric.LockMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveLockTimeoutsTest {
+    private final LockMetrics lockMetrics = new LockMetrics();
+    private final AdaptiveLockTimeouts adaptiveLockTimeouts =
+            new AdaptiveLockTimeouts(lockMetrics, true, 10, 3.0, 8.0);
+
+    @Test
+    void fallbackWithoutSamples() {
+        //given
+        //when
+        LockTimeouts timeouts = adaptiveLockTimeouts.get("useAccountBalance");
+        //then
+        assertEquals(LockTimeouts.FALLBACK.getWaitMillis(), timeouts.getWaitMillis());
+        assertEquals(LockTimeouts.FALLBACK.getLeaseMillis(), timeouts.getLeaseMillis());
+    }
+
+    @Test
+    void fallbackWithTooFewSamples() {
+        //given
+        for (int i = 0; i < 5; i++) {
+            lockMetrics.recordReleased("useAccountBalance", "1111111111", TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        //when
+        LockTimeouts timeouts = adaptiveLockTimeouts.get("useAccountBalance");
+        //then
+        assertEquals(LockTimeouts.FALLBACK.getLeaseMillis(), timeouts.getLeaseMillis());
+    }
+
+    @Test
+    void adaptToObservedHoldTime() {
+        //given
+        for (int i = 0; i < 100; i++) {
+            lockMetrics.recordReleased("useAccountBalance", "1111111111", TimeUnit.MILLISECONDS.toNanos(100));
+        }
+        //when
+        LockTimeouts timeouts = adaptiveLockTimeouts.get("useAccountBalance");
+        //then
+        assertEquals(800, timeouts.getWaitMillis());
+        assertEquals(300, timeouts.getLeaseMillis());
+    }
+
+    @Test
+    void clampToMinimum() {
+        //given
+        for (int i = 0; i < 100; i++) {
+            lockMetrics.recordReleased("cancelUseAccount", "1111111111", TimeUnit.MILLISECONDS.toNanos(2));
+        }
+        //when
+        LockTimeouts timeouts = adaptiveLockTimeouts.get("cancelUseAccount");
+        //then
+        assertEquals(50, timeouts.getWaitMillis());
+        assertEquals(200, timeouts.getLeaseMillis());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.metric.ReconciliationProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 대량 계좌/거래 대사 처리량 확인, 결과는 표준출력으로 확인
+ * 기본 test 에서는 제외, ./gradlew largeDataTest 로 실행 (-DlargeData.rows 로 계좌 수 조정)
+ */
+@Tag("large-data")
+@DataJpaTest
+@Import(BalanceReconciler.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(SpringExtension.class)
+class BalanceReconcilerLargeDataTest {
+    private static final int ACCOUNT_ROWS = Integer.getInteger("largeData.rows", 1_000_000);
+    private static final int TRANSACTIONS_PER_ACCOUNT = 10;
+
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from transaction_info");
+        jdbcTemplate.update("delete from account");
+        jdbcTemplate.update("delete from account_user where name = 'large-data'");
+    }
+
+    @Test
+    @DisplayName("대량 계좌/거래 대사 처리량")
+    void reconcileLargeData() {
+        //given
+        jdbcTemplate.update("insert into account_user(id, name, created_at, updated_at) "
+                + "values (next value for account_user_seq, 'large-data', now(), now())");
+        Long userId = jdbcTemplate.queryForObject(
+                "select max(id) from account_user where name = 'large-data'", Long.class);
+        jdbcTemplate.update("insert into account(id, account_user_id, account_number, account_status, balance, "
+                + "registered_at, created_at, updated_at) "
+                + "select next value for account_seq, ?, cast(1000000000 + x as varchar), 'IN_USE', ?, "
+                + "now(), now(), now() "
+                + "from system_range(1, ?)", userId, 100000L - 1000L * TRANSACTIONS_PER_ACCOUNT, ACCOUNT_ROWS);
+        jdbcTemplate.update("insert into transaction_info(id, account_id, transaction_type, transaction_result, "
+                + "transaction_id, amount, balance_snapshot, transacted_at, created_at, updated_at) "
+                + "select next value for transaction_info_seq, a.id, 'USE', 'TRANSACTION_SUCCESS', "
+                + "a.id * ? + r.x, 1000, 100000 - 1000 * r.x, dateadd('SECOND', r.x, now()), now(), now() "
+                + "from account a, system_range(1, ?) r", TRANSACTIONS_PER_ACCOUNT, TRANSACTIONS_PER_ACCOUNT);
+        //when
+        ReconciliationProgress progress = balanceReconciler.reconcile();
+        //then
+        System.out.printf("reconciliation: accounts=%d, rows=%d, elapsed=%dms, rows/s=%d%n",
+                progress.getAccounts(), progress.getRows(), progress.getElapsedMillis(),
+                progress.getRowsPerSecond());
+        assertEquals(ReconciliationProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals((long) ACCOUNT_ROWS * TRANSACTIONS_PER_ACCOUNT, progress.getRows());
+        assertEquals(0, progress.getDiscrepancyCount());
+    }
+}
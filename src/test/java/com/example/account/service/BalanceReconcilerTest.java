@@ -0,0 +1,169 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.TransactionInfo;
+import com.example.account.metric.ReconciliationProgress;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.DiscrepancyType;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.account.type.TransactionResult.*;
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 대사 worker 가 각자 connection 으로 읽으므로 테스트 트랜잭션 없이 커밋된 데이터로 검사한다.
+ * chunk 를 1 로 두어 계좌마다 range 가 나뉘도록 한다.
+ */
+@DataJpaTest(properties = "account.reconciliation.chunk-size=1")
+@Import(BalanceReconciler.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(SpringExtension.class)
+class BalanceReconcilerTest {
+    @Autowired
+    private BalanceReconciler balanceReconciler;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionInfoRepository transactionInfoRepository;
+
+    private AccountUser user;
+    private long transactionId;
+    private LocalDateTime transactedAt;
+
+    @BeforeEach
+    void seed() {
+        user = accountUserRepository.save(AccountUser.builder().name("reconciliation").build());
+        transactionId = 1000L;
+        transactedAt = LocalDateTime.now().minusHours(1);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionInfoRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+        accountUserRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("거래 후 잔액이 이어지고 계좌 잔액과 같으면 불일치 없음")
+    void consistentAccounts() {
+        //given
+        Account account = account("1200000000", 9000L);
+        transaction(account, USE, TRANSACTION_CANCEL, 1000L, 9000L);
+        transaction(account, USE, TRANSACTION_FAIL, 50000L, 9000L);
+        transaction(account, CANCEL, TRANSACTION_SUCCESS, 1000L, 10000L);
+        transaction(account, USE, TRANSACTION_SUCCESS, 1000L, 9000L);
+        account("1200000001", 0L); // 거래 없는 계좌
+        //when
+        ReconciliationProgress progress = balanceReconciler.reconcile();
+        //then
+        assertEquals(ReconciliationProgress.Status.COMPLETED, progress.getStatus());
+        assertEquals(2, progress.getAccounts());
+        assertEquals(4, progress.getRows());
+        assertEquals(0, progress.getDiscrepancyCount());
+    }
+
+    @Test
+    @DisplayName("끊긴 잔액 흐름과 계좌 잔액 불일치 보고")
+    void reportsDiscrepancies() {
+        //given
+        Account broken = account("1200000000", 7000L);
+        transaction(broken, USE, TRANSACTION_SUCCESS, 1000L, 9000L);
+        transaction(broken, USE, TRANSACTION_SUCCESS, 1000L, 7000L);
+        Account drifted = account("1200000001", 5000L);
+        transaction(drifted, USE, TRANSACTION_SUCCESS, 1000L, 9000L);
+        //when
+        ReconciliationProgress progress = balanceReconciler.reconcile();
+        //then
+        assertEquals(2, progress.getDiscrepancyCount());
+        List<ReconciliationProgress.Discrepancy> discrepancies = progress.getDiscrepancies().stream()
+                .sorted(Comparator.comparing(ReconciliationProgress.Discrepancy::getAccountNumber))
+                .collect(Collectors.toList());
+        assertEquals(DiscrepancyType.SNAPSHOT_CHAIN_BROKEN, discrepancies.get(0).getType());
+        assertEquals(8000L, discrepancies.get(0).getExpected());
+        assertEquals(7000L, discrepancies.get(0).getActual());
+        assertEquals(DiscrepancyType.BALANCE_MISMATCH, discrepancies.get(1).getType());
+        assertEquals(9000L, discrepancies.get(1).getExpected());
+        assertEquals(5000L, discrepancies.get(1).getActual());
+    }
+
+    @Test
+    @DisplayName("개설 잔액에서 이어지지 않는 첫 거래와, 거래 없이 개설 잔액과 다른 계좌 보고")
+    void reportsOpeningBalanceDiscrepancies() {
+        //given
+        Account opened = account("1200000000", 9000L, 20000L);
+        transaction(opened, USE, TRANSACTION_SUCCESS, 1000L, 9000L);
+        account("1200000001", 3000L, 5000L); // 거래 없는 계좌
+        account("1200000002", 5000L, 5000L);
+        //when
+        ReconciliationProgress progress = balanceReconciler.reconcile();
+        //then
+        assertEquals(3, progress.getAccounts());
+        assertEquals(2, progress.getDiscrepancyCount());
+        List<ReconciliationProgress.Discrepancy> discrepancies = progress.getDiscrepancies().stream()
+                .sorted(Comparator.comparing(ReconciliationProgress.Discrepancy::getAccountNumber))
+                .collect(Collectors.toList());
+        assertEquals(DiscrepancyType.SNAPSHOT_CHAIN_BROKEN, discrepancies.get(0).getType());
+        assertEquals(19000L, discrepancies.get(0).getExpected());
+        assertEquals(DiscrepancyType.BALANCE_MISMATCH, discrepancies.get(1).getType());
+        assertEquals(5000L, discrepancies.get(1).getExpected());
+        assertEquals(3000L, discrepancies.get(1).getActual());
+    }
+
+    private Account account(String accountNumber, Long balance) {
+        return account(accountNumber, balance, null);
+    }
+
+    private Account account(String accountNumber, Long balance, Long openingBalance) {
+        return accountRepository.save(Account.builder()
+                .accountUser(user)
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .openingBalance(openingBalance)
+                .registeredAt(LocalDateTime.now())
+                .build());
+    }
+
+    private void transaction(Account account, TransactionType type, TransactionResult result,
+                             Long amount, Long balanceSnapshot) {
+        transactedAt = transactedAt.plusSeconds(1);
+        transactionInfoRepository.save(TransactionInfo.builder()
+                .account(account)
+                .transactionType(type)
+                .transactionResult(result)
+                .transactionId(transactionId++)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactedAt(transactedAt)
+                .build());
+    }
+}
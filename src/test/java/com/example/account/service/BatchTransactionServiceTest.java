@@ -0,0 +1,222 @@
+package com.example.account.service;
+
+import com.example.account.config.RateLimitProperties;
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.metric.LockMetrics;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
+import com.example.account.type.TransactionResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.validation.Validation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransactionServiceTest {
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    @Mock
+    private AccountLockProvider accountLockProvider;
+
+    @Mock
+    private AdaptiveLockTimeouts adaptiveLockTimeouts;
+
+    @Mock
+    private OptimisticRetry optimisticRetry;
+
+    @Mock
+    private RedisBalanceService redisBalanceService;
+
+    @Mock
+    private FailedTransactionRecorder failedTransactionRecorder;
+
+    @Mock
+    private ObjectProvider<AccountEngine> accountEngine;
+
+    @Mock
+    private AccountRateLimiter accountRateLimiter;
+
+    private BatchTransactionService batchTransactionService;
+
+    @BeforeEach
+    void setUp() {
+        batchTransactionService = new BatchTransactionService(transactionInfoService, accountLockProvider,
+                adaptiveLockTimeouts, new LockMetrics(), optimisticRetry, redisBalanceService, failedTransactionRecorder,
+                accountEngine, accountRateLimiter, Validation.buildDefaultValidatorFactory().getValidator(),
+                TransactionMode.LOCK, 10, 2, 2, 100);
+        lenient().when(adaptiveLockTimeouts.get(anyString()))
+                .thenReturn(LockTimeouts.FALLBACK);
+        lenient().when(transactionInfoService.transactUseAll(anyString(), anyList()))
+                .thenAnswer(invocation -> {
+                    List<TransactionUse.Request> requests = invocation.getArgument(1);
+                    return requests.stream()
+                            .map(request -> TransactionUse.BatchResponse.builder()
+                                    .accountNumber(request.getAccountNumber())
+                                    .amount(request.getAmount())
+                                    .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                                    .build())
+                            .collect(Collectors.toList());
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchTransactionService.shutdown();
+    }
+
+    @Test
+    @DisplayName("계좌별로 lock 한 번, chunk 단위 커밋, 요청 순서대로 결과")
+    void groupsByAccount() {
+        //given
+        List<TransactionUse.Request> requests = List.of(
+                request("1111111111", 1000L),
+                request("2222222222", 2000L),
+                request("1111111111", 3000L),
+                request("1111111111", 4000L));
+        //when
+        List<TransactionUse.BatchResponse> responses = batchTransactionService.transactUse(requests).join();
+        //then
+        verify(accountLockProvider, times(1)).lock(eq("1111111111"), any());
+        verify(accountLockProvider, times(1)).unlock("1111111111");
+        verify(accountLockProvider, times(1)).lock(eq("2222222222"), any());
+        // chunk-size 2: 1111111111 은 2건 + 1건
+        verify(transactionInfoService, times(2)).transactUseAll(eq("1111111111"), anyList());
+        verify(transactionInfoService, times(1)).transactUseAll(eq("2222222222"), anyList());
+        assertEquals(List.of(1000L, 2000L, 3000L, 4000L), responses.stream()
+                .map(TransactionUse.BatchResponse::getAmount)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("입력값이 잘못된 항목만 실패")
+    void invalidItemFails() {
+        //given
+        List<TransactionUse.Request> requests = List.of(
+                request("1111111111", 1000L),
+                request("123", 1000L));
+        //when
+        List<TransactionUse.BatchResponse> responses = batchTransactionService.transactUse(requests).join();
+        //then
+        assertEquals(TransactionResult.TRANSACTION_SUCCESS, responses.get(0).getTransactionResult());
+        assertEquals(ErrorCode.ARGUMENT_NOT_VALID, responses.get(1).getErrorCode());
+        verify(accountLockProvider, never()).lock(eq("123"), any());
+    }
+
+    @Test
+    @DisplayName("null 항목은 입력값 오류로 실패")
+    void nullItemFails() {
+        //given
+        List<TransactionUse.Request> requests = Arrays.asList(request("1111111111", 1000L), null);
+        //when
+        List<TransactionUse.BatchResponse> responses = batchTransactionService.transactUse(requests).join();
+        //then
+        assertEquals(TransactionResult.TRANSACTION_SUCCESS, responses.get(0).getTransactionResult());
+        assertEquals(ErrorCode.ARGUMENT_NOT_VALID, responses.get(1).getErrorCode());
+        assertNull(responses.get(1).getAccountNumber());
+    }
+
+    @Test
+    @DisplayName("계좌 묶음마다 요청 수 제한, 넘은 계좌의 항목만 실패")
+    void rateLimitedPerAccountGroup() {
+        //given
+        willThrow(new AccountException(ErrorCode.TOO_MANY_REQUESTS))
+                .given(accountRateLimiter).acquire("useAccountBalanceBatch", 1L, "2222222222");
+        List<TransactionUse.Request> requests = List.of(
+                request("1111111111", 1000L),
+                request("1111111111", 2000L),
+                request("2222222222", 3000L));
+        //when
+        List<TransactionUse.BatchResponse> responses = batchTransactionService.transactUse(requests).join();
+        //then
+        assertEquals(TransactionResult.TRANSACTION_SUCCESS, responses.get(1).getTransactionResult());
+        assertEquals(ErrorCode.TOO_MANY_REQUESTS, responses.get(2).getErrorCode());
+        verify(accountRateLimiter, times(1)).acquire("useAccountBalanceBatch", 1L, "1111111111");
+        verify(accountLockProvider, never()).lock(eq("2222222222"), any());
+        verify(failedTransactionRecorder, never()).record(anyString(), anyLong(), any(), any());
+    }
+
+    @Test
+    @DisplayName("한 계좌의 항목이 burst 보다 많아도 한도 하나만 차감해서 모두 처리")
+    void batchLargerThanBurst() {
+        //given
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setPermitsPerSecond(1);
+        limit.setBurst(2);
+        properties.getDefaults().setPerUser(limit);
+        properties.getDefaults().setPerAccount(limit);
+        BatchTransactionService limited = new BatchTransactionService(transactionInfoService, accountLockProvider,
+                adaptiveLockTimeouts, new LockMetrics(), optimisticRetry, redisBalanceService, failedTransactionRecorder,
+                accountEngine, new AccountRateLimiter(properties, null, System::nanoTime),
+                Validation.buildDefaultValidatorFactory().getValidator(), TransactionMode.LOCK, 10, 2, 2, 100);
+        List<TransactionUse.Request> requests = Collections.nCopies(10, request("1111111111", 1000L));
+        //when
+        List<TransactionUse.BatchResponse> responses;
+        try {
+            responses = limited.transactUse(requests).join();
+        } finally {
+            limited.shutdown();
+        }
+        //then
+        assertEquals(10, responses.stream()
+                .filter(response -> response.getTransactionResult() == TransactionResult.TRANSACTION_SUCCESS)
+                .count());
+    }
+
+    @Test
+    @DisplayName("lock 획득 실패 시 해당 계좌 항목만 실패")
+    void lockFailureFailsGroup() {
+        //given
+        willThrow(new AccountException(ErrorCode.CURRENT_UNDER_TRANSACTION))
+                .given(accountLockProvider).lock(eq("2222222222"), any());
+        List<TransactionUse.Request> requests = List.of(
+                request("1111111111", 1000L),
+                request("2222222222", 2000L),
+                request("2222222222", 3000L));
+        //when
+        List<TransactionUse.BatchResponse> responses = batchTransactionService.transactUse(requests).join();
+        //then
+        assertEquals(TransactionResult.TRANSACTION_SUCCESS, responses.get(0).getTransactionResult());
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, responses.get(1).getErrorCode());
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, responses.get(2).getErrorCode());
+        verify(transactionInfoService, never()).transactUseAll(eq("2222222222"), anyList());
+        verify(accountLockProvider, never()).unlock("2222222222");
+    }
+
+    @Test
+    @DisplayName("최대 개수 초과")
+    void tooManyItems() {
+        //given
+        List<TransactionUse.Request> requests = Collections.nCopies(11, request("1111111111", 1000L));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> batchTransactionService.transactUse(requests));
+        //then
+        assertEquals(ErrorCode.ARGUMENT_NOT_VALID, exception.getErrorCode());
+    }
+
+    private TransactionUse.Request request(String accountNumber, Long amount) {
+        return new TransactionUse.Request(1L, accountNumber, amount);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.account.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommandRingBufferTest {
+    @Test
+    @DisplayName("가득 차면 넣지 않고, 꺼낸 만큼 다시 넣을 수 있음")
+    void rejectsWhenFull() {
+        //given
+        CommandRingBuffer ring = new CommandRingBuffer(2);
+        List<String> handled = new ArrayList<>();
+        //when
+        boolean first = ring.tryPublish(command -> command.accountNumber = "1");
+        boolean second = ring.tryPublish(command -> command.accountNumber = "2");
+        boolean full = ring.tryPublish(command -> command.accountNumber = "3");
+        int polled = ring.poll(command -> handled.add(command.accountNumber), 1);
+        boolean afterPoll = ring.tryPublish(command -> command.accountNumber = "4");
+        ring.poll(command -> handled.add(command.accountNumber), 10);
+        //then
+        assertTrue(first && second && afterPoll);
+        assertFalse(full);
+        assertEquals(1, polled);
+        assertEquals(List.of("1", "2", "4"), handled);
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    @DisplayName("크기는 2의 거듭제곱만 가능")
+    void capacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandRingBuffer(3));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.account.service;
+
+import com.example.account.controller.TransactionController;
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.TransactionMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 동시성 모드별 잔액 사용 처리량 비교 (redis lock vs optimistic)
+ * 같은 요청 수를 경합 계좌 수만 바꿔 실행하고, 계좌가 적을수록(경합이 클수록) 재시도 비용이 커지는 지점을 출력한다.
+ * 기본 test 에서는 제외, ./gradlew benchmarkTest 로 실행
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.show_sql=false")
+class ConcurrencyModeBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int REQUESTS = Integer.getInteger("benchmark.requests", 4_000);
+    private static final int[] ACCOUNT_COUNTS = {1, 4, 16, 64};
+    private static final long USERS = 10; // data.sql
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionInfoService transactionInfoService;
+
+    @Autowired
+    private LockAopAspect lockAopAspect;
+
+    private final List<TransactionUse.Request> accounts = new ArrayList<>();
+
+    @BeforeEach
+    void createAccounts() {
+        int max = ACCOUNT_COUNTS[ACCOUNT_COUNTS.length - 1];
+        for (int i = 0; i < max; i++) {
+            long userId = i % USERS + 1;
+            String accountNumber = accountService.createAccount(userId, 100_000_000L).getAccountNumber();
+            accounts.add(new TransactionUse.Request(userId, accountNumber, 100L));
+        }
+    }
+
+    @Test
+    @DisplayName("경합 계좌 수별 LOCK / OPTIMISTIC 처리량")
+    void compareModesByContention() throws Exception {
+        System.out.printf("%-8s %-10s %12s %10s%n", "accounts", "mode", "requests/s", "failed");
+        for (int accountCount : ACCOUNT_COUNTS) {
+            for (TransactionMode mode : new TransactionMode[]{TransactionMode.LOCK, TransactionMode.OPTIMISTIC}) {
+                setMode(mode);
+                AtomicInteger failed = new AtomicInteger();
+                long nanos = run(accountCount, failed);
+                System.out.printf("%-8d %-10s %12.0f %10d%n", accountCount, mode,
+                        REQUESTS / (nanos / 1_000_000_000.0), failed.get());
+            }
+        }
+        setMode(TransactionMode.LOCK);
+    }
+
+    private long run(int accountCount, AtomicInteger failed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger remaining = new AtomicInteger(REQUESTS);
+        long startedAt = System.nanoTime();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                while (remaining.getAndDecrement() > 0) {
+                    TransactionUse.Request request =
+                            accounts.get(ThreadLocalRandom.current().nextInt(accountCount));
+                    try {
+                        transactionController.useAccountBalance(request);
+                    } catch (AccountException e) {
+                        failed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsed = System.nanoTime() - startedAt;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private void setMode(TransactionMode mode) {
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(lockAopAspect), "transactionMode", mode);
+        ReflectionTestUtils.setField(AopTestUtils.getTargetObject(transactionInfoService), "transactionMode", mode);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.account.service;
+
+import com.example.account.domain.FailedTransactionCount;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.repository.FailedTransactionCountRepository;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.FailureRecordingMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static com.example.account.type.TransactionType.CANCEL;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FailedTransactionRecorderTest {
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    @Mock
+    private FailedTransactionCountRepository failedTransactionCountRepository;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Test
+    @DisplayName("ASYNC: 요청 쓰레드에서는 저장하지 않고 batch-size 건씩 묶어서 저장")
+    void asyncSavesInBatches() {
+        //given
+        FailedTransactionRecorder recorder = recorder(FailureRecordingMode.ASYNC, 10, 2);
+        given(transactionIdGenerator.nextId()).willReturn(1L, 2L, 3L);
+        ArgumentCaptor<List<FailedTransaction>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        recorder.record("1111111111", 1000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        recorder.record("1111111111", 2000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        recorder.record("2222222222", 3000L, CANCEL, ErrorCode.TRANSACTION_NOT_FOUND);
+        verifyNoInteractions(transactionInfoService);
+        recorder.drain();
+        recorder.drain();
+        //then
+        verify(transactionInfoService, times(2)).saveFailedTransactions(captor.capture());
+        assertEquals(2, captor.getAllValues().get(0).size());
+        assertEquals(1L, captor.getAllValues().get(0).get(0).getTransactionId());
+        assertEquals(3L, captor.getAllValues().get(1).get(0).getTransactionId());
+        verify(transactionInfoService, never()).saveFailedTransaction(anyString(), anyLong(), any());
+    }
+
+    @Test
+    @DisplayName("ASYNC: 큐가 가득 차면 요청 쓰레드에서 바로 저장")
+    void asyncSavesSynchronouslyWhenQueueFull() {
+        //given
+        FailedTransactionRecorder recorder = recorder(FailureRecordingMode.ASYNC, 1, 10);
+        given(transactionIdGenerator.nextId()).willReturn(1L, 2L);
+        recorder.record("1111111111", 1000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        //when
+        recorder.record("1111111111", 2000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        //then
+        verify(transactionInfoService, times(1)).saveFailedTransactionsNow(argThat(batch ->
+                batch.size() == 1 && batch.get(0).getTransactionId() == 2L));
+        verify(transactionInfoService, never()).saveFailedTransactions(anyList());
+    }
+
+    @Test
+    @DisplayName("AGGREGATE: 계좌, 거래 종류, 오류, 분 단위 건수만 저장")
+    void aggregateCountsPerMinute() {
+        //given
+        FailedTransactionRecorder recorder = recorder(FailureRecordingMode.AGGREGATE, 10, 10);
+        ArgumentCaptor<List<FailedTransactionCount>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        recorder.record("1111111111", 1000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        recorder.record("1111111111", 2000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        recorder.record("1111111111", 1000L, USE, ErrorCode.ACCOUNT_USER_UN_MATCH);
+        recorder.flushCounts(true);
+        //then
+        verify(failedTransactionCountRepository, times(1)).saveAll(captor.capture());
+        verifyNoInteractions(transactionInfoService, transactionIdGenerator);
+        List<FailedTransactionCount> counts = captor.getValue();
+        assertEquals(2, counts.size());
+        FailedTransactionCount insufficient = counts.stream()
+                .filter(count -> count.getErrorCode() == ErrorCode.INSUFFICIENT_BALANCE)
+                .findFirst().orElseThrow();
+        assertEquals(2L, insufficient.getFailureCount());
+        assertEquals(3000L, insufficient.getTotalAmount());
+        assertEquals(0, insufficient.getMinute().getSecond());
+        assertEquals(0, recorder.getCounts().size());
+    }
+
+    @Test
+    @DisplayName("SYNC: 실패마다 바로 저장")
+    void syncSavesImmediately() {
+        //given
+        FailedTransactionRecorder recorder = recorder(FailureRecordingMode.SYNC, 10, 10);
+        //when
+        recorder.record("1111111111", 1000L, USE, ErrorCode.INSUFFICIENT_BALANCE);
+        //then
+        verify(transactionInfoService, times(1)).saveFailedTransaction("1111111111", 1000L, USE);
+    }
+
+    private FailedTransactionRecorder recorder(FailureRecordingMode mode, int queueCapacity, int batchSize) {
+        // writer 쓰레드는 start() 에서 시작하므로 테스트에서는 drain, flushCounts 를 직접 호출
+        return new FailedTransactionRecorder(transactionInfoService, failedTransactionCountRepository,
+                transactionIdGenerator, mode, queueCapacity, batchSize, 200);
+    }
+}
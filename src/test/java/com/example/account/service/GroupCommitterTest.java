@@ -0,0 +1,145 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionDto;
+import com.example.account.dto.TransactionOutcome;
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitterTest {
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    @Mock
+    private AccountLockProvider accountLockProvider;
+
+    @Test
+    @DisplayName("모인 요청을 한 트랜잭션으로 처리하고 결과를 요청마다 따로 전달")
+    void commitsGroupAndCompletesEachCaller() {
+        //given
+        GroupCommitter groupCommitter = groupCommitter(true);
+        TransactionDto used = TransactionDto.builder().accountNumber("1111111111").balanceSnapshot(9000L).build();
+        given(transactionInfoService.transactUseGroup(anyList()))
+                .willReturn(List.of(TransactionOutcome.success(used),
+                        TransactionOutcome.failure(new AccountException(ErrorCode.INSUFFICIENT_BALANCE))));
+        GroupCommitter.Item first = item(12L, "1111111111", 1000L);
+        GroupCommitter.Item second = item(13L, "2222222222", 2000L);
+        //when
+        groupCommitter.commit(List.of(first, second));
+        //then
+        verify(transactionInfoService, times(1)).transactUseGroup(argThat(requests -> requests.size() == 2
+                && requests.get(1).getAccountNumber().equals("2222222222")));
+        assertSame(used, first.getResult().join());
+        CompletionException exception = assertThrows(CompletionException.class, () -> second.getResult().join());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, ((AccountException) exception.getCause()).getErrorCode());
+        verify(transactionInfoService, never()).transactUse(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    @DisplayName("트랜잭션 전체가 실패하면 요청을 하나씩 따로 다시 처리")
+    void retriesAloneWhenGroupFails() {
+        //given
+        GroupCommitter groupCommitter = groupCommitter(true);
+        TransactionDto used = TransactionDto.builder().accountNumber("1111111111").build();
+        willThrow(new IllegalStateException("flush failed"))
+                .given(transactionInfoService).transactUseGroup(anyList());
+        given(transactionInfoService.transactUse("1111111111", 12L, 1000L)).willReturn(used);
+        given(transactionInfoService.transactUse("2222222222", 13L, 2000L))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_USER_UN_MATCH));
+        GroupCommitter.Item first = item(12L, "1111111111", 1000L);
+        GroupCommitter.Item second = item(13L, "2222222222", 2000L);
+        //when
+        groupCommitter.commit(List.of(first, second));
+        //then
+        assertSame(used, first.getResult().join());
+        CompletionException exception = assertThrows(CompletionException.class, () -> second.getResult().join());
+        assertEquals(ErrorCode.ACCOUNT_USER_UN_MATCH, ((AccountException) exception.getCause()).getErrorCode());
+    }
+
+    @Test
+    @DisplayName("꺼져 있으면 요청 쓰레드에서 바로 처리")
+    void commitsAloneWhenDisabled() {
+        //given
+        GroupCommitter groupCommitter = groupCommitter(false);
+        groupCommitter.start();
+        //when
+        groupCommitter.transactUse("1111111111", 12L, 1000L);
+        //then
+        verify(transactionInfoService, times(1)).transactUse("1111111111", 12L, 1000L);
+        verify(transactionInfoService, never()).transactUseGroup(anyList());
+    }
+
+    @Test
+    @DisplayName("database lock 이면 요청 쓰레드의 행 lock 과 겹치므로 group commit 을 쓰지 않음")
+    void disabledWithDatabaseLock() {
+        //given
+        GroupCommitter groupCommitter = new GroupCommitter(transactionInfoService,
+                mock(DatabaseAccountLockService.class), true, TransactionMode.LOCK, 2000, 64, 1, 100, 1000);
+        groupCommitter.start();
+        //when
+        groupCommitter.transactUse("1111111111", 12L, 1000L);
+        //then
+        verify(transactionInfoService, times(1)).transactUse("1111111111", 12L, 1000L);
+        verify(transactionInfoService, never()).transactUseGroup(anyList());
+    }
+
+    @Test
+    @DisplayName("commit-timeout 안에 시작되지 않은 요청은 큐에서 빼서 따로 처리")
+    void commitsAloneWhenNotStartedInTime() {
+        //given
+        GroupCommitter groupCommitter = new GroupCommitter(transactionInfoService, accountLockProvider,
+                true, TransactionMode.LOCK, 2000, 64, 0, 100, 50); // committer 없음
+        groupCommitter.start();
+        //when
+        groupCommitter.transactUse("1111111111", 12L, 1000L);
+        //then
+        verify(transactionInfoService, times(1)).transactUse("1111111111", 12L, 1000L);
+        verify(transactionInfoService, never()).transactUseGroup(anyList());
+    }
+
+    @Test
+    @DisplayName("이미 커밋 중인 요청은 commit-timeout 이 지나도 커밋 결과를 기다림")
+    void waitsForRunningCommit() throws InterruptedException {
+        //given
+        GroupCommitter groupCommitter = new GroupCommitter(transactionInfoService, accountLockProvider,
+                true, TransactionMode.LOCK, 0, 64, 1, 100, 50);
+        TransactionDto used = TransactionDto.builder().accountNumber("1111111111").build();
+        given(transactionInfoService.transactUseGroup(anyList())).willAnswer(invocation -> {
+            Thread.sleep(200);
+            return List.of(TransactionOutcome.success(used));
+        });
+        groupCommitter.start();
+        //when
+        TransactionDto result = groupCommitter.transactUse("1111111111", 12L, 1000L);
+        //then
+        assertSame(used, result);
+        verify(transactionInfoService, never()).transactUse(anyString(), anyLong(), anyLong());
+        groupCommitter.shutdown();
+    }
+
+    private GroupCommitter groupCommitter(boolean enabled) {
+        // committer 쓰레드는 start() 에서 시작하므로 테스트에서는 commit 을 직접 호출
+        return new GroupCommitter(transactionInfoService, accountLockProvider, enabled, TransactionMode.LOCK,
+                2000, 64, 1, 100, 1000);
+    }
+
+    private static GroupCommitter.Item item(Long userId, String accountNumber, Long amount) {
+        return new GroupCommitter.Item(new TransactionUse.Request(userId, accountNumber, amount));
+    }
+}
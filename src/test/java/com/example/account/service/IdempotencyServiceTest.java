@@ -0,0 +1,157 @@
+package com.example.account.service;
+
+import com.example.account.dto.TransactionUse;
+import com.example.account.exception.AccountException;
+import com.example.account.exception.TransactionTimeoutException;
+import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyServiceTest {
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyService(new LocalIdempotencyStore(),
+                new ObjectMapper().findAndRegisterModules(), 30_000, 60_000, 2_000);
+    }
+
+    @Test
+    @DisplayName("같은 키 재요청은 실행하지 않고 저장된 응답 반환")
+    void replayReturnsStoredResponse() throws Throwable {
+        //given
+        TransactionUse.Request request = new TransactionUse.Request(1L, "1111111111", 1000L);
+        //when
+        TransactionUse.Response first = use("key-1", request);
+        TransactionUse.Response replay = use("key-1", request);
+        //then
+        assertEquals(1, executions.get());
+        assertEquals(first.getTransactionId(), replay.getTransactionId());
+        assertEquals(TransactionResult.TRANSACTION_SUCCESS, replay.getTransactionResult());
+    }
+
+    @Test
+    @DisplayName("같은 키로 다른 요청")
+    void reusedKeyWithDifferentRequest() throws Throwable {
+        //given
+        use("key-1", new TransactionUse.Request(1L, "1111111111", 1000L));
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> use("key-1", new TransactionUse.Request(1L, "1111111111", 2000L)));
+        //then
+        assertEquals(ErrorCode.IDEMPOTENCY_KEY_REUSED, exception.getErrorCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("거래 오류는 저장해서 재요청에도 같은 오류, lock 실패는 다시 실행")
+    void failedResultsReplayedExceptRetryable() throws Throwable {
+        //given
+        TransactionUse.Request request = new TransactionUse.Request(1L, "1111111111", 1000L);
+        //when
+        assertThrows(AccountException.class, () -> fail("key-1", request, ErrorCode.INSUFFICIENT_BALANCE));
+        AccountException replayed = assertThrows(AccountException.class, () -> use("key-1", request));
+        assertThrows(AccountException.class, () -> fail("key-2", request, ErrorCode.CURRENT_UNDER_TRANSACTION));
+        use("key-2", request);
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, replayed.getErrorCode());
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    @DisplayName("처리 중인 키로 들어온 요청은 먼저 온 요청의 결과를 기다림")
+    void concurrentDuplicateWaitsForFirst() throws Throwable {
+        //given
+        TransactionUse.Request request = new TransactionUse.Request(1L, "1111111111", 1000L);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Object> first = CompletableFuture.supplyAsync(() -> {
+            try {
+                return idempotencyService.execute("useAccountBalance", "key-1", request,
+                        TransactionUse.Response.class, () -> {
+                            started.countDown();
+                            release.await();
+                            return response(executions.incrementAndGet());
+                        });
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        });
+        started.await(1, TimeUnit.SECONDS);
+        //when
+        CompletableFuture<TransactionUse.Response> duplicate = CompletableFuture.supplyAsync(() -> {
+            try {
+                return use("key-1", request);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        });
+        Thread.sleep(50);
+        release.countDown();
+        //then
+        assertEquals(((TransactionUse.Response) first.get(1, TimeUnit.SECONDS)).getTransactionId(),
+                duplicate.get(1, TimeUnit.SECONDS).getTransactionId());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    @DisplayName("시간 초과는 실패로 저장하지 않고, 재요청은 나중에 끝난 거래의 결과를 받음")
+    void retryAfterTimeoutReturnsLateResult() throws Throwable {
+        //given
+        TransactionUse.Request request = new TransactionUse.Request(1L, "1111111111", 1000L);
+        CompletableFuture<TransactionUse.Response> outcome = new CompletableFuture<>();
+        AccountException timeout = assertThrows(AccountException.class, () ->
+                idempotencyService.execute("useAccountBalance", "key-1", request,
+                        TransactionUse.Response.class, () -> {
+                            executions.incrementAndGet();
+                            throw new TransactionTimeoutException(outcome);
+                        }));
+        //when
+        CompletableFuture<TransactionUse.Response> retry = CompletableFuture.supplyAsync(() -> {
+            try {
+                return use("key-1", request);
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        });
+        Thread.sleep(50);
+        outcome.complete(response(7));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_TIMEOUT, timeout.getErrorCode());
+        assertEquals("transaction-7", retry.get(1, TimeUnit.SECONDS).getTransactionId());
+        assertEquals(1, executions.get());
+    }
+
+    private TransactionUse.Response use(String key, TransactionUse.Request request) throws Throwable {
+        return (TransactionUse.Response) idempotencyService.execute("useAccountBalance", key, request,
+                TransactionUse.Response.class, () -> response(executions.incrementAndGet()));
+    }
+
+    private Object fail(String key, TransactionUse.Request request, ErrorCode errorCode) throws Throwable {
+        return idempotencyService.execute("useAccountBalance", key, request, TransactionUse.Response.class, () -> {
+            executions.incrementAndGet();
+            throw new AccountException(errorCode);
+        });
+    }
+
+    private TransactionUse.Response response(int sequence) {
+        return TransactionUse.Response.builder()
+                .accountNumber("1111111111")
+                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                .transactionId("transaction-" + sequence)
+                .amount(1000L)
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.account.service;
+
+import com.example.account.dto.AccountInfo;
+import com.example.account.dto.TransactionInquiry;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.account.type.TransactionResult.TRANSACTION_SUCCESS;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class InquiryServiceTest {
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionInfoRepository transactionInfoRepository;
+
+    @Mock
+    private RedisBalanceService redisBalanceService;
+
+    @InjectMocks
+    private InquiryService inquiryService;
+
+    @Test
+    @DisplayName("계좌 조회 사용자가 없는 경우")
+    void inquireAccountsFailByUserNotFound() {
+        //given
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(false);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                inquiryService.inquireAccounts(1234L));
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("계좌 조회 성공")
+    void inquireAccountsSuccess() {
+        //given
+        given(accountUserRepository.existsById(anyLong()))
+                .willReturn(true);
+        given(accountRepository.findAccountInfosByUserId(anyLong()))
+                .willReturn(Arrays.asList(new AccountInfo("1111111111", 1000L),
+                        new AccountInfo("1111111112", 10000L),
+                        new AccountInfo("1111111113", 100000L)));
+        //when
+        List<AccountInfo> accountInfoList = inquiryService.inquireAccounts(1234L);
+        //then
+        assertEquals(3, accountInfoList.size());
+        assertEquals("1111111111", accountInfoList.get(0).getAccountNumber());
+        assertEquals(1000L, accountInfoList.get(0).getBalance());
+        assertEquals("1111111113", accountInfoList.get(2).getAccountNumber());
+        assertEquals(100000L, accountInfoList.get(2).getBalance());
+    }
+
+    @Test
+    @DisplayName("거래 조회 거래 아이디 없는 경우")
+    void inquireTransactionFailByNotFoundId() {
+        //given
+        given(transactionInfoRepository.findInquiryByTransactionId(anyLong()))
+                .willReturn(Optional.empty());
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                inquiryService.inquireTransaction("000000000016J"));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래 조회 거래 아이디 형식이 잘못된 경우")
+    void inquireTransactionFailByMalformedId() {
+        //given
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                inquiryService.inquireTransaction("1q2w3e4r5t"));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("거래 조회 성공")
+    void inquireTransactionSuccess() {
+        //given
+        given(transactionInfoRepository.findInquiryByTransactionId(1234L))
+                .willReturn(Optional.of(new TransactionInquiry("1111111111", USE, TRANSACTION_SUCCESS,
+                        1234L, 10000L, LocalDateTime.now().minusMonths(1))));
+        //when
+        TransactionInquiry transactionInquiry = inquiryService.inquireTransaction("000000000016J");
+        //then
+        assertEquals("000000000016J", transactionInquiry.getTransactionId());
+        assertEquals("1111111111", transactionInquiry.getAccountNumber());
+        assertEquals(10000L, transactionInquiry.getAmount());
+        assertEquals(TRANSACTION_SUCCESS, transactionInquiry.getTransactionResult());
+        assertEquals(USE, transactionInquiry.getTransactionType());
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BalanceCheckpoint;
+import com.example.account.repository.BalanceCheckpointRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceTest {
+    @Mock
+    private BalanceCheckpointRepository balanceCheckpointRepository;
+
+    @Mock
+    private TransactionInfoRepository transactionInfoRepository;
+
+    @InjectMocks
+    private LedgerService ledgerService;
+
+    @Test
+    @DisplayName("checkpoint 가 없으면 잔액 컬럼")
+    void balanceWithoutCheckpoint() {
+        //given
+        given(balanceCheckpointRepository.findFirstByAccountAccountNumberOrderBySettledUntilDesc(anyString()))
+                .willReturn(Optional.empty());
+        //when
+        long balance = ledgerService.balanceOf("1111111111", 10000L);
+        //then
+        assertEquals(10000L, balance);
+    }
+
+    @Test
+    @DisplayName("checkpoint 잔액 + 이후 거래 변화량")
+    void balanceFromCheckpointAndEntries() {
+        //given
+        LocalDateTime settledUntil = LocalDateTime.now().minusMinutes(1);
+        given(balanceCheckpointRepository.findFirstByAccountAccountNumberOrderBySettledUntilDesc(anyString()))
+                .willReturn(Optional.of(BalanceCheckpoint.builder()
+                        .balance(5000L)
+                        .settledUntil(settledUntil)
+                        .build()));
+        given(transactionInfoRepository.sumLedgerDeltaAfter("1111111111", settledUntil))
+                .willReturn(-1500L);
+        //when
+        long balance = ledgerService.balanceOf("1111111111", 10000L);
+        //then
+        assertEquals(3500L, balance);
+    }
+
+    @Test
+    @DisplayName("첫 사용 시 잔액 컬럼으로 시작 checkpoint 생성")
+    void openBalanceCreatesCheckpoint() {
+        //given
+        Account account = Account.builder().accountNumber("1111111111").balance(10000L).build();
+        LocalDateTime lastTransactedAt = LocalDateTime.now().minusDays(1);
+        given(balanceCheckpointRepository.findFirstByAccountAccountNumberOrderBySettledUntilDesc(anyString()))
+                .willReturn(Optional.empty());
+        given(transactionInfoRepository.findLastTransactedAt(anyString()))
+                .willReturn(Optional.of(lastTransactedAt));
+        ArgumentCaptor<BalanceCheckpoint> captor = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        //when
+        long balance = ledgerService.openBalance(account);
+        //then
+        assertEquals(10000L, balance);
+        verify(balanceCheckpointRepository, times(1)).save(captor.capture());
+        assertEquals(10000L, captor.getValue().getBalance());
+        assertEquals(lastTransactedAt, captor.getValue().getSettledUntil());
+    }
+
+    @Test
+    @DisplayName("settle 구간의 거래를 접어 새 checkpoint 저장")
+    void compactFoldsSettledEntries() {
+        //given
+        Account account = Account.builder().accountNumber("1111111111").balance(10000L).build();
+        LocalDateTime from = LocalDateTime.now().minusMinutes(10);
+        LocalDateTime to = LocalDateTime.now().minusMinutes(1);
+        BalanceCheckpoint latest = BalanceCheckpoint.builder()
+                .account(account).balance(8000L).settledUntil(from).build();
+        given(transactionInfoRepository.sumLedgerDeltaBetween("1111111111", from, to))
+                .willReturn(-3000L);
+        ArgumentCaptor<BalanceCheckpoint> captor = ArgumentCaptor.forClass(BalanceCheckpoint.class);
+        //when
+        boolean compacted = ledgerService.compact(latest, to);
+        //then
+        assertTrue(compacted);
+        verify(balanceCheckpointRepository, times(1)).save(captor.capture());
+        assertEquals(5000L, captor.getValue().getBalance());
+        assertEquals(to, captor.getValue().getSettledUntil());
+    }
+
+    @Test
+    @DisplayName("접을 거래가 없으면 checkpoint 저장 안 함")
+    void compactSkipsWithoutEntries() {
+        //given
+        Account account = Account.builder().accountNumber("1111111111").build();
+        BalanceCheckpoint latest = BalanceCheckpoint.builder()
+                .account(account).balance(8000L).settledUntil(LocalDateTime.now().minusMinutes(10)).build();
+        given(transactionInfoRepository.sumLedgerDeltaBetween(anyString(), any(), any()))
+                .willReturn(null);
+        //when
+        boolean compacted = ledgerService.compact(latest, LocalDateTime.now().minusMinutes(1));
+        //then
+        assertFalse(compacted);
+        verify(balanceCheckpointRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAccountLockServiceTest {
+    private final LocalAccountLockService localAccountLockService = new LocalAccountLockService();
+
+    @Test
+    void lockAndUnlock() {
+        //given
+        //when
+        //then
+        assertDoesNotThrow(() -> {
+            localAccountLockService.lock("1111111111", LockTimeouts.FALLBACK);
+            localAccountLockService.unlock("1111111111");
+            localAccountLockService.lock("1111111111", LockTimeouts.FALLBACK);
+            localAccountLockService.unlock("1111111111");
+        });
+    }
+
+    @Test
+    void lockFailWhenHeldByOtherThread() {
+        //given
+        localAccountLockService.lock("1111111111", LockTimeouts.FALLBACK);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () -> {
+            try {
+                CompletableFuture.runAsync(() -> localAccountLockService.lock("1111111111", LockTimeouts.FALLBACK)).join();
+            } catch (RuntimeException e) {
+                throw e.getCause();
+            }
+        });
+        //then
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
+        localAccountLockService.unlock("1111111111");
+    }
+
+    @Test
+    void unlockWithoutLockIsIgnored() {
+        //given
+        //when
+        //then
+        assertDoesNotThrow(() -> localAccountLockService.unlock("1111111111"));
+    }
+
+    @Test
+    void executeAsyncHoldsLockDuringWork() throws Exception {
+        //given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        //when
+        CompletableFuture<Boolean> result = localAccountLockService.executeAsync(
+                "1111111111", LockTimeouts.FALLBACK, () -> {
+                    try {
+                        CompletableFuture.runAsync(() ->
+                                localAccountLockService.lock("1111111111", new LockTimeouts(10, 10))).join();
+                        return false;
+                    } catch (RuntimeException e) {
+                        return e.getCause() instanceof AccountException;
+                    }
+                }, executor);
+        //then
+        assertTrue(result.get());
+        executor.shutdown();
+    }
+}
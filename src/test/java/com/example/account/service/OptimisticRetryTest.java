@@ -0,0 +1,64 @@
+package com.example.account.service;
+
+import com.example.account.exception.AccountException;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+    private final OptimisticRetry optimisticRetry = new OptimisticRetry(3, 1, 2);
+
+    @Test
+    @DisplayName("version 충돌 후 재시도 성공")
+    void retrySucceedsAfterConflict() throws Throwable {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+        //when
+        String result = optimisticRetry.execute("1111111111", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Account", 1L);
+            }
+            return "done";
+        });
+        //then
+        assertEquals("done", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("재시도 횟수를 다 쓰면 CURRENT_UNDER_TRANSACTION")
+    void retryExhausted() {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                optimisticRetry.execute("1111111111", () -> {
+                    attempts.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Account", 1L);
+                }));
+        //then
+        assertEquals(ErrorCode.CURRENT_UNDER_TRANSACTION, exception.getErrorCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    @DisplayName("다른 예외는 재시도하지 않음")
+    void otherExceptionIsNotRetried() {
+        //given
+        AtomicInteger attempts = new AtomicInteger();
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                optimisticRetry.execute("1111111111", () -> {
+                    attempts.incrementAndGet();
+                    throw new AccountException(ErrorCode.INSUFFICIENT_BALANCE);
+                }));
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.account.service;
+
+import com.example.account.domain.OutboxEvent;
+import com.example.account.dto.TransactionEvent;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxSink outboxSink;
+
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxSink, 2, 1000);
+    }
+
+    @Test
+    void relayPublishesThenDeletes() {
+        //given
+        given(outboxEventRepository.findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(any(), any()))
+                .willReturn(List.of(event(1L, 1234L), event(2L, 1235L)))
+                .willReturn(List.of(event(3L, 1236L)));
+        ArgumentCaptor<List<TransactionEvent>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        outboxRelay.relay();
+        //then
+        verify(outboxSink, times(2)).publish(captor.capture());
+        assertEquals("000000000016J", captor.getAllValues().get(0).get(0).getTransactionId());
+        assertEquals(1, captor.getAllValues().get(1).size());
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(1L, 2L));
+        verify(outboxEventRepository).deleteAllByIdInBatch(List.of(3L));
+    }
+
+    @Test
+    void relayWaitsForSettleWindow() {
+        //given
+        given(outboxEventRepository.findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(any(), any()))
+                .willReturn(Collections.emptyList());
+        //when
+        outboxRelay.relay();
+        //then
+        verify(outboxEventRepository).findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(
+                argThat(settledBefore -> !settledBefore.isAfter(LocalDateTime.now().minusSeconds(1))), any());
+    }
+
+    @Test
+    void relayKeepsOutboxWhenSinkFails() {
+        //given
+        given(outboxEventRepository.findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(any(), any()))
+                .willReturn(List.of(event(1L, 1234L)));
+        willThrow(new IllegalStateException("sink down"))
+                .given(outboxSink).publish(any());
+        //when
+        outboxRelay.relay();
+        //then
+        verify(outboxEventRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void relayStopsWhenOutboxIsEmpty() {
+        //given
+        given(outboxEventRepository.findByTransactedAtBeforeOrderByTransactedAtAscIdAsc(any(), any()))
+                .willReturn(Collections.emptyList());
+        //when
+        outboxRelay.relay();
+        //then
+        verify(outboxSink, never()).publish(any());
+    }
+
+    private OutboxEvent event(Long id, Long transactionId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .transactionId(transactionId)
+                .accountNumber("1000000000")
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.dto.TransactionDto;
+import com.example.account.exception.AccountException;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.redisson.api.RKeys;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+
+import static com.example.account.type.TransactionResult.TRANSACTION_SUCCESS;
+import static com.example.account.type.TransactionType.USE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.*;
+
+/**
+ * lua script 의 결과 문자열을 순서대로 돌려주는 RScript 로 redis 없이 분기와 오류 변환을 확인
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisBalanceServiceTest {
+    @Mock
+    private ObjectProvider<RedissonClient> redissonClientProvider;
+
+    @Mock
+    private RedissonClient redissonClient;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountUserRepository accountUserRepository;
+
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    private final Deque<String> results = new ArrayDeque<>();
+    private final List<Object[]> scriptArgs = new ArrayList<>();
+
+    private RedisBalanceService redisBalanceService;
+
+    @BeforeEach
+    void setUp() {
+        // sha 대신 script 본문을 그대로 돌려줘서 evalSha 에서 결과를 꺼냄
+        RScript rScript = mock(RScript.class, invocation -> {
+            if (invocation.getMethod().getName().equals("scriptLoad")) {
+                return invocation.getArgument(0);
+            }
+            if (invocation.getMethod().getName().equals("evalSha")) {
+                Object[] arguments = invocation.getArguments();
+                scriptArgs.add(Arrays.copyOfRange(arguments, 4, arguments.length));
+                return results.poll();
+            }
+            return null;
+        });
+        given(redissonClientProvider.getIfAvailable()).willReturn(redissonClient);
+        lenient().when(redissonClient.getScript(any())).thenReturn(rScript);
+        lenient().when(transactionIdGenerator.nextId()).thenReturn(1234L);
+
+        redisBalanceService = new RedisBalanceService(redissonClientProvider, accountRepository,
+                accountUserRepository, transactionInfoService, transactionIdGenerator,
+                List.of("1111111111", " 2222222222 "));
+    }
+
+    @Test
+    @DisplayName("지정한 계좌만 처리")
+    void handlesDesignatedAccounts() {
+        //given
+        //when
+        //then
+        assertTrue(redisBalanceService.handles("1111111111"));
+        assertTrue(redisBalanceService.handles("2222222222"));
+        assertFalse(redisBalanceService.handles("3333333333"));
+    }
+
+    @Test
+    @DisplayName("잔액 사용 성공: script 한 번, 거래 후 잔액과 script 가 정한 거래 시각 응답")
+    void useSuccess() {
+        //given
+        results.add("OK:9000:1650000000000");
+        //when
+        TransactionDto transactionDto = redisBalanceService.use("1111111111", 1L, 1000L);
+        //then
+        assertEquals(1, scriptArgs.size());
+        assertEquals("000000000016J", transactionDto.getTransactionId());
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+        assertEquals(TRANSACTION_SUCCESS, transactionDto.getTransactionResult());
+        assertEquals(USE, transactionDto.getTransactionType());
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(1650000000000L), ZoneId.systemDefault()),
+                transactionDto.getTransactedAt());
+        assertEquals(5, scriptArgs.get(0).length);
+        verifyNoInteractions(accountRepository, accountUserRepository);
+    }
+
+    @Test
+    @DisplayName("잔액 사용 실패: script 오류를 ErrorCode 로 변환")
+    void useFailByInsufficientBalance() {
+        //given
+        results.add("INSUFFICIENT_BALANCE");
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.use("1111111111", 1L, 100_000L));
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("소유주 불일치인데 사용자가 없으면 USER_NOT_FOUND")
+    void useFailByUserNotFound() {
+        //given
+        results.add("ACCOUNT_USER_UN_MATCH");
+        given(accountUserRepository.existsById(anyLong())).willReturn(false);
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.use("1111111111", 99L, 1000L));
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("redis 에 계좌가 없으면 DB 에서 올린 뒤 다시 실행")
+    void useLoadsAccountFromDatabase() {
+        //given
+        results.add("NOT_LOADED");
+        results.add("OK:");
+        results.add("OK:9000:1650000000000");
+        given(accountRepository.findByAccountNumber("1111111111"))
+                .willReturn(Optional.of(account(10000L)));
+        //when
+        TransactionDto transactionDto = redisBalanceService.use("1111111111", 12L, 1000L);
+        //then
+        assertEquals(3, scriptArgs.size());
+        assertArrayEquals(new Object[]{"10000", "12", "IN_USE"}, scriptArgs.get(1));
+        assertEquals(9000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("redis 에 없는 거래 취소는 DB 에서 검증 후 다시 실행")
+    void cancelValidatedInDatabase() {
+        //given
+        results.add("NOT_IN_REDIS");
+        results.add("OK:10000:1650000000000");
+        //when
+        TransactionDto transactionDto = redisBalanceService.cancel("1111111111", "000000000016J", 1000L);
+        //then
+        verify(transactionInfoService, times(1)).validateCancelable("1111111111", 1234L, 1000L);
+        assertEquals(2, scriptArgs.size());
+        assertEquals("0", scriptArgs.get(0)[4]);
+        assertEquals("1", scriptArgs.get(1)[4]);
+        assertEquals(10000L, transactionDto.getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("DB 검증에 실패하면 redis 를 다시 실행하지 않음")
+    void cancelFailByAmountUnMatchInDatabase() {
+        //given
+        results.add("NOT_IN_REDIS");
+        willThrow(new AccountException(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH))
+                .given(transactionInfoService).validateCancelable(anyString(), anyLong(), anyLong());
+        //when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> redisBalanceService.cancel("1111111111", "000000000016J", 2000L));
+        //then
+        assertEquals(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH, exception.getErrorCode());
+        assertEquals(1, scriptArgs.size());
+    }
+
+    @Test
+    @DisplayName("지정을 푼 계좌의 남은 키를 찾고, 대기열이 비면 지움")
+    void findAndRetireUndesignatedAccount() {
+        //given
+        RKeys keys = mock(RKeys.class);
+        given(redissonClient.getKeys()).willReturn(keys);
+        given(keys.getKeysByPattern("ABAL:{*")).willReturn(List.of(
+                "ABAL:{1111111111}", "ABAL:{3333333333}", "ABAL:{3333333333}:entries"));
+        results.add("PENDING");
+        results.add("OK:");
+        //when
+        redisBalanceService.findRetiring();
+        boolean pending = redisBalanceService.retire("3333333333");
+        boolean retired = redisBalanceService.retire("3333333333");
+        //then
+        assertFalse(pending);
+        assertTrue(retired);
+        assertTrue(redisBalanceService.getRetiringAccountNumbers().isEmpty());
+    }
+
+    @Test
+    @DisplayName("지정을 풀었어도 redis 에 키가 남아 있으면 redis 잔액 계좌로 봄")
+    void holdsUntilRetired() {
+        //given
+        RKeys keys = mock(RKeys.class);
+        given(redissonClient.getKeys()).willReturn(keys);
+        given(keys.countExists("ABAL:{3333333333}", "ABAL:{3333333333}:entries")).willReturn(1L);
+        //when
+        //then
+        assertTrue(redisBalanceService.holds("3333333333"));
+    }
+
+    private static Account account(Long balance) {
+        return Account.builder()
+                .accountUser(AccountUser.builder().id(12L).name("Pobi").build())
+                .accountNumber("1111111111")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .build();
+    }
+}
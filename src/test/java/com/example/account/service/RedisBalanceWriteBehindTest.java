@@ -0,0 +1,74 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class RedisBalanceWriteBehindTest {
+    @Mock
+    private RedisBalanceService redisBalanceService;
+
+    @Mock
+    private TransactionInfoService transactionInfoService;
+
+    private RedisBalanceWriteBehind redisBalanceWriteBehind;
+
+    @BeforeEach
+    void setUp() {
+        redisBalanceWriteBehind = new RedisBalanceWriteBehind(redisBalanceService, transactionInfoService, 2);
+    }
+
+    @Test
+    @DisplayName("지정을 푼 계좌의 대기열도 DB 에 반영한 뒤 redis 키를 지움")
+    void flushRetiringAccount() {
+        //given
+        List<BalanceEntry> entries = List.of(
+                BalanceEntry.parse("1234:USE:1000:9000:1650000000000"),
+                BalanceEntry.parse("1235:USE:1000:8000:1650000000001"));
+        given(redisBalanceService.getAccountNumbers()).willReturn(Set.of("1111111111"));
+        given(redisBalanceService.getRetiringAccountNumbers()).willReturn(Set.of("3333333333"));
+        given(redisBalanceService.readEntries("1111111111", 2)).willReturn(Collections.emptyList());
+        given(redisBalanceService.readEntries("3333333333", 2))
+                .willReturn(entries)
+                .willReturn(Collections.emptyList());
+        //when
+        redisBalanceWriteBehind.flush();
+        //then
+        verify(transactionInfoService).saveBalanceEntries("3333333333", entries);
+        verify(redisBalanceService).trimEntries("3333333333", entries);
+        verify(redisBalanceService).retire("3333333333");
+    }
+
+    @Test
+    @DisplayName("반영에 실패하면 지정을 푼 계좌의 redis 키를 남김")
+    void keepRetiringAccountWhenFlushFails() {
+        //given
+        List<BalanceEntry> entries = List.of(BalanceEntry.parse("1234:USE:1000:9000:1650000000000"));
+        given(redisBalanceService.getAccountNumbers()).willReturn(Collections.emptySet());
+        given(redisBalanceService.getRetiringAccountNumbers()).willReturn(Set.of("3333333333"));
+        given(redisBalanceService.readEntries(anyString(), anyInt())).willReturn(entries);
+        willThrow(new IllegalStateException("db down"))
+                .given(transactionInfoService).saveBalanceEntries("3333333333", entries);
+        //when
+        redisBalanceWriteBehind.flush();
+        //then
+        verify(redisBalanceService, never()).trimEntries("3333333333", entries);
+        verify(redisBalanceService, never()).retire(anyString());
+    }
+}
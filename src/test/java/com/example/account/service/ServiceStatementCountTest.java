@@ -0,0 +1,191 @@
+package com.example.account.service;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.AccountUser;
+import com.example.account.domain.TransactionInfo;
+import com.example.account.repository.AccountRepository;
+import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.OutboxEventRepository;
+import com.example.account.repository.TransactionInfoRepository;
+import com.example.account.type.AccountStatus;
+import com.example.account.type.TransactionIdCodec;
+import com.example.account.type.TransactionMode;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 서비스 메서드별 실행 SQL 개수 고정 (N+1 회귀 방지)
+ * 서비스 메서드가 각자 트랜잭션을 커밋하도록 테스트 트랜잭션은 사용하지 않는다.
+ * id 발급용 sequence 호출은 블록 단위라 개수에서 제외한다.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.account.service.ServiceStatementCountTest$StatementCounter")
+@Import({AccountService.class, TransactionInfoService.class, InquiryService.class, LedgerService.class,
+        RedisBalanceService.class, SequenceAccountNumberAllocator.class, SnowflakeTransactionIdGenerator.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(SpringExtension.class)
+class ServiceStatementCountTest {
+    private static final long TRANSACTION_ID = 1234L;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionInfoService transactionInfoService;
+
+    @Autowired
+    private InquiryService inquiryService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionInfoRepository transactionInfoRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    private AccountUser user;
+
+    @BeforeEach
+    void seed() {
+        user = accountUserRepository.save(AccountUser.builder().name("statement").build());
+        Account account = accountRepository.save(account("1100000000", 10000L));
+        accountRepository.save(account("1100000001", 0L));
+        transactionInfoRepository.save(TransactionInfo.builder()
+                .account(account)
+                .transactionType(TransactionType.USE)
+                .transactionResult(TransactionResult.TRANSACTION_SUCCESS)
+                .transactionId(TRANSACTION_ID)
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactedAt(LocalDateTime.now())
+                .build());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        outboxEventRepository.deleteAllInBatch();
+        transactionInfoRepository.deleteAllInBatch();
+        accountRepository.deleteAllInBatch();
+        accountUserRepository.deleteById(user.getId());
+    }
+
+    @Test
+    @DisplayName("계좌 생성: 사용자, 계좌 수, insert")
+    void createAccount() {
+        assertStatements(3, () -> accountService.createAccount(user.getId(), 1000L));
+    }
+
+    @Test
+    @DisplayName("계좌 해지: 사용자, 계좌, update")
+    void deleteAccount() {
+        assertStatements(3, () -> accountService.deleteAccount(user.getId(), "1100000001"));
+    }
+
+    @Test
+    @DisplayName("계좌 목록: 사용자 존재 확인, 계좌 projection")
+    void inquireAccounts() {
+        assertStatements(2, () -> inquiryService.inquireAccounts(user.getId()));
+    }
+
+    @Test
+    @DisplayName("잔액 사용: 사용자, 계좌, insert(거래), update, 기본 설정은 outbox 를 남기지 않음")
+    void transactUse() {
+        assertStatements(4, () -> transactionInfoService.transactUse("1100000000", user.getId(), 1000L));
+        assertEquals(0, outboxEventRepository.count());
+    }
+
+    @Test
+    @DisplayName("잔액 사용 ATOMIC: 조건부 update, 계좌, insert")
+    void transactUseAtomic() {
+        Object target = AopTestUtils.getTargetObject(transactionInfoService);
+        ReflectionTestUtils.setField(target, "transactionMode", TransactionMode.ATOMIC);
+        try {
+            assertStatements(3, () -> transactionInfoService.transactUse("1100000000", user.getId(), 1000L));
+        } finally {
+            ReflectionTestUtils.setField(target, "transactionMode", TransactionMode.LOCK);
+        }
+    }
+
+    @Test
+    @DisplayName("잔액 사용 취소: 거래+계좌, 계좌, insert, update 2건")
+    void transactCancel() {
+        assertStatements(5, () -> transactionInfoService.transactCancel("1100000000",
+                TransactionIdCodec.format(TRANSACTION_ID), 1000L));
+    }
+
+    @Test
+    @DisplayName("거래 조회: 거래+계좌 projection 한 번")
+    void inquireTransaction() {
+        assertStatements(1, () -> inquiryService.inquireTransaction(
+                TransactionIdCodec.format(TRANSACTION_ID)));
+    }
+
+    @Test
+    @DisplayName("실패 거래 저장: 계좌, insert")
+    void saveFailedTransaction() {
+        assertStatements(2, () -> transactionInfoService.saveFailedTransaction("1100000000",
+                1000L, TransactionType.USE));
+    }
+
+    private Account account(String accountNumber, Long balance) {
+        return Account.builder()
+                .accountUser(user)
+                .accountNumber(accountNumber)
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(balance)
+                .registeredAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void assertStatements(int expected, Runnable work) {
+        StatementCounter.reset();
+        work.run();
+        List<String> statements = StatementCounter.statements();
+        assertEquals(expected, statements.size(), String.join("\n", statements));
+    }
+
+    public static class StatementCounter implements StatementInspector {
+        private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+        static void reset() {
+            STATEMENTS.get().clear();
+        }
+
+        static List<String> statements() {
+            return new ArrayList<>(STATEMENTS.get());
+        }
+
+        @Override
+        public String inspect(String sql) {
+            if (!sql.contains("next value for")) {
+                STATEMENTS.get().add(sql);
+            }
+            return sql;
+        }
+    }
+}
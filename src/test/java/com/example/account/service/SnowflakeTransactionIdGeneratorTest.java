@@ -0,0 +1,68 @@
+package com.example.account.service;
+
+import com.example.account.type.TransactionIdCodec;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    @Test
+    @DisplayName("같은 밀리초에 순번을 다 써도 단조 증가")
+    void monotonicWithinSameMillisecond() {
+        //given
+        SnowflakeTransactionIdGenerator generator =
+                new SnowflakeTransactionIdGenerator(7, () -> 1700000000000L);
+        //when
+        long previous = generator.nextId();
+        //then
+        for (int i = 0; i < 10_000; i++) {
+            long next = generator.nextId();
+            assertTrue(next > previous);
+            assertEquals(7, (next >>> 12) & 1023);
+            previous = next;
+        }
+    }
+
+    @Test
+    @DisplayName("시계가 뒤로 가도 단조 증가")
+    void monotonicWhenClockMovesBackwards() {
+        //given
+        AtomicLong clock = new AtomicLong(1700000000000L);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(0, clock::get);
+        long before = generator.nextId();
+        //when
+        clock.addAndGet(-1000);
+        long after = generator.nextId();
+        //then
+        assertTrue(after > before);
+    }
+
+    @Test
+    @DisplayName("문자열 아이디도 발급 순서대로 정렬")
+    void formattedIdsSortInIssueOrder() {
+        //given
+        AtomicLong clock = new AtomicLong(1700000000000L);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(0, clock::get);
+        long first = generator.nextId();
+        clock.addAndGet(1);
+        long second = generator.nextId();
+        //when
+        String firstId = TransactionIdCodec.format(first);
+        String secondId = TransactionIdCodec.format(second);
+        //then
+        assertTrue(firstId.compareTo(secondId) < 0);
+        assertEquals(first, TransactionIdCodec.parse(firstId));
+        assertEquals(second, TransactionIdCodec.parse(secondId.toLowerCase()));
+    }
+
+    @Test
+    @DisplayName("노드 아이디 범위 초과")
+    void invalidNodeId() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeTransactionIdGenerator(1024, System::currentTimeMillis));
+    }
+}
@@ -2,14 +2,20 @@ package com.example.account.service;
 
 import com.example.account.domain.Account;
 import com.example.account.domain.AccountUser;
+import com.example.account.domain.OutboxEvent;
 import com.example.account.domain.TransactionInfo;
-import com.example.account.dto.TransactionDto;
+import com.example.account.dto.BalanceEntry;
+import com.example.account.dto.FailedTransaction;
+import com.example.account.dto.TransactionOutcome;
+import com.example.account.dto.TransactionUse;
 import com.example.account.exception.AccountException;
 import com.example.account.repository.AccountRepository;
 import com.example.account.repository.AccountUserRepository;
+import com.example.account.repository.OutboxEventRepository;
 import com.example.account.repository.TransactionInfoRepository;
 import com.example.account.type.AccountStatus;
 import com.example.account.type.ErrorCode;
+import com.example.account.type.TransactionMode;
 import com.example.account.type.TransactionType;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -18,8 +24,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import static com.example.account.type.TransactionResult.*;
@@ -29,8 +37,10 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionInfoServiceTest {
@@ -43,6 +53,15 @@ class TransactionInfoServiceTest {
     @Mock
     private TransactionInfoRepository transactionInfoRepository;
 
+    @Mock
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
     @InjectMocks
     private TransactionInfoService transactionInfoService;
 
@@ -162,7 +181,7 @@ class TransactionInfoServiceTest {
                 .willReturn(Optional.ofNullable(account));
         given(transactionInfoRepository.save(any()))
                 .willReturn(TransactionInfo.builder()
-                        .transactionId("1q2w3e4r5t6y")
+                        .transactionId(1234L)
                         .account(account)
                         .amount(15000L)
                         .transactionType(USE)
@@ -180,16 +199,48 @@ class TransactionInfoServiceTest {
         assertEquals(5000L,captor.getValue().getBalanceSnapshot());
     }
 
+    @Test
+    @DisplayName("거래 저장 시 outbox 도 함께 저장")
+    void transactUseSavesOutboxEvent() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "outboxEnabled", true);
+        AccountUser user = AccountUser.builder().id(123L).build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountNumber("1111111111")
+                .accountStatus(AccountStatus.IN_USE)
+                .balance(20000L)
+                .build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionIdGenerator.nextId())
+                .willReturn(1234L);
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<OutboxEvent> captor = ArgumentCaptor.forClass(OutboxEvent.class);
+        //when
+        transactionInfoService.transactUse("1111111111", 123L, 15000L);
+        //then
+        verify(outboxEventRepository, times(1)).save(captor.capture());
+        assertEquals(1234L, captor.getValue().getTransactionId());
+        assertEquals("1111111111", captor.getValue().getAccountNumber());
+        assertEquals(USE, captor.getValue().getTransactionType());
+        assertEquals(15000L, captor.getValue().getAmount());
+        assertEquals(5000L, captor.getValue().getBalanceSnapshot());
+    }
+
     @Test
     @DisplayName("거래 취소 없는 거래인 경우")
     void transactCancelFailByUserNotFound() {
         //given
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.empty());
         //when
         AccountException exception = assertThrows(AccountException.class, () ->
                 transactionInfoService.transactCancel("1111111111",
-                        "1q2w3e4r5t", 1000L));
+                        "000000000016J", 1000L));
         //then
         assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
     }
@@ -202,7 +253,7 @@ class TransactionInfoServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1111111111")
                 .build();
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.ofNullable(TransactionInfo.builder().id(1L)
                         .account(account)
                         .amount(1000L)
@@ -218,7 +269,7 @@ class TransactionInfoServiceTest {
         //when
         AccountException exception = assertThrows(AccountException.class, () ->
                 transactionInfoService.transactCancel("1111111111",
-                        "1q2w3e4r5t", 1000L));
+                        "000000000016J", 1000L));
         //then
         assertEquals(ErrorCode.UNABLE_CANCEL_TRANSACTION, exception.getErrorCode());
     }
@@ -231,7 +282,7 @@ class TransactionInfoServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1111111111")
                 .build();
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.ofNullable(TransactionInfo.builder().id(1L)
                         .account(account)
                         .amount(5500L)
@@ -247,7 +298,7 @@ class TransactionInfoServiceTest {
         //when
         AccountException exception = assertThrows(AccountException.class, () ->
                 transactionInfoService.transactCancel("1111111111",
-                        "1q2w3e4r5t", 1000L));
+                        "000000000016J", 1000L));
         //then
         assertEquals(ErrorCode.TRANSACTION_AMOUNT_UN_MATCH, exception.getErrorCode());
     }
@@ -260,7 +311,7 @@ class TransactionInfoServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1111111111")
                 .build();
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.ofNullable(TransactionInfo.builder().id(1L)
                         .account(account)
                         .amount(5500L)
@@ -276,7 +327,7 @@ class TransactionInfoServiceTest {
         //when
         AccountException exception = assertThrows(AccountException.class, () ->
                 transactionInfoService.transactCancel("1111111111",
-                        "1q2w3e4r5t", 5500L));
+                        "000000000016J", 5500L));
         //then
         assertEquals(ErrorCode.ACCOUNT_NUMBER_UN_MATCH, exception.getErrorCode());
     }
@@ -289,7 +340,7 @@ class TransactionInfoServiceTest {
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1111111111")
                 .build();
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.ofNullable(TransactionInfo.builder().id(1L)
                         .account(account)
                         .amount(5500L)
@@ -305,7 +356,7 @@ class TransactionInfoServiceTest {
         //when
         AccountException exception = assertThrows(AccountException.class, () ->
                 transactionInfoService.transactCancel("1111111111",
-                        "1q2w3e4r5t", 5500L));
+                        "000000000016J", 5500L));
         //then
         assertEquals(ErrorCode.EXCEED_DATE_1YEAR, exception.getErrorCode());
     }
@@ -319,7 +370,7 @@ class TransactionInfoServiceTest {
                 .accountNumber("1111111111")
                 .balance(20000L)
                 .build();
-        given(transactionInfoRepository.findByTransactionId(anyString()))
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
                 .willReturn(Optional.ofNullable(TransactionInfo.builder().id(1L)
                         .account(account)
                         .amount(5500L)
@@ -331,7 +382,7 @@ class TransactionInfoServiceTest {
                 .willReturn(Optional.ofNullable(account));
         given(transactionInfoRepository.save(any()))
                 .willReturn(TransactionInfo.builder()
-                        .transactionId("1q2w3e4r5t6y")
+                        .transactionId(1234L)
                         .account(account)
                         .amount(15000L)
                         .transactionType(CANCEL)
@@ -341,7 +392,7 @@ class TransactionInfoServiceTest {
         ArgumentCaptor<TransactionInfo> captor = ArgumentCaptor.forClass(TransactionInfo.class);
         //when
         transactionInfoService.transactCancel("1111111111",
-                "1q2w3e4r5t", 5500L);
+                "000000000016J", 5500L);
         //then
         verify(transactionInfoRepository, times(1)).save(captor.capture());
         assertEquals(TRANSACTION_SUCCESS, captor.getValue().getTransactionResult());
@@ -350,45 +401,202 @@ class TransactionInfoServiceTest {
     }
 
     @Test
-    @DisplayName("거래 조회 거래 아이디 없는 경우")
-    void inquireTransactionFailByNotFoundId() {
+    @DisplayName("일괄 사용 중 실패한 항목은 실패 거래로 남기고 다음 항목 계속")
+    void transactUseAllIsolatesFailedItem() {
         //given
-        given(transactionInfoRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.empty());
+        AccountUser user = AccountUser.builder().id(12L).build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(10000L)
+                .build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(accountUserRepository.findById(12L))
+                .willReturn(Optional.of(user));
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<TransactionInfo> captor = ArgumentCaptor.forClass(TransactionInfo.class);
         //when
-        AccountException exception = assertThrows(AccountException.class, () ->
-                transactionInfoService.inquireTransaction("1q2w3e4r5t"));
+        List<TransactionUse.BatchResponse> responses = transactionInfoService.transactUseAll("1111111111", List.of(
+                new TransactionUse.Request(12L, "1111111111", 6000L),
+                new TransactionUse.Request(12L, "1111111111", 6000L),
+                new TransactionUse.Request(12L, "1111111111", 3000L)));
         //then
-        assertEquals(ErrorCode.TRANSACTION_NOT_FOUND, exception.getErrorCode());
+        assertEquals(TRANSACTION_SUCCESS, responses.get(0).getTransactionResult());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, responses.get(1).getErrorCode());
+        assertEquals(TRANSACTION_SUCCESS, responses.get(2).getTransactionResult());
+        assertEquals(1000L, account.getBalance());
+        verify(accountUserRepository, times(1)).findById(12L);
+        verify(transactionInfoRepository, times(3)).save(captor.capture());
+        assertEquals(TRANSACTION_FAIL, captor.getAllValues().get(1).getTransactionResult());
+        assertEquals(4000L, captor.getAllValues().get(1).getBalanceSnapshot());
     }
+
     @Test
-    @DisplayName("거래 조회 성공")
-    void inquireTransactionSuccess() {
+    @DisplayName("ATOMIC 거래 사용 성공")
+    void transactUseAtomicSuccess() {
         //given
-        AccountUser user = AccountUser.builder().id(123L).build();
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.ATOMIC);
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(9000L)
+                .build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong()))
+                .willReturn(1);
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<TransactionInfo> captor = ArgumentCaptor.forClass(TransactionInfo.class);
+        //when
+        transactionInfoService.transactUse("1111111111", 123L, 1000L);
+        //then
+        verify(accountRepository, times(1)).debitBalance("1111111111", 123L, 1000L);
+        verify(accountUserRepository, never()).findById(anyLong());
+        verify(transactionInfoRepository, times(1)).save(captor.capture());
+        assertEquals(TRANSACTION_SUCCESS, captor.getValue().getTransactionResult());
+        assertEquals(9000L, captor.getValue().getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("LEDGER 거래 사용은 잔액 컬럼을 바꾸지 않고 원장에만 추가")
+    void transactUseLedgerAppendsOnly() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.LEDGER);
+        AccountUser user = AccountUser.builder().id(12L).build();
         Account account = Account.builder()
                 .accountUser(user)
                 .accountStatus(AccountStatus.IN_USE)
                 .accountNumber("1111111111")
-                .balance(200000000L)
+                .balance(10000L)
                 .build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.openBalance(any()))
+                .willReturn(7000L);
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        ArgumentCaptor<TransactionInfo> captor = ArgumentCaptor.forClass(TransactionInfo.class);
+        //when
+        transactionInfoService.transactUse("1111111111", 12L, 1000L);
+        //then
+        verify(transactionInfoRepository, times(1)).save(captor.capture());
+        assertEquals(6000L, captor.getValue().getBalanceSnapshot());
+        assertEquals(10000L, account.getBalance());
+    }
+
+    @Test
+    @DisplayName("LEDGER 거래 사용 원장 잔액 부족")
+    void transactUseLedgerFailByInsufficientBalance() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.LEDGER);
+        AccountUser user = AccountUser.builder().id(12L).build();
+        Account account = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(10000L)
+                .build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(ledgerService.openBalance(any()))
+                .willReturn(500L);
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactUse("1111111111", 12L, 1000L));
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        verify(transactionInfoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("ATOMIC 거래 사용 금액 오류보다 사용자, 잔액 오류를 먼저 응답 (LOCK 모드와 같은 순서)")
+    void transactUseAtomicFailOrderMatchesLock() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.ATOMIC);
+        AccountUser user = AccountUser.builder().id(123L).build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong()))
+                .willReturn(0);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.empty(), Optional.of(user), Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(500L)
+                        .build()));
+        //when
+        AccountException unknownUser = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactUse("1111111111", 124L, 80L));
+        AccountException insufficient = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactUse("1111111111", 123L, 120000000L));
+        AccountException tooSmall = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactUse("1111111111", 123L, 80L));
+        //then
+        assertEquals(ErrorCode.USER_NOT_FOUND, unknownUser.getErrorCode());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, insufficient.getErrorCode());
+        assertEquals(ErrorCode.TOO_SMALL_AMOUNT, tooSmall.getErrorCode());
+    }
 
-        given(transactionInfoRepository.findByTransactionId(anyString()))
-                .willReturn(Optional.ofNullable(TransactionInfo.builder()
+    @Test
+    @DisplayName("ATOMIC 거래 사용 차감 0건이면 원인별 오류")
+    void transactUseAtomicFailByInsufficientBalance() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.ATOMIC);
+        AccountUser user = AccountUser.builder().id(123L).build();
+        given(accountRepository.debitBalance(anyString(), anyLong(), anyLong()))
+                .willReturn(0);
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(500L)
+                        .build()));
+        //when
+        AccountException exception = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactUse("1111111111", 123L, 1000L));
+        //then
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, exception.getErrorCode());
+        verify(transactionInfoRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("ATOMIC 거래 취소 이미 취소된 경우")
+    void transactCancelAtomicFailByAlreadyCanceled() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "transactionMode", TransactionMode.ATOMIC);
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(20000L)
+                .build();
+        given(transactionInfoRepository.findByTransactionId(anyLong()))
+                .willReturn(Optional.of(TransactionInfo.builder().id(1L)
                         .account(account)
-                        .transactionId("1q2w3e4r5t")
+                        .amount(5500L)
                         .transactionType(USE)
                         .transactionResult(TRANSACTION_SUCCESS)
-                        .amount(10000L)
-                        .transactedAt(LocalDateTime.now().minusMonths(1))
+                        .transactedAt(LocalDateTime.now())
                         .build()));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionInfoRepository.markCanceled(anyLong()))
+                .willReturn(0);
         //when
-        TransactionDto transactionDto = transactionInfoService.inquireTransaction("1q2w3e4r5t");
+        AccountException exception = assertThrows(AccountException.class, () ->
+                transactionInfoService.transactCancel("1111111111", "000000000016J", 5500L));
         //then
-        assertEquals("1q2w3e4r5t", transactionDto.getTransactionId());
-        assertEquals(10000L,transactionDto.getAmount());
-        assertEquals(TRANSACTION_SUCCESS,transactionDto.getTransactionResult());
-        assertEquals(USE,transactionDto.getTransactionType());
+        assertEquals(ErrorCode.UNABLE_CANCEL_TRANSACTION, exception.getErrorCode());
+        verify(accountRepository, never()).creditBalance(anyString(), anyLong());
     }
 
     @Test
@@ -402,6 +610,8 @@ class TransactionInfoServiceTest {
                 .build();
         given(accountRepository.findByAccountNumber(anyString()))
                 .willReturn(Optional.ofNullable(account));
+        given(transactionIdGenerator.nextId())
+                .willReturn(1234L);
         ArgumentCaptor<TransactionInfo> captor = ArgumentCaptor.forClass(TransactionInfo.class);
         //when
         transactionInfoService.saveFailedTransaction("1111111111",
@@ -411,6 +621,149 @@ class TransactionInfoServiceTest {
         assertEquals(USE, captor.getValue().getTransactionType());
         assertEquals(TRANSACTION_FAIL,captor.getValue().getTransactionResult());
         assertEquals(20000L, captor.getValue().getBalanceSnapshot());
-        System.out.println("Test Generated UUID: "+captor.getValue().getTransactionId());
+        assertEquals(1234L, captor.getValue().getTransactionId());
+    }
+
+    @Test
+    @DisplayName("outbox 를 켜지 않으면 (기본) outbox 를 저장하지 않음")
+    void transactUseWithoutOutbox() {
+        //given
+        AccountUser user = AccountUser.builder().id(123L).build();
+        given(accountUserRepository.findById(anyLong()))
+                .willReturn(Optional.of(user));
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(Account.builder()
+                        .accountUser(user)
+                        .accountNumber("1111111111")
+                        .accountStatus(AccountStatus.IN_USE)
+                        .balance(20000L)
+                        .build()));
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        //when
+        transactionInfoService.transactUse("1111111111", 123L, 15000L);
+        //then
+        verify(transactionInfoRepository, times(1)).save(any());
+        verifyNoInteractions(outboxEventRepository);
+    }
+
+    @Test
+    @DisplayName("실패 거래 묶음 저장: 계좌 한 번 조회, 실패 시점의 거래 아이디 유지, 없는 계좌는 제외")
+    void saveFailedTransactions() {
+        //given
+        ReflectionTestUtils.setField(transactionInfoService, "outboxEnabled", true);
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(20000L)
+                .build();
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(account));
+        LocalDateTime failedAt = LocalDateTime.now().minusSeconds(1);
+        ArgumentCaptor<List<TransactionInfo>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        transactionInfoService.saveFailedTransactions(List.of(
+                failedTransaction(1234L, "1111111111", USE, failedAt),
+                failedTransaction(1235L, "1111111111", CANCEL, failedAt),
+                failedTransaction(1236L, "2222222222", USE, failedAt)));
+        //then
+        verify(accountRepository, times(1)).findByAccountNumberIn(anyCollection());
+        verify(transactionInfoRepository, times(1)).saveAll(captor.capture());
+        verify(outboxEventRepository, times(1)).saveAll(anyList());
+        List<TransactionInfo> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(1234L, saved.get(0).getTransactionId());
+        assertEquals(TRANSACTION_FAIL, saved.get(0).getTransactionResult());
+        assertEquals(failedAt, saved.get(0).getTransactedAt());
+        assertEquals(CANCEL, saved.get(1).getTransactionType());
+        assertEquals(20000L, saved.get(1).getBalanceSnapshot());
+    }
+
+    @Test
+    @DisplayName("group 사용: 사용자와 계좌를 한 번에 조회하고 검증 실패는 그 항목에만 남김")
+    void transactUseGroup() {
+        //given
+        AccountUser user = AccountUser.builder().id(12L).build();
+        Account first = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(10000L)
+                .build();
+        Account second = Account.builder()
+                .accountUser(user)
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("2222222222")
+                .balance(100L)
+                .build();
+        given(accountUserRepository.findAllById(anyCollection()))
+                .willReturn(List.of(user));
+        given(accountRepository.findByAccountNumberIn(anyCollection()))
+                .willReturn(List.of(first, second));
+        given(transactionInfoRepository.save(any()))
+                .willAnswer(invocation -> invocation.getArgument(0));
+        //when
+        List<TransactionOutcome> outcomes = transactionInfoService.transactUseGroup(List.of(
+                new TransactionUse.Request(12L, "1111111111", 1000L),
+                new TransactionUse.Request(12L, "2222222222", 1000L),
+                new TransactionUse.Request(13L, "1111111111", 1000L)));
+        //then
+        verify(accountUserRepository, times(1)).findAllById(anyCollection());
+        verify(accountRepository, times(1)).findByAccountNumberIn(anyCollection());
+        verify(transactionInfoRepository, times(1)).save(any());
+        assertEquals(9000L, outcomes.get(0).getTransaction().getBalanceSnapshot());
+        assertEquals(ErrorCode.INSUFFICIENT_BALANCE, outcomes.get(1).getError().getErrorCode());
+        assertEquals(ErrorCode.USER_NOT_FOUND, outcomes.get(2).getError().getErrorCode());
+        assertEquals(100L, second.getBalance());
+    }
+
+    private static FailedTransaction failedTransaction(long transactionId, String accountNumber,
+                                                       TransactionType type, LocalDateTime transactedAt) {
+        return FailedTransaction.builder()
+                .transactionId(transactionId)
+                .accountNumber(accountNumber)
+                .amount(5000L)
+                .transactionType(type)
+                .errorCode(ErrorCode.INSUFFICIENT_BALANCE)
+                .transactedAt(transactedAt)
+                .build();
+    }
+
+    @Test
+    @DisplayName("redis 잔액 write-behind 반영: 이미 저장된 거래는 건너뛰고 취소된 사용 거래와 계좌 잔액을 맞춤")
+    void saveBalanceEntries() {
+        //given
+        Account account = Account.builder()
+                .accountStatus(AccountStatus.IN_USE)
+                .accountNumber("1111111111")
+                .balance(10000L)
+                .build();
+        TransactionInfo alreadySaved = TransactionInfo.builder()
+                .account(account)
+                .transactionType(USE)
+                .transactionResult(TRANSACTION_SUCCESS)
+                .amount(1000L)
+                .transactionId(1L)
+                .build();
+        given(accountRepository.findByAccountNumber(anyString()))
+                .willReturn(Optional.of(account));
+        given(transactionInfoRepository.findByTransactionIdIn(anyCollection()))
+                .willReturn(List.of(alreadySaved));
+        long now = System.currentTimeMillis();
+        ArgumentCaptor<List<TransactionInfo>> captor = ArgumentCaptor.forClass(List.class);
+        //when
+        transactionInfoService.saveBalanceEntries("1111111111", List.of(
+                BalanceEntry.parse("1:USE:1000:9000:" + now),
+                BalanceEntry.parse("2:USE:2000:7000:" + now),
+                BalanceEntry.parse("3:CANCEL:1000:8000:" + now + ":1")));
+        //then
+        verify(transactionInfoRepository, times(1)).saveAll(captor.capture());
+        List<TransactionInfo> saved = captor.getValue();
+        assertEquals(2, saved.size());
+        assertEquals(2L, saved.get(0).getTransactionId());
+        assertEquals(7000L, saved.get(0).getBalanceSnapshot());
+        assertEquals(CANCEL, saved.get(1).getTransactionType());
+        assertEquals(TRANSACTION_CANCEL, alreadySaved.getTransactionResult());
+        assertEquals(8000L, account.getBalance());
     }
-}
\ No newline at end of file
+}
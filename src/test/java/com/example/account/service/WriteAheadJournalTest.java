@@ -0,0 +1,112 @@
+package com.example.account.service;
+
+import com.example.account.dto.BalanceEntry;
+import com.example.account.type.TransactionType;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadJournalTest {
+    private static final LocalDateTime NOW = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("fsync 후 응답하고, 다시 시작하면 남은 거래를 계좌별로 순서대로 반영")
+    void replayAfterRestart() throws Exception {
+        //given
+        WriteAheadJournal journal = journal(1 << 20, false);
+        AtomicInteger durable = new AtomicInteger();
+        journal.append("1111111111", entry(1L, TransactionType.USE, 1000L, 9000L, null), durable::incrementAndGet);
+        journal.append("2222222222", entry(2L, TransactionType.USE, 500L, 500L, null), durable::incrementAndGet);
+        journal.append("1111111111", entry(3L, TransactionType.CANCEL, 1000L, 10000L, 1L), durable::incrementAndGet);
+        journal.flush();
+        journal.close();
+        //when
+        WriteAheadJournal restarted = journal(1 << 20, false);
+        Map<String, List<BalanceEntry>> replayed = new LinkedHashMap<>();
+        restarted.replay(replayed::put);
+        restarted.close();
+        //then
+        assertEquals(3, durable.get());
+        assertEquals(List.of("1111111111", "2222222222"), new ArrayList<>(replayed.keySet()));
+        List<BalanceEntry> first = replayed.get("1111111111");
+        assertEquals(2, first.size());
+        assertEquals(TransactionType.CANCEL, first.get(1).getTransactionType());
+        assertEquals(1L, first.get(1).getCanceledTransactionId());
+        assertEquals(10000L, first.get(1).getBalanceSnapshot());
+        assertEquals(NOW, first.get(1).getTransactedAt());
+        assertNull(first.get(0).getCanceledTransactionId());
+        assertEquals(1, files(".wal").size()); // 다시 시작한 뒤 새로 연 segment 만 남음
+    }
+
+    @Test
+    @DisplayName("쓰다 만 record 부터는 읽지 않음")
+    void ignoresTornRecord() throws Exception {
+        //given
+        WriteAheadJournal journal = journal(1 << 20, false);
+        journal.append("1111111111", entry(1L, TransactionType.USE, 1000L, 9000L, null), null);
+        journal.append("1111111111", entry(2L, TransactionType.USE, 1000L, 8000L, null), null);
+        journal.close();
+        Path segment = files(".wal").get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[80] ^= 0x7f; // 두 번째 record 의 payload
+        Files.write(segment, bytes);
+        //when
+        List<BalanceEntry> replayed = new ArrayList<>();
+        int count = WriteAheadJournal.read(segment, (accountNumber, entry) -> replayed.add(entry));
+        //then
+        assertEquals(1, count);
+        assertEquals(1L, replayed.get(0).getTransactionId());
+    }
+
+    @Test
+    @DisplayName("다 찬 segment 는 fsync 되고 모든 거래가 DB 에 반영되면 archive")
+    void archivesPersistedSegment() throws Exception {
+        //given
+        WriteAheadJournal journal = journal(100, true); // record 하나만 들어가는 크기
+        long first = journal.append("1111111111", entry(1L, TransactionType.USE, 1000L, 9000L, null), null);
+        long second = journal.append("1111111111", entry(2L, TransactionType.USE, 1000L, 8000L, null), null);
+        //when
+        journal.flush();
+        journal.markPersisted(first);
+        //then
+        assertNotEquals(first, second);
+        assertEquals(1, files(".done").size());
+        assertEquals(1, files(".wal").size());
+        journal.close();
+    }
+
+    private WriteAheadJournal journal(int segmentBytes, boolean archive) throws IOException {
+        WriteAheadJournal journal = new WriteAheadJournal(directory.toString(), segmentBytes, 100, archive);
+        journal.open();
+        return journal;
+    }
+
+    private List<Path> files(String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(suffix)).collect(Collectors.toList());
+        }
+    }
+
+    private static BalanceEntry entry(long transactionId, TransactionType type, long amount, long balance,
+                                      Long canceledTransactionId) {
+        return new BalanceEntry(transactionId, type, amount, balance, NOW, canceledTransactionId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.benchmark;
+
+import com.example.account.domain.Account;
+import com.example.account.domain.BaseEntity;
+import com.example.account.type.TransactionResult;
+import com.example.account.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 변경 전 TransactionInfo 매핑 (id 만 IDENTITY), 저장 처리량 비교용 별도 테이블
+ * 다른 JPA 테스트의 schema 에 섞이지 않도록 com.example.account 밖에 두고,
+ * TransactionInfoInsertBenchmarkTest 의 @EntityScan 에서만 등록한다.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "identity_transaction_info")
+public class IdentityTransactionInfo extends BaseEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
+    private Account account;
+
+    @Enumerated(EnumType.STRING)
+    private TransactionType transactionType;
+    @Enumerated(EnumType.STRING)
+    private TransactionResult transactionResult;
+
+    @Column(name = "transaction_id", unique = true)
+    private Long transactionId;
+    private Long amount;
+    private Long balanceSnapshot;
+    private LocalDateTime transactedAt;
+}